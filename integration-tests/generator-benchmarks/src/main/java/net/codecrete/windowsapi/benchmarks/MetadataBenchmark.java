@@ -0,0 +1,77 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import net.codecrete.windowsapi.metadata.Metadata;
+import net.codecrete.windowsapi.winmd.MetadataBuilder;
+import net.codecrete.windowsapi.winmd.MetadataFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the metadata from the built-in .winmd file.
+ * <p>
+ * The file is read into memory once, so the benchmarks do not include any I/O.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MetadataBenchmark {
+
+    private byte[] winmdData;
+
+    @Setup
+    public void setup() throws IOException {
+        try (var stream = MetadataBuilder.class.getClassLoader().getResourceAsStream("Windows.Win32.winmd")) {
+            winmdData = stream.readAllBytes();
+        }
+    }
+
+    /**
+     * Parses the .winmd file (header, streams and tables).
+     */
+    @Benchmark
+    public MetadataFile parseMetadataFile() {
+        return new MetadataFile(new ByteArrayInputStream(winmdData));
+    }
+
+    /**
+     * Parses the .winmd file and iterates all type definitions.
+     */
+    @Benchmark
+    public int readTypeDefinitions() {
+        var metadataFile = new MetadataFile(new ByteArrayInputStream(winmdData));
+        int count = 0;
+        for (var ignored : metadataFile.getTypeDefs())
+            count += 1;
+        return count;
+    }
+
+    /**
+     * Parses the .winmd file and builds the metadata (types, functions, constants and layouts).
+     */
+    @Benchmark
+    public Metadata buildMetadata() {
+        return MetadataBuilder.load(new MetadataFile(new ByteArrayInputStream(winmdData)));
+    }
+}
@@ -0,0 +1,101 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import net.codecrete.windowsapi.metadata.ComInterface;
+import net.codecrete.windowsapi.metadata.Metadata;
+import net.codecrete.windowsapi.metadata.Method;
+import net.codecrete.windowsapi.winmd.MetadataBuilder;
+import net.codecrete.windowsapi.writer.Scope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the computation of the transitive scope.
+ * <p>
+ * The small scope is a single function, the medium scope is the scope of a typical USB
+ * library (functions, structs, enumerations and constants), and the huge scope contains
+ * all functions and all COM interfaces.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+public class ScopeBenchmark {
+
+    @Param({"small", "medium", "huge"})
+    private String scopeSize;
+
+    private Metadata metadata;
+    private Set<String> functions;
+    private Set<String> structs;
+    private Set<String> enums;
+    private Set<String> constants;
+    private Set<String> comInterfaces;
+
+    @Setup
+    public void setup() {
+        metadata = MetadataBuilder.load();
+        structs = Set.of();
+        enums = Set.of();
+        constants = Set.of();
+        comInterfaces = Set.of();
+
+        switch (scopeSize) {
+            case "small" -> functions = Set.of("MessageBoxW");
+            case "medium" -> {
+                functions = Set.of("SetupDiGetClassDevsW", "SetupDiEnumDeviceInterfaces",
+                        "SetupDiGetDeviceInterfaceDetailW", "SetupDiGetDevicePropertyW", "SetupDiDestroyDeviceInfoList",
+                        "CreateFileW", "DeviceIoControl", "CloseHandle", "WinUsb_Initialize", "WinUsb_ReadPipe",
+                        "WinUsb_WritePipe", "WinUsb_Free", "RegisterDeviceNotificationW", "CreateWindowExW",
+                        "GetMessageW", "DefWindowProcW");
+                structs = Set.of("DEV_BROADCAST_DEVICEINTERFACE_W", "USB_NODE_CONNECTION_INFORMATION_EX");
+                enums = Set.of("WIN32_ERROR", "SETUP_DI_GET_CLASS_DEVS_FLAGS");
+                constants = Set.of("GUID_DEVINTERFACE_USB_DEVICE", "DEVPKEY_Device_Address",
+                        "IOCTL_USB_GET_NODE_CONNECTION_INFORMATION_EX");
+            }
+            case "huge" -> {
+                functions = metadata.methods().map(Method::nativeName).collect(Collectors.toSet());
+                comInterfaces = metadata.types()
+                        .filter(ComInterface.class::isInstance)
+                        .map(type -> type.nativeName())
+                        .collect(Collectors.toSet());
+            }
+            default -> throw new IllegalArgumentException(scopeSize);
+        }
+    }
+
+    /**
+     * Creates the scope and computes the transitive scope.
+     */
+    @Benchmark
+    public Scope buildTransitiveScope() {
+        var scope = new Scope(metadata, event -> { });
+        scope.addFunctions(functions);
+        scope.addStructs(structs);
+        scope.addEnums(enums);
+        scope.addConstants(constants);
+        scope.addComInterfaces(comInterfaces);
+        scope.buildTransitiveScope();
+        return scope;
+    }
+}
@@ -0,0 +1,148 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.writer;
+
+import net.codecrete.windowsapi.metadata.ComInterface;
+import net.codecrete.windowsapi.metadata.Delegate;
+import net.codecrete.windowsapi.metadata.EnumType;
+import net.codecrete.windowsapi.metadata.Metadata;
+import net.codecrete.windowsapi.metadata.Struct;
+import net.codecrete.windowsapi.winmd.MetadataBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the code writers in isolation and the complete code generation.
+ * <p>
+ * Each benchmark writes the Java code for all elements of a kind in the metadata.
+ * The code is written to an in-memory sink discarding it, so the benchmarks do not include any I/O.
+ * As the writers are package-private, this class is in the same package.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class WriterBenchmark {
+
+    private Metadata metadata;
+
+    @Setup
+    public void setup() {
+        metadata = MetadataBuilder.load();
+    }
+
+    /**
+     * Writes all structs and unions.
+     */
+    @Benchmark
+    public GenerationContext writeStructs() {
+        var context = createContext();
+        var writer = new StructCodeWriter(context);
+        metadata.types()
+                .filter(type -> type instanceof Struct struct && struct.namespace() != null)
+                .forEach(type -> writer.writeStructOrUnion((Struct) type));
+        return context;
+    }
+
+    /**
+     * Writes all enumerations.
+     */
+    @Benchmark
+    public GenerationContext writeEnums() {
+        var context = createContext();
+        var writer = new EnumCodeWriter(context);
+        metadata.types()
+                .filter(EnumType.class::isInstance)
+                .forEach(type -> writer.writeEnum((EnumType) type));
+        return context;
+    }
+
+    /**
+     * Writes all callback functions.
+     */
+    @Benchmark
+    public GenerationContext writeCallbackFunctions() {
+        var context = createContext();
+        var writer = new CallbackFunctionCodeWriter(context);
+        metadata.types()
+                .filter(Delegate.class::isInstance)
+                .forEach(type -> writer.writeCallbackFunction((Delegate) type));
+        return context;
+    }
+
+    /**
+     * Writes all COM interfaces.
+     */
+    @Benchmark
+    public GenerationContext writeComInterfaces() {
+        var context = createContext();
+        var writer = new ComInterfaceWriter(context);
+        metadata.types()
+                .filter(ComInterface.class::isInstance)
+                .forEach(type -> writer.writeComInterface((ComInterface) type));
+        return context;
+    }
+
+    /**
+     * Writes all functions.
+     */
+    @Benchmark
+    public GenerationContext writeFunctions() {
+        var context = createContext();
+        var writer = new FunctionCodeWriter(context);
+        metadata.namespaces().values().stream()
+                .filter(namespace -> !namespace.methods().isEmpty())
+                .forEach(namespace -> writer.writeFunctions(namespace, namespace.methods().values()));
+        return context;
+    }
+
+    /**
+     * Writes all constants.
+     */
+    @Benchmark
+    public GenerationContext writeConstants() {
+        var context = createContext();
+        var writer = new ConstantCodeWriter(context);
+        metadata.namespaces().values().stream()
+                .filter(namespace -> !namespace.constants().isEmpty())
+                .forEach(namespace -> writer.writeConstants(namespace, namespace.constants().values()));
+        return context;
+    }
+
+    /**
+     * Writes all types, functions, constants and runtime support classes.
+     */
+    @Benchmark
+    public CodeWriter writeAll() {
+        var codeWriter = new CodeWriter(metadata, Path.of("."), event -> { });
+        codeWriter.setDryRun(true);
+        codeWriter.writeAll();
+        return codeWriter;
+    }
+
+    private GenerationContext createContext() {
+        var context = new GenerationContext(metadata, event -> { });
+        context.setWriterFactory(path -> new PrintWriter(Writer.nullWriter()));
+        return context;
+    }
+}
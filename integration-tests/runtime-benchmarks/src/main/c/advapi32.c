@@ -0,0 +1,38 @@
+/*
+ * Windows API Generator for Java
+ * Copyright (c) 2025 Manuel Bleichenbacher
+ * Licensed under MIT License
+ * https://opensource.org/licenses/MIT
+ *
+ * Stand-in implementations of Windows API functions for running the
+ * generated code on Linux. They only touch their parameters like the
+ * real functions would.
+ */
+#include <stdint.h>
+#include <string.h>
+
+#define ERROR_SUCCESS 0
+#define ERROR_MORE_DATA 234
+#define REG_DWORD 4
+
+int32_t RegOpenKeyExW(void* hKey, const uint16_t* lpSubKey, uint32_t ulOptions, uint32_t samDesired, void** phkResult) {
+    *phkResult = (void*) 0x1234;
+    return ERROR_SUCCESS;
+}
+
+int32_t RegQueryValueExW(void* hKey, const uint16_t* lpValueName, uint32_t* lpReserved, uint32_t* lpType,
+        uint8_t* lpData, uint32_t* lpcbData) {
+    if (lpType != NULL)
+        *lpType = REG_DWORD;
+    if (lpcbData == NULL)
+        return ERROR_SUCCESS;
+
+    uint32_t capacity = *lpcbData;
+    *lpcbData = 4;
+    if (lpData == NULL)
+        return ERROR_SUCCESS;
+    if (capacity < 4)
+        return ERROR_MORE_DATA;
+    memset(lpData, 0x2a, 4);
+    return ERROR_SUCCESS;
+}
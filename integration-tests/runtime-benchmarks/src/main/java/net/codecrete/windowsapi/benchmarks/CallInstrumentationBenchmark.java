@@ -0,0 +1,114 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.foreign.MemorySegment.NULL;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * Measures the overhead of the call instrumentation (JFR events and call counters).
+ * <p>
+ * The same function is generated three times: without instrumentation, with JFR events
+ * (package prefix {@code events}) and with call counters (package prefix {@code counters}).
+ * The generated functions are linked against the stand-in library {@code libADVAPI32.so}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.library.path=target/native", "--enable-native-access=ALL-UNNAMED"})
+@State(Scope.Thread)
+public class CallInstrumentationBenchmark {
+
+    private final Arena arena = Arena.ofAuto();
+    private MemorySegment valueName;
+    private MemorySegment data;
+    private MemorySegment type;
+    private MemorySegment dataSize;
+
+    @Setup
+    public void setup() {
+        valueName = arena.allocateFrom("Value");
+        data = arena.allocate(JAVA_INT);
+        type = arena.allocate(JAVA_INT);
+        dataSize = arena.allocate(JAVA_INT);
+    }
+
+    /**
+     * JFR recording with the native call event enabled.
+     */
+    @State(Scope.Benchmark)
+    public static class EnabledEvents {
+        private Recording recording;
+
+        @Setup
+        public void start() {
+            recording = new Recording();
+            recording.enable("events.windows.win32.runtime.NativeCall");
+            recording.start();
+        }
+
+        @TearDown
+        public void stop() {
+            recording.close();
+        }
+    }
+
+    /**
+     * Function without instrumentation (baseline).
+     */
+    @Benchmark
+    public int callWithoutInstrumentation() {
+        dataSize.set(JAVA_INT, 0, 4);
+        return windows.win32.system.registry.Apis.RegQueryValueExW(NULL, valueName, NULL, type, data, dataSize);
+    }
+
+    /**
+     * Function incrementing a call counter.
+     */
+    @Benchmark
+    public int callWithCounter() {
+        dataSize.set(JAVA_INT, 0, 4);
+        return counters.windows.win32.system.registry.Apis.RegQueryValueExW(NULL, valueName, NULL, type, data, dataSize);
+    }
+
+    /**
+     * Function with JFR event, event disabled.
+     */
+    @Benchmark
+    public int callWithDisabledEvent() {
+        dataSize.set(JAVA_INT, 0, 4);
+        return events.windows.win32.system.registry.Apis.RegQueryValueExW(NULL, valueName, NULL, type, data, dataSize);
+    }
+
+    /**
+     * Function with JFR event, event enabled and recorded.
+     */
+    @Benchmark
+    public int callWithEnabledEvent(EnabledEvents enabledEvents) {
+        dataSize.set(JAVA_INT, 0, 4);
+        return events.windows.win32.system.registry.Apis.RegQueryValueExW(NULL, valueName, NULL, type, data, dataSize);
+    }
+}
@@ -0,0 +1,115 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import windows.win32.ui.windowsandmessaging.WNDENUMPROC;
+import windows.win32.ui.windowsandmessaging.WNDPROC;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the creation and the invocation of callback functions (upcall stubs).
+ * <p>
+ * The invocation benchmarks call the upcall stubs with the generated {@code invoke()} methods,
+ * i.e. the stubs serve as stand-in native function pointers, like the function pointers Windows
+ * passes to an application. Each call goes from Java through a downcall back into Java.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class CallbackBenchmark {
+
+    private static final MemorySegment WINDOW = MemorySegment.ofAddress(0x10010);
+
+    private Arena arena;
+    private MemorySegment enumWindowsStub;
+    private MemorySegment windowProcStub;
+    private long context;
+
+    @Setup
+    public void setup() {
+        arena = Arena.ofConfined();
+        enumWindowsStub = WNDENUMPROC.allocate(arena, CallbackBenchmark::enumWindow);
+        windowProcStub = WNDPROC.allocate(arena, CallbackBenchmark::windowProc);
+        context = WNDENUMPROC.register(CallbackBenchmark::enumWindow);
+    }
+
+    @TearDown
+    public void tearDown() {
+        WNDENUMPROC.unregister(context);
+        arena.close();
+    }
+
+    /**
+     * Upcall stub created and freed in a confined arena for each call.
+     */
+    @Benchmark
+    public long createUpcallStub() {
+        try (var stubArena = Arena.ofConfined()) {
+            return WNDENUMPROC.allocate(stubArena, CallbackBenchmark::enumWindow).address();
+        }
+    }
+
+    /**
+     * Function registered for (and unregistered from) the shared upcall stub.
+     */
+    @Benchmark
+    public long registerWithSharedStub() {
+        var registered = WNDENUMPROC.register(CallbackBenchmark::enumWindow);
+        WNDENUMPROC.unregister(registered);
+        return registered;
+    }
+
+    /**
+     * Callback function with two parameters called through its own upcall stub.
+     */
+    @Benchmark
+    public int invokeEnumWindowsProc() {
+        return WNDENUMPROC.invoke(enumWindowsStub, WINDOW, 42);
+    }
+
+    /**
+     * Callback function called through the shared upcall stub (with a registry lookup).
+     */
+    @Benchmark
+    public int invokeEnumWindowsProcShared() {
+        return WNDENUMPROC.invoke(WNDENUMPROC.sharedUpcallStub(), WINDOW, context);
+    }
+
+    /**
+     * Window procedure with four parameters called through its upcall stub.
+     */
+    @Benchmark
+    public long invokeWindowProc() {
+        return WNDPROC.invoke(windowProcStub, WINDOW, 0x0200, 1, 0x00200010);
+    }
+
+    private static int enumWindow(MemorySegment window, long param) {
+        return (int) (window.address() + param);
+    }
+
+    private static long windowProc(MemorySegment window, int message, long wParam, long lParam) {
+        return window.address() + message + wParam + lParam;
+    }
+}
@@ -0,0 +1,63 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import windows.win32.devices.usb.USB_NODE_CONNECTION_INFORMATION_EX;
+import windows.win32.graphics.gdi.DEVMODEW;
+import windows.win32.networkmanagement.iphelper.IP_ADAPTER_ADDRESSES_LH;
+import windows.win32.system.windowsprogramming.SYSTEM_PROCESS_INFORMATION;
+
+import java.lang.foreign.Arena;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the first use of generated struct classes (class loading and initialization).
+ * <p>
+ * Each measurement runs in a fresh JVM so the classes are initialized exactly once.
+ * The accessors and the allocation only need the struct size and the field offsets,
+ * whereas {@code layout()} builds the layouts of the struct and all nested structs.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class ClassInitBenchmark {
+
+    /**
+     * First use of the allocation and the field accessors.
+     */
+    @Benchmark
+    public void allocateAndAccess(Blackhole blackhole) {
+        var arena = Arena.ofAuto();
+        blackhole.consume(IP_ADAPTER_ADDRESSES_LH.Next(IP_ADAPTER_ADDRESSES_LH.allocate(arena)));
+        blackhole.consume(SYSTEM_PROCESS_INFORMATION.UniqueProcessId(SYSTEM_PROCESS_INFORMATION.allocate(arena)));
+        blackhole.consume(DEVMODEW.dmFields(DEVMODEW.allocate(arena)));
+        blackhole.consume(USB_NODE_CONNECTION_INFORMATION_EX.ConnectionIndex(
+                USB_NODE_CONNECTION_INFORMATION_EX.allocate(arena, 1)));
+    }
+
+    /**
+     * First use of the struct layouts.
+     */
+    @Benchmark
+    public void buildLayouts(Blackhole blackhole) {
+        blackhole.consume(IP_ADAPTER_ADDRESSES_LH.layout());
+        blackhole.consume(SYSTEM_PROCESS_INFORMATION.layout());
+        blackhole.consume(DEVMODEW.layout());
+        blackhole.consume(USB_NODE_CONNECTION_INFORMATION_EX.layout());
+    }
+}
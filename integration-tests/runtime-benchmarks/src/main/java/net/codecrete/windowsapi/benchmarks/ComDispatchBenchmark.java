@@ -0,0 +1,124 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import windows.win32.system.com.IUnknown;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+
+/**
+ * Measures the dispatch of COM method calls through the generated wrappers.
+ * <p>
+ * There is no COM on Linux. Instead, a Java implementation of {@code IUnknown} is turned into a
+ * native COM object with {@code IUnknown.create()}. Its vtable consists of upcall stubs, which serve
+ * as stand-in native function pointers. The object is then wrapped with {@code IUnknown.wrap()} like
+ * a COM object returned by a Windows function. So each call goes from Java through the vtable
+ * (downcall) back into Java (upcall).
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class ComDispatchBenchmark {
+
+    private static final int S_OK = 0;
+    private static final int E_NOINTERFACE = 0x80004002;
+
+    private JavaUnknown javaObject;
+    private IUnknown wrapped;
+    private MemorySegment comObject;
+    private MemorySegment interfacePointer;
+
+    @Setup
+    public void setup() {
+        var arena = Arena.ofAuto();
+        javaObject = new JavaUnknown();
+        comObject = IUnknown.create(javaObject, arena);
+        wrapped = IUnknown.wrap(comObject);
+        interfacePointer = arena.allocate(ADDRESS);
+    }
+
+    /**
+     * Baseline: {@code AddRef()} called on the Java object directly.
+     */
+    @Benchmark
+    public int addRefJava() {
+        return javaObject.AddRef();
+    }
+
+    /**
+     * {@code AddRef()} called through the wrapper, the vtable and the upcall stub.
+     */
+    @Benchmark
+    public int addRefDispatched() {
+        return wrapped.AddRef();
+    }
+
+    /**
+     * {@code QueryInterface()} with an IID and an output parameter, called through the wrapper,
+     * the vtable and the upcall stub.
+     */
+    @Benchmark
+    public int queryInterfaceDispatched() {
+        return wrapped.QueryInterface(IUnknown.iid(), interfacePointer);
+    }
+
+    /**
+     * A COM object wrapped and a method called, as is typical for COM objects returned by a function.
+     */
+    @Benchmark
+    public int wrapAndCall() {
+        return IUnknown.wrap(comObject).Release();
+    }
+
+    /**
+     * Minimal {@code IUnknown} implementation.
+     */
+    private final class JavaUnknown implements IUnknown {
+        private int refCount = 1;
+
+        @Override
+        public int QueryInterface(MemorySegment riid, MemorySegment ppvObject) {
+            var target = ppvObject.reinterpret(ADDRESS.byteSize());
+            if (riid.reinterpret(16).mismatch(IUnknown.iid()) == -1) {
+                target.set(ADDRESS, 0, comObject);
+                return S_OK;
+            }
+            target.set(ADDRESS, 0, MemorySegment.NULL);
+            return E_NOINTERFACE;
+        }
+
+        @Override
+        public int AddRef() {
+            refCount += 1;
+            return refCount;
+        }
+
+        @Override
+        public int Release() {
+            refCount -= 1;
+            return refCount;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.foreign.MemorySegment.NULL;
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static windows.win32.system.registry.Apis.RegOpenKeyExW;
+import static windows.win32.system.registry.Apis.RegQueryValueExW;
+
+/**
+ * Compares the allocation behavior of calls with out parameters.
+ * <p>
+ * The generated functions are linked against the stand-in library {@code libADVAPI32.so}.
+ * Run with {@code -prof gc} to see the allocation rate per call.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.library.path=target/native", "--enable-native-access=ALL-UNNAMED"})
+@State(Scope.Thread)
+public class OutParameterBenchmark {
+
+    private final Arena arena = Arena.ofAuto();
+    private MemorySegment valueName;
+    private MemorySegment data;
+    private MemorySegment type;
+    private MemorySegment dataSize;
+    private MemorySegment keyResult;
+
+    @Setup
+    public void setup() {
+        valueName = arena.allocateFrom("Value");
+        data = arena.allocate(JAVA_INT);
+        type = arena.allocate(JAVA_INT);
+        dataSize = arena.allocate(JAVA_INT);
+        keyResult = arena.allocate(ADDRESS);
+    }
+
+    /**
+     * Out parameters allocated from a confined arena for each call.
+     */
+    @Benchmark
+    public void queryValueWithArenaPerCall(Blackhole blackhole) {
+        try (var callArena = Arena.ofConfined()) {
+            var lpType = callArena.allocate(JAVA_INT);
+            var lpcbData = callArena.allocateFrom(JAVA_INT, 4);
+            blackhole.consume(RegQueryValueExW(NULL, valueName, NULL, lpType, data, lpcbData));
+            blackhole.consume(lpType.get(JAVA_INT, 0));
+            blackhole.consume(lpcbData.get(JAVA_INT, 0));
+        }
+    }
+
+    /**
+     * Out parameters allocated once and reused (lower bound).
+     */
+    @Benchmark
+    public void queryValueWithPreallocatedSegments(Blackhole blackhole) {
+        dataSize.set(JAVA_INT, 0, 4);
+        blackhole.consume(RegQueryValueExW(NULL, valueName, NULL, type, data, dataSize));
+        blackhole.consume(type.get(JAVA_INT, 0));
+        blackhole.consume(dataSize.get(JAVA_INT, 0));
+    }
+
+    /**
+     * Generated overload using the thread-local scratch allocator and returning a result record.
+     */
+    @Benchmark
+    public void queryValueWithResultOverload(Blackhole blackhole) {
+        var result = RegQueryValueExW(NULL, valueName, NULL, data, 4);
+        blackhole.consume(result.result());
+        blackhole.consume(result.lpType());
+        blackhole.consume(result.lpcbData());
+    }
+
+    /**
+     * Out parameter for a handle allocated from a confined arena for each call.
+     */
+    @Benchmark
+    public MemorySegment openKeyWithArenaPerCall() {
+        try (var callArena = Arena.ofConfined()) {
+            var phkResult = callArena.allocate(ADDRESS);
+            RegOpenKeyExW(NULL, valueName, 0, 0, phkResult);
+            return phkResult.get(ADDRESS, 0);
+        }
+    }
+
+    /**
+     * Generated overload returning the handle in a result record.
+     */
+    @Benchmark
+    public MemorySegment openKeyWithResultOverload() {
+        return RegOpenKeyExW(NULL, valueName, 0, 0).phkResult();
+    }
+
+    /**
+     * Out parameter for a handle allocated once and reused (lower bound).
+     */
+    @Benchmark
+    public MemorySegment openKeyWithPreallocatedSegment() {
+        RegOpenKeyExW(NULL, valueName, 0, 0, keyResult);
+        return keyResult.get(ADDRESS, 0);
+    }
+}
@@ -0,0 +1,118 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import windows.win32.devices.deviceanddriverinstallation.SP_DEVICE_INTERFACE_DETAIL_DATA_W;
+import windows.win32.runtime.SlabAllocator;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.foreign.ValueLayout.JAVA_CHAR;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+
+/**
+ * Measures the marshalling of Java strings to and from the UTF-16 strings used by the Windows API.
+ * <p>
+ * Strings are converted with {@code allocateFrom()} and {@code getString()} as recommended for the
+ * generated code, both as stand-alone strings and as the flexible array {@code DevicePath} of
+ * {@code SP_DEVICE_INTERFACE_DETAIL_DATA_W}. It does not call any native functions.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class StringMarshallingBenchmark {
+
+    @Param({"16", "256"})
+    private int length;
+
+    private String string;
+    private MemorySegment nativeString;
+    private MemorySegment detailData;
+    private SlabAllocator slabAllocator;
+
+    @Setup
+    public void setup() {
+        var builder = new StringBuilder(length);
+        for (int i = 0; i < length; i += 1)
+            builder.append((char) ('a' + i % 26));
+        string = builder.toString();
+
+        var arena = Arena.ofAuto();
+        nativeString = arena.allocateFrom(string, UTF_16LE);
+        detailData = SP_DEVICE_INTERFACE_DETAIL_DATA_W.allocate(arena, length + 1);
+        SP_DEVICE_INTERFACE_DETAIL_DATA_W.DevicePath(detailData, nativeString);
+        slabAllocator = new SlabAllocator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        slabAllocator.close();
+    }
+
+    /**
+     * Java string converted to a native string in a confined arena opened for each call.
+     */
+    @Benchmark
+    public long toNativeWithArena() {
+        try (var arena = Arena.ofConfined()) {
+            return arena.allocateFrom(string, UTF_16LE).get(JAVA_CHAR, 0);
+        }
+    }
+
+    /**
+     * Java string converted to a native string from a slab allocator reset for each call.
+     */
+    @Benchmark
+    public long toNativeWithSlabAllocator() {
+        slabAllocator.reset();
+        return slabAllocator.allocateFrom(string, UTF_16LE).get(JAVA_CHAR, 0);
+    }
+
+    /**
+     * Native string converted to a Java string.
+     */
+    @Benchmark
+    public String fromNative() {
+        return nativeString.getString(0, UTF_16LE);
+    }
+
+    /**
+     * Java string copied into the flexible array of a struct.
+     */
+    @Benchmark
+    public MemorySegment toFlexibleArray() {
+        var devicePath = SP_DEVICE_INTERFACE_DETAIL_DATA_W.DevicePath(detailData);
+        devicePath.setString(0, string, UTF_16LE);
+        return detailData;
+    }
+
+    /**
+     * Flexible array of a struct converted to a Java string.
+     */
+    @Benchmark
+    public String fromFlexibleArray() {
+        return SP_DEVICE_INTERFACE_DETAIL_DATA_W.DevicePath(detailData).getString(0, UTF_16LE);
+    }
+}
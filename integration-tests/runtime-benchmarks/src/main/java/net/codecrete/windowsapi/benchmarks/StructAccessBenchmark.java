@@ -0,0 +1,190 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import windows.win32.devices.communication.DCB;
+import windows.win32.foundation.LUID;
+import windows.win32.security.LUID_AND_ATTRIBUTES;
+import windows.win32.security.TOKEN_PRIVILEGES;
+import windows.win32.ui.input.keyboardandmouse.INPUT;
+import windows.win32.ui.input.keyboardandmouse.KEYBDINPUT;
+import windows.win32.ui.input.keyboardandmouse.MOUSEINPUT;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_SHORT;
+
+/**
+ * Measures the generated struct accessors for the struct shapes that need more than a single
+ * memory access: nested unions, bitfields and flexible arrays.
+ * <p>
+ * It does not call any native functions.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StructAccessBenchmark {
+
+    private static final int INPUT_MOUSE = 0;
+    private static final int INPUT_KEYBOARD = 1;
+
+    @Param({"1000"})
+    private int count;
+
+    private MemorySegment inputs;
+    private MemorySegment dcbs;
+    private MemorySegment privileges;
+
+    @Setup
+    public void setup() {
+        var arena = Arena.ofAuto();
+
+        inputs = INPUT.allocateArray(count, arena);
+        for (int i = 0; i < count; i += 1) {
+            var input = INPUT.elementAsSlice(inputs, i);
+            if (i % 2 == 0) {
+                INPUT.type(input, INPUT_MOUSE);
+                MOUSEINPUT.dx(INPUT.mi(input), i);
+                MOUSEINPUT.dy(INPUT.mi(input), -i);
+            } else {
+                INPUT.type(input, INPUT_KEYBOARD);
+                KEYBDINPUT.wVk(INPUT.ki(input), (short) (i & 0xff));
+                KEYBDINPUT.dwFlags(INPUT.ki(input), 2);
+            }
+        }
+
+        dcbs = DCB.allocateArray(count, arena);
+        for (int i = 0; i < count; i += 1) {
+            DCB.BaudRate$at(dcbs, i, 9600);
+            // fBinary = 1, fDtrControl = i % 3, fRtsControl = (i + 1) % 3
+            DCB._bitfield1$at(dcbs, i, 1 | (i % 3) << 4 | ((i + 1) % 3) << 12);
+        }
+
+        privileges = TOKEN_PRIVILEGES.allocate(arena, count);
+        TOKEN_PRIVILEGES.PrivilegeCount(privileges, count);
+        var array = TOKEN_PRIVILEGES.Privileges(privileges);
+        for (int i = 0; i < count; i += 1) {
+            var element = LUID_AND_ATTRIBUTES.elementAsSlice(array, i);
+            LUID.LowPart(LUID_AND_ATTRIBUTES.Luid(element), 100 + i);
+            LUID_AND_ATTRIBUTES.Attributes(element, i % 4);
+        }
+    }
+
+    /**
+     * Union members read through the slices returned by the union accessors (one slice per member access).
+     */
+    @Benchmark
+    public long readUnionWithSlices() {
+        long sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            var input = INPUT.elementAsSlice(inputs, i);
+            if (INPUT.type(input) == INPUT_MOUSE)
+                sum += MOUSEINPUT.dx(INPUT.mi(input)) + MOUSEINPUT.dy(INPUT.mi(input));
+            else
+                sum += KEYBDINPUT.wVk(INPUT.ki(input)) + KEYBDINPUT.dwFlags(INPUT.ki(input));
+        }
+        return sum;
+    }
+
+    /**
+     * Union members read with the field offsets, directly from the array.
+     */
+    @Benchmark
+    public long readUnionWithOffsets() {
+        long sum = 0;
+        var size = INPUT.sizeof();
+        for (int i = 0; i < count; i += 1) {
+            if (INPUT.type$at(inputs, i) == INPUT_MOUSE) {
+                var offset = size * i + INPUT.mi$offset();
+                sum += inputs.get(JAVA_INT, offset + MOUSEINPUT.dx$offset())
+                        + inputs.get(JAVA_INT, offset + MOUSEINPUT.dy$offset());
+            } else {
+                var offset = size * i + INPUT.ki$offset();
+                sum += inputs.get(JAVA_SHORT, offset + KEYBDINPUT.wVk$offset())
+                        + inputs.get(JAVA_INT, offset + KEYBDINPUT.dwFlags$offset());
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Bitfields extracted from the raw bitfield member with the indexed getter.
+     */
+    @Benchmark
+    public long readBitfields() {
+        long sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            var bits = DCB._bitfield1$at(dcbs, i);
+            var binary = bits & 1;
+            var dtrControl = (bits >>> 4) & 3;
+            var rtsControl = (bits >>> 12) & 3;
+            sum += DCB.BaudRate$at(dcbs, i) + binary + dtrControl + rtsControl;
+        }
+        return sum;
+    }
+
+    /**
+     * Bitfields updated (read-modify-write) in the raw bitfield member with the indexed getter and setter.
+     */
+    @Benchmark
+    public MemorySegment writeBitfields() {
+        for (int i = 0; i < count; i += 1) {
+            var bits = DCB._bitfield1$at(dcbs, i);
+            DCB._bitfield1$at(dcbs, i, (bits & ~(3 << 12)) | ((bits >>> 4) & 3) << 12);
+        }
+        return dcbs;
+    }
+
+    /**
+     * Flexible array iterated with a slice per element.
+     */
+    @Benchmark
+    public long readFlexibleArrayWithElementSlices() {
+        long sum = 0;
+        var array = TOKEN_PRIVILEGES.Privileges(privileges);
+        var privilegeCount = TOKEN_PRIVILEGES.PrivilegeCount(privileges);
+        for (int i = 0; i < privilegeCount; i += 1) {
+            var element = LUID_AND_ATTRIBUTES.elementAsSlice(array, i);
+            sum += LUID.LowPart(LUID_AND_ATTRIBUTES.Luid(element)) + LUID_AND_ATTRIBUTES.Attributes(element);
+        }
+        return sum;
+    }
+
+    /**
+     * Flexible array iterated with the field offsets and the indexed getters of the element struct.
+     */
+    @Benchmark
+    public long readFlexibleArrayWithIndexedAccessors() {
+        long sum = 0;
+        var array = TOKEN_PRIVILEGES.Privileges(privileges);
+        var privilegeCount = TOKEN_PRIVILEGES.PrivilegeCount(privileges);
+        var lowPartOffset = LUID_AND_ATTRIBUTES.Luid$offset() + LUID.LowPart$offset();
+        for (int i = 0; i < privilegeCount; i += 1) {
+            sum += array.get(JAVA_INT, LUID_AND_ATTRIBUTES.sizeof() * i + lowPartOffset)
+                    + LUID_AND_ATTRIBUTES.Attributes$at(array, i);
+        }
+        return sum;
+    }
+}
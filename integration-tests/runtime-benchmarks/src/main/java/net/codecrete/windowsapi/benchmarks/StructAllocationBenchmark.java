@@ -0,0 +1,129 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import windows.win32.runtime.SegmentPool;
+import windows.win32.runtime.SlabAllocator;
+import windows.win32.ui.windowsandmessaging.WINDOWINFO;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocation of structs in a hot loop.
+ * <p>
+ * Each iteration allocates {@code count} {@code WINDOWINFO} structs (with a {@code cbSize} member),
+ * sets a field and reads it back, like code preparing the structs for native calls would.
+ * It does not call any native functions.
+ * </p>
+ * <p>
+ * Run with {@code -prof gc} to see the allocation rate per iteration. The sample time mode
+ * reports the latency percentiles.
+ * </p>
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@State(Scope.Thread)
+public class StructAllocationBenchmark {
+
+    @Param({"1", "16"})
+    private int count;
+
+    private SlabAllocator slabAllocator;
+    private SegmentPool segmentPool;
+    private MemorySegment[] segments;
+    private MemorySegment preallocated;
+
+    @Setup
+    public void setup() {
+        slabAllocator = new SlabAllocator();
+        segmentPool = new SegmentPool();
+        segments = new MemorySegment[count];
+        preallocated = WINDOWINFO.allocateArray(count, Arena.ofAuto());
+    }
+
+    @TearDown
+    public void tearDown() {
+        slabAllocator.close();
+        segmentPool.close();
+    }
+
+    /**
+     * Structs allocated from a confined arena opened for each iteration (zeroed, malloc and free).
+     */
+    @Benchmark
+    public long allocateWithArenaPerIteration() {
+        long sum = 0;
+        try (var arena = Arena.ofConfined()) {
+            for (int i = 0; i < count; i += 1)
+                sum += useStruct(WINDOWINFO.allocate(arena), i);
+        }
+        return sum;
+    }
+
+    /**
+     * Structs allocated from a slab allocator reset for each iteration (only {@code cbSize} is set).
+     */
+    @Benchmark
+    public long allocateWithSlabAllocator() {
+        long sum = 0;
+        slabAllocator.reset();
+        for (int i = 0; i < count; i += 1)
+            sum += useStruct(WINDOWINFO.allocateUninitialized(slabAllocator), i);
+        return sum;
+    }
+
+    /**
+     * Structs acquired from a segment pool and released at the end of the iteration (only {@code cbSize} is set).
+     */
+    @Benchmark
+    public long allocateWithSegmentPool() {
+        long sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            segments[i] = WINDOWINFO.acquire(segmentPool);
+            sum += useStruct(segments[i], i);
+        }
+        for (int i = 0; i < count; i += 1)
+            segmentPool.release(segments[i]);
+        return sum;
+    }
+
+    /**
+     * Structs allocated once and reused (lower bound).
+     */
+    @Benchmark
+    public long reusePreallocatedStructs() {
+        long sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            var struct = WINDOWINFO.elementAsSlice(preallocated, i);
+            WINDOWINFO.cbSize(struct, (int) WINDOWINFO.sizeof());
+            sum += useStruct(struct, i);
+        }
+        return sum;
+    }
+
+    private static long useStruct(MemorySegment struct, int value) {
+        WINDOWINFO.dwStyle(struct, value);
+        return WINDOWINFO.cbSize(struct) + WINDOWINFO.dwStyle(struct);
+    }
+}
@@ -0,0 +1,124 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import windows.win32.system.services.SERVICE_STATUS_PROCESS;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the approaches for reading an array of structs into Java.
+ * <p>
+ * Each benchmark reads all fields of all elements of a {@code SERVICE_STATUS_PROCESS} array,
+ * as returned by {@code EnumServicesStatusExW}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StructRecordBenchmark {
+
+    @Param({"1000"})
+    private int count;
+
+    private MemorySegment array;
+
+    @Setup
+    public void setup() {
+        array = SERVICE_STATUS_PROCESS.allocateArray(count, Arena.ofAuto());
+        for (int i = 0; i < count; i += 1) {
+            SERVICE_STATUS_PROCESS.dwProcessId$at(array, i, 1000 + i);
+            SERVICE_STATUS_PROCESS.dwCurrentState$at(array, i, i % 7);
+        }
+    }
+
+    /**
+     * Field getters applied to a slice of each element.
+     */
+    @Benchmark
+    public long readWithElementSlices() {
+        long sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            var element = SERVICE_STATUS_PROCESS.elementAsSlice(array, i);
+            sum += SERVICE_STATUS_PROCESS.dwServiceType(element)
+                    + SERVICE_STATUS_PROCESS.dwCurrentState(element)
+                    + SERVICE_STATUS_PROCESS.dwControlsAccepted(element)
+                    + SERVICE_STATUS_PROCESS.dwWin32ExitCode(element)
+                    + SERVICE_STATUS_PROCESS.dwServiceSpecificExitCode(element)
+                    + SERVICE_STATUS_PROCESS.dwCheckPoint(element)
+                    + SERVICE_STATUS_PROCESS.dwWaitHint(element)
+                    + SERVICE_STATUS_PROCESS.dwProcessId(element)
+                    + SERVICE_STATUS_PROCESS.dwServiceFlags(element);
+        }
+        return sum;
+    }
+
+    /**
+     * Indexed field getters reading directly from the array.
+     */
+    @Benchmark
+    public long readWithIndexedAccessors() {
+        long sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            sum += SERVICE_STATUS_PROCESS.dwServiceType$at(array, i)
+                    + SERVICE_STATUS_PROCESS.dwCurrentState$at(array, i)
+                    + SERVICE_STATUS_PROCESS.dwControlsAccepted$at(array, i)
+                    + SERVICE_STATUS_PROCESS.dwWin32ExitCode$at(array, i)
+                    + SERVICE_STATUS_PROCESS.dwServiceSpecificExitCode$at(array, i)
+                    + SERVICE_STATUS_PROCESS.dwCheckPoint$at(array, i)
+                    + SERVICE_STATUS_PROCESS.dwWaitHint$at(array, i)
+                    + SERVICE_STATUS_PROCESS.dwProcessId$at(array, i)
+                    + SERVICE_STATUS_PROCESS.dwServiceFlags$at(array, i);
+        }
+        return sum;
+    }
+
+    /**
+     * Generated bulk codec converting the array into snapshot records.
+     */
+    @Benchmark
+    public SERVICE_STATUS_PROCESS.Snapshot[] readArrayOfRecords() {
+        return SERVICE_STATUS_PROCESS.readArray(array, count);
+    }
+
+    /**
+     * Generated codec converting each element into a snapshot record and consuming its fields.
+     */
+    @Benchmark
+    public long readRecords() {
+        long sum = 0;
+        for (int i = 0; i < count; i += 1) {
+            var status = SERVICE_STATUS_PROCESS.read(array, SERVICE_STATUS_PROCESS.sizeof() * i);
+            sum += status.dwServiceType()
+                    + status.dwCurrentState()
+                    + status.dwControlsAccepted()
+                    + status.dwWin32ExitCode()
+                    + status.dwServiceSpecificExitCode()
+                    + status.dwCheckPoint()
+                    + status.dwWaitHint()
+                    + status.dwProcessId()
+                    + status.dwServiceFlags();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,59 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.tests;
+
+import org.junit.jupiter.api.Test;
+import windows.win32.runtime.BlockingCalls;
+
+import java.lang.foreign.Arena;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.foreign.MemorySegment.NULL;
+import static org.assertj.core.api.Assertions.assertThat;
+import static windows.win32.foundation.Apis.CloseHandle;
+import static windows.win32.foundation.WAIT_EVENT.WAIT_OBJECT_0;
+import static windows.win32.system.threading.Apis.CreateEventW;
+import static windows.win32.system.threading.Apis.SetEvent;
+import static windows.win32.system.threading.Apis.SleepAsync;
+import static windows.win32.system.threading.Apis.WaitForSingleObjectAsync;
+import static windows.win32.system.threading.Constants.INFINITE;
+
+class AsyncTest extends TestBase {
+
+    @Test
+    void waitForSingleObjectAsync_completesWhenEventIsSet() throws Exception {
+        var event = CreateEventW(errorState, NULL, 1, 0, NULL);
+        assertThat(event.address()).isNotZero();
+        try {
+            // the call state segment is accessed by a pool thread
+            var sharedErrorState = Arena.ofAuto().allocate(errorStateLayout);
+            var result = WaitForSingleObjectAsync(sharedErrorState, event, INFINITE);
+            Thread.sleep(50);
+            assertThat(result).isNotDone();
+
+            var setResult = SetEvent(errorState, event);
+            WindowsResultAssert.assertThat(setResult).isSuccessful(errorState);
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(WAIT_OBJECT_0);
+        } finally {
+            CloseHandle(errorState, event);
+        }
+    }
+
+    @Test
+    void sleepAsync_runsOnBoundedPool() {
+        var submittedBefore = BlockingCalls.metrics().submittedCalls();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i += 1)
+                executor.submit(() -> SleepAsync(20).join());
+        }
+
+        var metrics = BlockingCalls.metrics();
+        assertThat(metrics.submittedCalls() - submittedBefore).isEqualTo(100);
+        assertThat(metrics.largestPoolSize()).isLessThanOrEqualTo(metrics.maxThreads());
+    }
+}
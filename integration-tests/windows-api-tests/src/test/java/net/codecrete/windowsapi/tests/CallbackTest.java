@@ -0,0 +1,76 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.tests;
+
+import org.junit.jupiter.api.Test;
+import windows.win32.ui.windowsandmessaging.WNDENUMPROC;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static windows.win32.ui.windowsandmessaging.Apis.EnumWindows;
+
+class CallbackTest extends TestBase {
+
+    @Test
+    void sharedUpcallStub_dispatchesToRegisteredFunction() {
+        var firstWindows = new ArrayList<Long>();
+        var secondWindows = new ArrayList<Long>();
+        var firstContext = WNDENUMPROC.register((hwnd, _) -> collect(firstWindows, hwnd, 3));
+        var secondContext = WNDENUMPROC.register((hwnd, _) -> collect(secondWindows, hwnd, 2));
+        try {
+            assertThat(firstContext).isNotEqualTo(secondContext);
+            enumerateWithStandInCaller(firstContext);
+            enumerateWithStandInCaller(secondContext);
+        } finally {
+            WNDENUMPROC.unregister(firstContext);
+            WNDENUMPROC.unregister(secondContext);
+        }
+
+        assertThat(firstWindows).containsExactly(1L, 2L, 3L);
+        assertThat(secondWindows).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void sharedUpcallStub_isCreatedOnce() {
+        assertThat(WNDENUMPROC.sharedUpcallStub()).isSameAs(WNDENUMPROC.sharedUpcallStub());
+    }
+
+    @Test
+    void EnumWindows_callsRegisteredFunction() {
+        var windows = new ArrayList<Long>();
+        var context = WNDENUMPROC.register((hwnd, _) -> collect(windows, hwnd, Integer.MAX_VALUE));
+        try {
+            for (int i = 0; i < 3; i += 1) {
+                windows.clear();
+                var result = EnumWindows(errorState, WNDENUMPROC.sharedUpcallStub(), context);
+                WindowsResultAssert.assertThat(result).isSuccessful(errorState);
+                assertThat(windows).isNotEmpty();
+            }
+        } finally {
+            WNDENUMPROC.unregister(context);
+        }
+    }
+
+    // calls the shared upcall stub like a native enumeration function:
+    // once per window handle until the callback function returns 0
+    private static void enumerateWithStandInCaller(long context) {
+        var stub = WNDENUMPROC.sharedUpcallStub();
+        for (long hwnd = 1; hwnd < 100; hwnd += 1) {
+            if (WNDENUMPROC.invoke(stub, MemorySegment.ofAddress(hwnd), context) == 0)
+                break;
+        }
+    }
+
+    private static int collect(List<Long> windows, MemorySegment hwnd, int limit) {
+        windows.add(hwnd.address());
+        return windows.size() < limit ? 1 : 0;
+    }
+}
@@ -0,0 +1,37 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.tests;
+
+import org.junit.jupiter.api.Test;
+import windows.win32.ui.windowsandmessaging.MSG;
+
+import java.lang.foreign.MemorySegment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static windows.win32.system.threading.Apis.GetCurrentThreadId;
+import static windows.win32.ui.windowsandmessaging.Apis.GetMessageWOrThrow;
+import static windows.win32.ui.windowsandmessaging.Apis.PeekMessageW;
+import static windows.win32.ui.windowsandmessaging.Apis.PostThreadMessageWOrThrow;
+import static windows.win32.ui.windowsandmessaging.Constants.WM_QUIT;
+import static windows.win32.ui.windowsandmessaging.PEEK_MESSAGE_REMOVE_TYPE.PM_NOREMOVE;
+
+class MessageQueueTest extends TestBase {
+
+    @Test
+    void getMessageOrThrow_returnsZeroForQuitMessage() {
+        var message = MSG.allocate(arena);
+        // ensure the thread has a message queue
+        PeekMessageW(message, MemorySegment.NULL, 0, 0, PM_NOREMOVE);
+
+        PostThreadMessageWOrThrow(GetCurrentThreadId(), WM_QUIT, 42, 0);
+
+        var result = GetMessageWOrThrow(message, MemorySegment.NULL, 0, 0);
+        assertThat(result).isZero();
+        assertThat(MSG.message(message)).isEqualTo(WM_QUIT);
+        assertThat(MSG.wParam(message)).isEqualTo(42);
+    }
+}
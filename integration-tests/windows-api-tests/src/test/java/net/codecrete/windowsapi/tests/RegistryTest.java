@@ -7,6 +7,7 @@
 package net.codecrete.windowsapi.tests;
 
 import org.junit.jupiter.api.Test;
+import windows.win32.runtime.WindowsException;
 
 import java.lang.foreign.Arena;
 
@@ -15,8 +16,10 @@ import static java.lang.foreign.ValueLayout.ADDRESS;
 import static java.lang.foreign.ValueLayout.JAVA_INT;
 import static java.lang.foreign.ValueLayout.JAVA_LONG;
 import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static windows.win32.system.registry.Apis.RegCloseKey;
 import static windows.win32.system.registry.Apis.RegOpenKeyExW;
+import static windows.win32.system.registry.Apis.RegOpenKeyExWOrThrow;
 import static windows.win32.system.registry.Apis.RegQueryValueExW;
 import static windows.win32.system.registry.Constants.HKEY_LOCAL_MACHINE;
 import static windows.win32.system.registry.REG_SAM_FLAGS.KEY_QUERY_VALUE;
@@ -59,4 +62,17 @@ class RegistryTest {
             WindowsErrorAssert.assertThat(errorCode).isSuccessful();
         }
     }
+
+    @Test
+    void openingMissingKey_throws() {
+        try (var arena = Arena.ofConfined()) {
+            var keyHandleHolder = arena.allocate(ADDRESS);
+            var subKey = arena.allocateFrom("SOFTWARE\\Codecrete\\MissingKey", UTF_16LE);
+            assertThatThrownBy(() -> RegOpenKeyExWOrThrow(HKEY_LOCAL_MACHINE, subKey, 0, KEY_QUERY_VALUE, keyHandleHolder))
+                    .isInstanceOf(WindowsException.class)
+                    .hasMessageContaining("RegOpenKeyExW")
+                    .extracting(ex -> ((WindowsException) ex).errorCode())
+                    .isEqualTo(2); // ERROR_FILE_NOT_FOUND
+        }
+    }
 }
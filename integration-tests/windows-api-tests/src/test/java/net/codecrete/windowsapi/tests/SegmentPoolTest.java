@@ -0,0 +1,63 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.tests;
+
+import org.junit.jupiter.api.Test;
+import windows.win32.runtime.SegmentPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentPoolTest {
+    @Test
+    void largeSegment_isReused() {
+        try (var pool = new SegmentPool()) {
+            var first = pool.acquire(1_000_000, 8);
+            pool.release(first);
+
+            for (int i = 0; i < 1000; i += 1) {
+                var segment = pool.acquire(1_000_000, 8);
+                assertThat(segment.address()).isEqualTo(first.address());
+                pool.release(segment);
+            }
+        }
+    }
+
+    @Test
+    void overAlignedSegment_isReused() {
+        try (var pool = new SegmentPool()) {
+            var first = pool.acquire(100, 4096);
+            assertThat(first.address() % 4096).isZero();
+            pool.release(first);
+
+            for (int i = 0; i < 1000; i += 1) {
+                var segment = pool.acquire(100, 4096);
+                assertThat(segment.address()).isEqualTo(first.address());
+                pool.release(segment);
+            }
+        }
+    }
+
+    @Test
+    void overAlignedSegment_skipsUnalignedFreeSegments() {
+        try (var pool = new SegmentPool()) {
+            var aligned = pool.acquire(100, 4096);
+            var other = pool.acquire(100, 8);
+            pool.release(aligned);
+            pool.release(other);
+
+            assertThat(pool.acquire(100, 4096).address() % 4096).isZero();
+        }
+    }
+
+    @Test
+    void invalidAlignment_isRejected() {
+        try (var pool = new SegmentPool()) {
+            assertThatThrownBy(() -> pool.acquire(16, 3)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.tests;
+
+import org.junit.jupiter.api.Test;
+import windows.win32.runtime.Bindings;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+class WarmUpTest {
+
+    @Test
+    void warmUp_initializesAllBindings() {
+        assertThatNoException().isThrownBy(Bindings::warmUp);
+    }
+
+    @Test
+    void warmUpInParallel_initializesAllBindings() {
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            assertThat(Bindings.warmUp(executor)).succeedsWithin(Duration.ofSeconds(30));
+        }
+    }
+}
@@ -6,8 +6,11 @@
 //
 package net.codecrete.windowsapi;
 
+import net.codecrete.windowsapi.events.AsyncEventDispatcher;
 import net.codecrete.windowsapi.events.Event;
 import net.codecrete.windowsapi.events.EventListener;
+import net.codecrete.windowsapi.events.GenerationPhase;
+import net.codecrete.windowsapi.metadata.Metadata;
 import net.codecrete.windowsapi.winmd.MetadataBuilder;
 import net.codecrete.windowsapi.writer.CodeWriter;
 import net.codecrete.windowsapi.writer.GenerationException;
@@ -15,13 +18,16 @@ import net.codecrete.windowsapi.writer.Scope;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.nio.file.FileVisitResult;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * A single run to generate Java source code for accessing the Windows API.
@@ -30,6 +36,13 @@ import java.util.Set;
  * and call {@link #generateCode()}.
  * </p>
  * <p>
+ * The names of structs, functions, enumerations etc. can be patterns with the wildcard characters
+ * {@code *} (any sequence of characters) and {@code ?} (a single character), e.g., {@code Reg*W}.
+ * If a pattern contains a period, it is matched against the name qualified with the namespace,
+ * e.g., {@code Windows.Win32.System.Registry.*}. Patterns are expanded when the code is generated.
+ * A pattern not matching any name is an invalid argument.
+ * </p>
+ * <p>
  * The generated source code uses the Java Foreign Function and Memory API (FFM)
  * and requires Java 23 or higher.
  * </p>
@@ -40,10 +53,21 @@ import java.util.Set;
 public class WindowsApiRun {
     private Path outputDirectory;
     private String basePackage = "";
+    private boolean structRecords;
+    private boolean orThrowVariants;
+    private boolean longHandles;
+    private boolean callEvents;
+    private boolean callCounters;
+    private boolean aotTraining;
+    private boolean pooledAllocation;
+    private boolean prunePointerOnlyStructs;
+    private Path usageClassesDirectory;
+    private boolean asyncEvents;
     private EventListener eventListener = new NullEventListener();
 
     private Set<String> structs = new HashSet<>();
     private Set<String> functions = new HashSet<>();
+    private Set<String> asyncFunctions = new HashSet<>();
     private Set<String> enumerations = new HashSet<>();
     private Set<String> callbackFunctions = new HashSet<>();
     private Set<String> comInterfaces = new HashSet<>();
@@ -111,6 +135,287 @@ public class WindowsApiRun {
         this.basePackage = basePackage;
     }
 
+    /**
+     * Indicates if a Java record is generated for each struct.
+     * <p>
+     * The record is a snapshot of the struct's field values. It is generated together with codecs
+     * for reading and writing a struct (and an array of structs) in a single call.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if struct records are generated
+     */
+    public boolean isStructRecords() {
+        return structRecords;
+    }
+
+    /**
+     * Sets if a Java record is generated for each struct.
+     * <p>
+     * The record is a snapshot of the struct's field values. It is generated together with codecs
+     * for reading and writing a struct (and an array of structs) in a single call.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @param structRecords {@code true} to generate struct records
+     */
+    public void setStructRecords(boolean structRecords) {
+        this.structRecords = structRecords;
+    }
+
+    /**
+     * Indicates if variants throwing an exception on failure are generated.
+     * <p>
+     * The variants have the suffix {@code OrThrow} and are generated for functions and COM interface methods
+     * returning {@code HRESULT}, {@code NTSTATUS} or {@code WIN32_ERROR}, and for functions returning
+     * {@code BOOL} and setting the last error. The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if the variants are generated
+     */
+    public boolean isOrThrowVariants() {
+        return orThrowVariants;
+    }
+
+    /**
+     * Sets if variants throwing an exception on failure are generated.
+     * <p>
+     * The variants have the suffix {@code OrThrow} and are generated for functions and COM interface methods
+     * returning {@code HRESULT}, {@code NTSTATUS} or {@code WIN32_ERROR}, and for functions returning
+     * {@code BOOL} and setting the last error. The default is {@code false}.
+     * </p>
+     *
+     * @param orThrowVariants {@code true} to generate the variants
+     */
+    public void setOrThrowVariants(boolean orThrowVariants) {
+        this.orThrowVariants = orThrowVariants;
+    }
+
+    /**
+     * Indicates if handle types are mapped to {@code long}.
+     * <p>
+     * If enabled, handle types such as {@code HANDLE}, {@code HWND} or {@code HKEY} are represented as
+     * {@code long} instead of {@code MemorySegment} in function signatures, struct accessors and constants.
+     * This avoids the allocation of a memory segment for each returned handle.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if handle types are mapped to {@code long}
+     */
+    public boolean isLongHandles() {
+        return longHandles;
+    }
+
+    /**
+     * Sets if handle types are mapped to {@code long}.
+     * <p>
+     * If enabled, handle types such as {@code HANDLE}, {@code HWND} or {@code HKEY} are represented as
+     * {@code long} instead of {@code MemorySegment} in function signatures, struct accessors and constants.
+     * This avoids the allocation of a memory segment for each returned handle.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @param longHandles {@code true} to map handle types to {@code long}
+     */
+    public void setLongHandles(boolean longHandles) {
+        this.longHandles = longHandles;
+    }
+
+    /**
+     * Indicates if a JFR event is recorded for each call of a function or COM interface method.
+     * <p>
+     * The event {@code NativeCallEvent} contains the function name, the DLL, the duration and the
+     * captured last error or the returned error code. It is disabled by default and must be enabled
+     * in the JFR recording. The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if call events are recorded
+     */
+    public boolean isCallEvents() {
+        return callEvents;
+    }
+
+    /**
+     * Sets if a JFR event is recorded for each call of a function or COM interface method.
+     * <p>
+     * The event {@code NativeCallEvent} contains the function name, the DLL, the duration and the
+     * captured last error or the returned error code. It is disabled by default and must be enabled
+     * in the JFR recording. The default is {@code false}.
+     * </p>
+     *
+     * @param callEvents {@code true} to record call events
+     */
+    public void setCallEvents(boolean callEvents) {
+        this.callEvents = callEvents;
+    }
+
+    /**
+     * Indicates if the calls of each function and COM interface method are counted.
+     * <p>
+     * The counters can be queried with the runtime class {@code CallCounters}.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if calls are counted
+     */
+    public boolean isCallCounters() {
+        return callCounters;
+    }
+
+    /**
+     * Sets if the calls of each function and COM interface method are counted.
+     * <p>
+     * The counters can be queried with the runtime class {@code CallCounters}.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @param callCounters {@code true} to count calls
+     */
+    public void setCallCounters(boolean callCounters) {
+        this.callCounters = callCounters;
+    }
+
+    /**
+     * Indicates if a training entry point for creating an AOT cache is generated.
+     * <p>
+     * The entry point is the runtime class {@code AotTraining}.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if the training entry point is generated
+     */
+    public boolean isAotTraining() {
+        return aotTraining;
+    }
+
+    /**
+     * Sets if a training entry point for creating an AOT cache is generated.
+     * <p>
+     * The entry point is the runtime class {@code AotTraining}.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @param aotTraining {@code true} to generate the training entry point
+     */
+    public void setAotTraining(boolean aotTraining) {
+        this.aotTraining = aotTraining;
+    }
+
+    /**
+     * Indicates if allocation methods using a slab allocator or a segment pool are generated for structs.
+     * <p>
+     * The methods are {@code allocateUninitialized(SlabAllocator)} and {@code acquire(SegmentPool)}.
+     * They return memory that is not zeroed.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if the allocation methods are generated
+     */
+    public boolean isPooledAllocation() {
+        return pooledAllocation;
+    }
+
+    /**
+     * Sets if allocation methods using a slab allocator or a segment pool are generated for structs.
+     * <p>
+     * The methods are {@code allocateUninitialized(SlabAllocator)} and {@code acquire(SegmentPool)}.
+     * They return memory that is not zeroed.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @param pooledAllocation {@code true} to generate the allocation methods
+     */
+    public void setPooledAllocation(boolean pooledAllocation) {
+        this.pooledAllocation = pooledAllocation;
+    }
+
+    /**
+     * Indicates if structs only referenced through pointers are excluded from the generated code.
+     * <p>
+     * If enabled, code for a struct is only generated if the struct has been specified explicitly
+     * or if it is embedded by value in another generated type, parameter or return value.
+     * Pointers to excluded structs use an address layout of unknown size.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if the structs are excluded
+     */
+    public boolean isPrunePointerOnlyStructs() {
+        return prunePointerOnlyStructs;
+    }
+
+    /**
+     * Sets if structs only referenced through pointers are excluded from the generated code.
+     * <p>
+     * If enabled, code for a struct is only generated if the struct has been specified explicitly
+     * or if it is embedded by value in another generated type, parameter or return value.
+     * Pointers to excluded structs use an address layout of unknown size.
+     * The default is {@code false}.
+     * </p>
+     *
+     * @param prunePointerOnlyStructs {@code true} to exclude the structs
+     */
+    public void setPrunePointerOnlyStructs(boolean prunePointerOnlyStructs) {
+        this.prunePointerOnlyStructs = prunePointerOnlyStructs;
+    }
+
+    /**
+     * Gets the directory with the compiled classes used to reduce the generated code to the referenced elements.
+     *
+     * @return the directory, or {@code null} if the generated code is not reduced
+     */
+    public Path getUsageClassesDirectory() {
+        return usageClassesDirectory;
+    }
+
+    /**
+     * Sets the directory with the compiled classes used to reduce the generated code to the referenced elements.
+     * <p>
+     * If set, the class files in the directory are scanned for references to the generated code.
+     * Only the referenced functions, structs, COM interfaces and callback functions are retained,
+     * plus their dependencies. Enumerations and constants are compiled into the referencing classes,
+     * so the specified enumerations and constants are always retained.
+     * </p>
+     * <p>
+     * The scan relies on a previous compilation with the complete generated code. If the directory
+     * does not exist or does not contain any class files, the generated code is not reduced.
+     * The default is {@code null}, i.e., the generated code is not reduced.
+     * </p>
+     *
+     * @param usageClassesDirectory the directory, or {@code null}
+     */
+    public void setUsageClassesDirectory(Path usageClassesDirectory) {
+        this.usageClassesDirectory = usageClassesDirectory;
+    }
+
+    /**
+     * Indicates if events are delivered asynchronously.
+     * <p>
+     * If enabled, the events are delivered to the event listener on a background thread, in batches
+     * (see {@link net.codecrete.windowsapi.events.BatchedEventListener}). All events have been delivered
+     * when the code generation returns. The default is {@code false}.
+     * </p>
+     *
+     * @return {@code true} if events are delivered asynchronously
+     */
+    public boolean isAsyncEvents() {
+        return asyncEvents;
+    }
+
+    /**
+     * Sets if events are delivered asynchronously.
+     * <p>
+     * If enabled, the events are delivered to the event listener on a background thread, in batches
+     * (see {@link net.codecrete.windowsapi.events.BatchedEventListener}). All events have been delivered
+     * when the code generation returns. The default is {@code false}.
+     * </p>
+     *
+     * @param asyncEvents {@code true} to deliver events asynchronously
+     */
+    public void setAsyncEvents(boolean asyncEvents) {
+        this.asyncEvents = asyncEvents;
+    }
+
     /**
      * Gets the names of the C struct and union types to generate.
      *
@@ -151,6 +456,30 @@ public class WindowsApiRun {
         this.functions = functions;
     }
 
+    /**
+     * Gets the names of the Windows API functions for which an async variant is generated.
+     *
+     * @return the function names
+     */
+    public Set<String> getAsyncFunctions() {
+        return asyncFunctions;
+    }
+
+    /**
+     * Sets the names of the Windows API functions for which an async variant is generated.
+     * <p>
+     * The async variants have the suffix {@code Async} and return a {@code CompletableFuture}.
+     * They run the function on a bounded pool of platform threads so that blocking functions
+     * such as {@code WaitForSingleObject} do not pin the carrier thread of a virtual thread.
+     * The functions are generated even if they are not included in the regular functions.
+     * </p>
+     *
+     * @param asyncFunctions the function names
+     */
+    public void setAsyncFunctions(Set<String> asyncFunctions) {
+        this.asyncFunctions = asyncFunctions;
+    }
+
     /**
      * Gets the names of the enumerations to generate.
      *
@@ -268,12 +597,49 @@ public class WindowsApiRun {
         if (!isAnyWork())
             return;
 
-        var metadata = MetadataBuilder.load();
+        if (!asyncEvents) {
+            generate(isDryRun, eventListener);
+            return;
+        }
+
+        try (var dispatcher = new AsyncEventDispatcher(eventListener)) {
+            generate(isDryRun, dispatcher);
+        }
+    }
+
+    private void generate(boolean isDryRun, EventListener listener) {
+        var startTime = System.nanoTime();
+        var metadata = runPhase(GenerationPhase.METADATA_LOADING, listener, MetadataBuilder::load);
+        var scope = runPhase(GenerationPhase.SCOPE_RESOLUTION, listener, () -> resolveScope(metadata, listener));
+
+        var writer = new CodeWriter(metadata, outputDirectory, listener);
+        writer.setDryRun(isDryRun);
+        writer.setBasePackage(basePackage);
+        writer.setStructRecords(structRecords);
+        writer.setOrThrowVariants(orThrowVariants);
+        writer.setLongHandles(longHandles);
+        writer.setAsyncFunctions(scope.asyncFunctions());
+        writer.setCallEvents(callEvents);
+        writer.setCallCounters(callCounters);
+        writer.setAotTraining(aotTraining);
+        writer.setPooledAllocation(pooledAllocation);
+        runPhase(GenerationPhase.CODE_WRITING, listener, () -> {
+            writer.write(scope);
+            return writer;
+        });
+
+        listener.onEvent(new Event.GenerationSummary(writer.fileCount(), writer.bytesWritten(),
+                scope.getTransitiveScopeSizes(), writer.writerDurations(),
+                Duration.ofNanos(System.nanoTime() - startTime)));
+    }
 
-        var scope = new Scope(metadata, eventListener);
+    private Scope resolveScope(Metadata metadata, EventListener listener) {
+        var scope = new Scope(metadata, listener);
+        scope.setPrunePointerOnlyStructs(prunePointerOnlyStructs);
         scope.addStructs(structs);
         scope.addEnums(enumerations);
         scope.addFunctions(functions);
+        scope.addAsyncFunctions(asyncFunctions);
         scope.addCallbackFunctions(callbackFunctions);
         scope.addComInterfaces(comInterfaces);
         scope.addConstants(constants);
@@ -282,15 +648,40 @@ public class WindowsApiRun {
             throw new WindowsApiException("Invalid arguments specified for Windows API code generation");
 
         scope.buildTransitiveScope();
+        if (usageClassesDirectory != null && Files.isDirectory(usageClassesDirectory))
+            scope.retainReferencedElements(usageClassesDirectory, basePackage);
+        return scope;
+    }
 
-        var writer = new CodeWriter(metadata, outputDirectory, eventListener);
-        writer.setDryRun(isDryRun);
-        writer.setBasePackage(basePackage);
-        writer.write(scope);
+    private static <T> T runPhase(GenerationPhase phase, EventListener listener, Supplier<T> action) {
+        listener.onEvent(new Event.PhaseStarted(phase));
+        var startAllocatedBytes = currentThreadAllocatedBytes();
+        var startTime = System.nanoTime();
+
+        var result = action.get();
+
+        var duration = Duration.ofNanos(System.nanoTime() - startTime);
+        var endAllocatedBytes = currentThreadAllocatedBytes();
+        var allocatedBytes = startAllocatedBytes >= 0 && endAllocatedBytes >= 0
+                ? endAllocatedBytes - startAllocatedBytes : -1;
+        listener.onEvent(new Event.PhaseCompleted(phase, duration, allocatedBytes));
+        return result;
+    }
+
+    /**
+     * Gets the number of bytes allocated on the heap by the current thread.
+     *
+     * @return the number of bytes, or -1 if the JVM cannot measure it
+     */
+    private static long currentThreadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadBean
+                && threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled())
+            return threadBean.getCurrentThreadAllocatedBytes();
+        return -1;
     }
 
     private boolean isAnyWork() {
-        return !functions.isEmpty() || !structs.isEmpty() || !constants.isEmpty()
+        return !functions.isEmpty() || !asyncFunctions.isEmpty() || !structs.isEmpty() || !constants.isEmpty()
                 || !enumerations.isEmpty() || !callbackFunctions.isEmpty() || !comInterfaces.isEmpty();
     }
 
@@ -0,0 +1,146 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Event listener delivering events to another listener on a background thread.
+ * <p>
+ * The events are queued and delivered in batches, in the order they have happened. If the target
+ * listener is a {@link BatchedEventListener}, each batch is delivered in a single call. Otherwise,
+ * the events are delivered one by one. So the code generation does not wait for slow listeners,
+ * e.g., listeners writing to a build log.
+ * </p>
+ * <p>
+ * Call {@link #flush()} to wait until all queued events have been delivered, and {@link #close()}
+ * to deliver the remaining events and stop the background thread. If the target listener throws
+ * an exception, the first exception is rethrown by {@link #flush()} and {@link #close()}.
+ * </p>
+ */
+public class AsyncEventDispatcher implements EventListener, AutoCloseable {
+    private final EventListener listener;
+    private final Thread thread;
+    private final Object lock = new Object();
+    private List<Event> pendingEvents = new ArrayList<>();
+    private boolean isDelivering;
+    private boolean isClosed;
+    private RuntimeException failure;
+
+    /**
+     * Creates a new instance and starts the background thread.
+     *
+     * @param listener the listener to deliver the events to
+     */
+    public AsyncEventDispatcher(EventListener listener) {
+        this.listener = listener;
+        thread = Thread.ofPlatform().name("windows-api-events").daemon().start(this::deliverEvents);
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        synchronized (lock) {
+            if (isClosed)
+                throw new IllegalStateException("Event dispatcher has been closed");
+            pendingEvents.add(event);
+            if (pendingEvents.size() == 1)
+                lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until all queued events have been delivered.
+     */
+    public void flush() {
+        synchronized (lock) {
+            while (!pendingEvents.isEmpty() || isDelivering) {
+                if (!await())
+                    return;
+            }
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * Delivers the remaining events and stops the background thread.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            isClosed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        rethrowFailure();
+    }
+
+    private void deliverEvents() {
+        while (true) {
+            List<Event> batch;
+            synchronized (lock) {
+                while (pendingEvents.isEmpty() && !isClosed) {
+                    if (!await())
+                        return;
+                }
+                if (pendingEvents.isEmpty())
+                    return;
+
+                batch = pendingEvents;
+                pendingEvents = new ArrayList<>();
+                isDelivering = true;
+            }
+
+            try {
+                deliver(Collections.unmodifiableList(batch));
+            } catch (RuntimeException exception) {
+                synchronized (lock) {
+                    if (failure == null)
+                        failure = exception;
+                }
+            } finally {
+                synchronized (lock) {
+                    isDelivering = false;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void deliver(List<Event> batch) {
+        if (listener instanceof BatchedEventListener batchedListener) {
+            batchedListener.onEvents(batch);
+        } else {
+            for (var event : batch)
+                listener.onEvent(event);
+        }
+    }
+
+    @SuppressWarnings("java:S2274")
+    private boolean await() {
+        try {
+            lock.wait();
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void rethrowFailure() {
+        synchronized (lock) {
+            if (failure != null)
+                throw failure;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.events;
+
+import java.util.List;
+
+/**
+ * Listener for events delivered in batches.
+ * <p>
+ * If events are delivered by an {@link AsyncEventDispatcher}, a batched listener is notified
+ * about all events that have accumulated since the last notification in a single call. This
+ * allows the listener to collapse frequent events, such as the events for generated files.
+ * </p>
+ */
+public interface BatchedEventListener extends EventListener {
+    /**
+     * Called when one or more events have happened.
+     * <p>
+     * The events are in the order they have happened.
+     * </p>
+     *
+     * @param events the events
+     */
+    void onEvents(List<Event> events);
+
+    /**
+     * Called when an event has happened.
+     * <p>
+     * The default implementation delivers the event as a batch with a single event.
+     * </p>
+     *
+     * @param event the event
+     */
+    @Override
+    default void onEvent(Event event) {
+        onEvents(List.of(event));
+    }
+}
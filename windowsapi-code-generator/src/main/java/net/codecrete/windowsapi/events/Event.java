@@ -7,6 +7,9 @@
 package net.codecrete.windowsapi.events;
 
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Describes an event that has happened during the source code generation.
@@ -51,4 +54,110 @@ public sealed interface Event {
      */
     record InvalidArgument(String argument, String value, String reason) implements Event {
     }
+
+    /**
+     * Event notifying that a name pattern passed to the code generation has been resolved.
+     * <p>
+     * Patterns contain wildcard characters, e.g., {@code Reg*W}. They are resolved against the names
+     * of the Windows API elements of the argument's kind.
+     * </p>
+     *
+     * @param argument the argument name
+     * @param pattern  the pattern
+     * @param count    the number of names matching the pattern
+     */
+    record PatternResolved(String argument, String pattern, int count) implements Event {
+    }
+
+    /**
+     * Event notifying that compiled classes have been scanned for references to the generated code.
+     *
+     * @param directory      the directory containing the compiled classes
+     * @param classFileCount the number of scanned class files (excluding the generated classes)
+     */
+    record ClassFilesScanned(Path directory, int classFileCount) implements Event {
+    }
+
+    /**
+     * Event notifying that a phase of the code generation has started.
+     *
+     * @param phase the phase
+     */
+    record PhaseStarted(GenerationPhase phase) implements Event {
+    }
+
+    /**
+     * Event notifying that a phase of the code generation has completed.
+     * <p>
+     * The allocated bytes are the bytes allocated on the heap by the generating thread
+     * during the phase. They are -1 if the JVM cannot measure them.
+     * </p>
+     *
+     * @param phase          the phase
+     * @param duration       the wall time of the phase
+     * @param allocatedBytes the allocated bytes
+     */
+    record PhaseCompleted(GenerationPhase phase, Duration duration, long allocatedBytes) implements Event {
+    }
+
+    /**
+     * Event summarizing the completed code generation.
+     * <p>
+     * The scope sizes are the number of structs, enumerations, callback functions, COM interfaces,
+     * functions and constants in the transitive scope, indexed by the name of the configuration
+     * argument. The writer durations are the time spent in each code writer, indexed by the same
+     * names (and {@code runtime} for the runtime support classes).
+     * </p>
+     * <p>
+     * For a dry run, the file count and the bytes written are the numbers that would have been written.
+     * </p>
+     *
+     * @param fileCount       the number of generated Java files
+     * @param bytesWritten    the number of bytes written (UTF-8 encoded)
+     * @param scopeSizes      the transitive scope size per kind
+     * @param writerDurations the time spent per code writer
+     * @param duration        the wall time of the entire code generation
+     */
+    record GenerationSummary(int fileCount, long bytesWritten, Map<String, Integer> scopeSizes,
+                             Map<String, Duration> writerDurations, Duration duration) implements Event {
+
+        /**
+         * Formats the summary as a single line.
+         *
+         * @return the formatted summary
+         */
+        public String toSummaryLine() {
+            return String.format("Generated %d Java files (%d KB) in %d ms for %s",
+                    fileCount, (bytesWritten + 1023) / 1024, duration.toMillis(),
+                    scopeSizes.entrySet().stream()
+                            .map(entry -> entry.getValue() + " " + entry.getKey())
+                            .collect(Collectors.joining(", ")));
+        }
+
+        /**
+         * Formats the summary as a JSON object.
+         * <p>
+         * Durations are given in milliseconds.
+         * </p>
+         *
+         * @return the JSON text
+         */
+        public String toJson() {
+            return String.format("""
+                            {
+                              "fileCount": %d,
+                              "bytesWritten": %d,
+                              "durationMillis": %d,
+                              "scopeSizes": {%s},
+                              "writerDurationMillis": {%s}
+                            }
+                            """, fileCount, bytesWritten, duration.toMillis(),
+                    scopeSizes.entrySet().stream()
+                            .map(entry -> String.format("\"%s\": %d", entry.getKey(), entry.getValue()))
+                            .collect(Collectors.joining(", ")),
+                    writerDurations.entrySet().stream()
+                            .map(entry -> String.format("\"%s\": %d", entry.getKey(), entry.getValue().toMillis()))
+                            .collect(Collectors.joining(", ")));
+        }
+    }
 }
@@ -0,0 +1,25 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.events;
+
+/**
+ * Phase of the source code generation.
+ */
+public enum GenerationPhase {
+    /**
+     * Loading the Windows API metadata.
+     */
+    METADATA_LOADING,
+    /**
+     * Resolving the requested names and building the transitive scope.
+     */
+    SCOPE_RESOLUTION,
+    /**
+     * Writing the Java source files.
+     */
+    CODE_WRITING
+}
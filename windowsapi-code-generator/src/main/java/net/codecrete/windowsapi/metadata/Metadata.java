@@ -8,6 +8,8 @@ package net.codecrete.windowsapi.metadata;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +34,10 @@ public class Metadata {
     private final Map<PrimitiveKind, Primitive> primitivesByKind = buildPrimitiveTypes(unnamedNamespace);
     private final Map<Type, Pointer> pointersByType = new HashMap<>();
     private final Map<Integer, TypeAlias> aliasesByTypeDefIndex = new HashMap<>();
+    private TypeDependencyGraph dependencyGraph;
+    private final Map<NameKind, NameIndex> nameIndexes = new EnumMap<>(NameKind.class);
+    private final Map<NameKind, SortedNameIndex> sortedNameIndexes = new EnumMap<>(NameKind.class);
+    private Map<String, List<EnumType>> enumsByMemberName;
 
     /**
      * Creates a new instance.
@@ -89,6 +95,25 @@ public class Metadata {
         return typesByDefinitionIndex.values().stream();
     }
 
+    /**
+     * Gets the dependency graph of all types.
+     * <p>
+     * The graph is built on first use and cached until types are added or removed.
+     * </p>
+     *
+     * @return the dependency graph
+     */
+    public synchronized TypeDependencyGraph dependencyGraph() {
+        if (dependencyGraph == null)
+            dependencyGraph = new TypeDependencyGraph(Stream.of(
+                    types(),
+                    methods().flatMap(Method::referencedTypes),
+                    namespaces.values().stream().flatMap(namespace -> namespace.constants().values().stream())
+                            .map(ConstantValue::type)
+            ).flatMap(Function.identity()));
+        return dependencyGraph;
+    }
+
     /**
      * Gets the type with the specified name.
      * <p>
@@ -142,6 +167,7 @@ public class Metadata {
         assert type.typeDefIndex() != 0;
         assert !typesByDefinitionIndex.containsKey(type.typeDefIndex());
         typesByDefinitionIndex.put(type.typeDefIndex(), type);
+        invalidateCaches();
 
         if (type instanceof Struct struct && struct.enclosingType() != null) {
             struct.enclosingType().addNestedType(type);
@@ -162,6 +188,7 @@ public class Metadata {
         assert typesByDefinitionIndex.containsKey(type.typeDefIndex());
         var removed = typesByDefinitionIndex.remove(type.typeDefIndex());
         assert removed != null;
+        invalidateCaches();
 
         assert !(type instanceof Struct struct && struct.enclosingType() != null);
 
@@ -189,6 +216,7 @@ public class Metadata {
         assert method.methodDefIndex() != 0;
         assert !methodsByMethodDefIndex.containsKey(method.methodDefIndex());
         methodsByMethodDefIndex.put(method.methodDefIndex(), method);
+        invalidateCaches();
     }
 
     /**
@@ -258,13 +286,97 @@ public class Metadata {
 
     /**
      * Finds enumerations containing a member with the given name.
+     * <p>
+     * The lookup uses an index built on first use.
+     * </p>
      *
      * @param memberName the member name
      * @return the enumerations
      */
-    public List<EnumType> findEnumWithMember(String memberName) {
-        return types().filter(type -> type instanceof EnumType enumType && enumType.getMember(memberName) != null)
-                .map(EnumType.class::cast).toList();
+    public synchronized List<EnumType> findEnumWithMember(String memberName) {
+        if (enumsByMemberName == null) {
+            enumsByMemberName = new HashMap<>();
+            types().filter(EnumType.class::isInstance).map(EnumType.class::cast)
+                    .sorted(Comparator.comparingInt(Type::typeDefIndex))
+                    .forEach(enumType -> enumType.members().forEach(member ->
+                            enumsByMemberName.computeIfAbsent(member.name(), name -> new ArrayList<>()).add(enumType)));
+        }
+        return enumsByMemberName.getOrDefault(memberName, List.of());
+    }
+
+    /**
+     * Finds the names most similar to the given (misspelled) name.
+     * <p>
+     * The names are compared to the native names of all elements of the specified kind, ignoring case.
+     * Only names within a small edit distance are returned, the closest names first.
+     * The lookup uses a trigram index built on first use.
+     * </p>
+     *
+     * @param kind     the kind of element
+     * @param name     the name
+     * @param maxCount the maximum number of names to return
+     * @return the similar names
+     */
+    public synchronized List<String> findSimilarNames(NameKind kind, String name, int maxCount) {
+        return nameIndexes.computeIfAbsent(kind, k -> new NameIndex(qualifiedNames(k)
+                        .map(qualifiedName -> qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1))))
+                .findSimilar(name, maxCount);
+    }
+
+    /**
+     * Checks if the given name is a pattern.
+     * <p>
+     * A pattern contains at least one wildcard character: {@code *} matches any sequence
+     * of characters, {@code ?} matches a single character.
+     * </p>
+     *
+     * @param name the name
+     * @return {@code true} if it is a pattern, {@code false} otherwise
+     */
+    public static boolean isPattern(String name) {
+        return SortedNameIndex.isPattern(name);
+    }
+
+    /**
+     * Finds the names matching the given pattern.
+     * <p>
+     * If the pattern contains a period, it is matched against the names qualified with the namespace,
+     * e.g., {@code Windows.Win32.System.Registry.*}. Otherwise, it is matched against the names
+     * without namespace, e.g., {@code Reg*W}. The comparison is case-sensitive.
+     * The lookup uses a sorted index built on first use.
+     * </p>
+     *
+     * @param kind    the kind of element
+     * @param pattern the pattern
+     * @return the matching names (without namespace), sorted
+     */
+    public synchronized List<String> findMatchingNames(NameKind kind, String pattern) {
+        return sortedNameIndexes.computeIfAbsent(kind, k -> new SortedNameIndex(qualifiedNames(k)))
+                .findMatching(pattern);
+    }
+
+    private Stream<String> qualifiedNames(NameKind kind) {
+        return switch (kind) {
+            case STRUCT -> types()
+                    .filter(type -> type instanceof Struct struct && struct.enclosingType() == null)
+                    .map(Metadata::qualifiedName);
+            case ENUMERATION -> types().filter(EnumType.class::isInstance).map(Metadata::qualifiedName);
+            case CALLBACK_FUNCTION -> types().filter(Delegate.class::isInstance).map(Metadata::qualifiedName);
+            case COM_INTERFACE -> types().filter(ComInterface.class::isInstance).map(Metadata::qualifiedName);
+            case FUNCTION -> methods().map(method -> method.namespace().name() + "." + method.nativeName());
+            case CONSTANT -> constants().map(constant -> constant.namespace().name() + "." + constant.name());
+        };
+    }
+
+    private static String qualifiedName(Type type) {
+        return type.namespace().name() + "." + type.nativeName();
+    }
+
+    private synchronized void invalidateCaches() {
+        dependencyGraph = null;
+        nameIndexes.clear();
+        sortedNameIndexes.clear();
+        enumsByMemberName = null;
     }
 
     /**
@@ -111,7 +111,7 @@ public class Method {
         returnType = typeReplacer.apply(returnType);
         var newParameters = new Parameter[parameters.length];
         for (int i = 0; i < newParameters.length; i++)
-            newParameters[i] = new Parameter(parameters[i].name(), typeReplacer.apply(parameters[i].type()));
+            newParameters[i] = parameters[i].withType(typeReplacer.apply(parameters[i].type()));
         parameters = newParameters;
     }
 
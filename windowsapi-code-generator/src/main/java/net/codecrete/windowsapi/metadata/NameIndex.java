@@ -0,0 +1,285 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Trigram index for finding names similar to a misspelled name.
+ * <p>
+ * Names are compared case-insensitively. The index maps each trigram (three consecutive characters,
+ * including two padding characters at the start and one at the end) to the names containing it.
+ * </p>
+ * <p>
+ * A lookup counts the trigrams shared with the names of similar length. The counts are only kept
+ * for the names found in the trigram lists of the misspelled name. As a single edit changes
+ * at most three trigrams, a name within edit distance <i>d</i> shares all but 3<i>d</i> trigrams with
+ * the misspelled name. Names sharing fewer trigrams are skipped. The remaining names with the most
+ * shared trigrams are the candidates, and they are ranked by their edit distance. The number of
+ * candidates is limited, so the cost of a lookup does not depend on the cost of computing the
+ * edit distance for all names.
+ * </p>
+ * <p>
+ * The trigrams are stored as sorted arrays: {@code trigrams} contains the distinct trigrams, and the
+ * names containing {@code trigrams[i]} are {@code nameIndexes[offsets[i]]} to
+ * {@code nameIndexes[offsets[i + 1] - 1]}.
+ * </p>
+ * <p>
+ * The index is immutable and can be shared by several threads.
+ * </p>
+ */
+final class NameIndex {
+    private static final int MAX_CANDIDATES = 64;
+    private static final char PADDING = ' ';
+
+    private final String[] names;
+    private final String[] upperCaseNames;
+    private final int[] trigrams;
+    private final int[] offsets;
+    private final int[] nameIndexes;
+
+    /**
+     * Creates a new index for the given names.
+     * <p>
+     * Duplicate names are ignored.
+     * </p>
+     *
+     * @param names the names
+     */
+    NameIndex(Stream<String> names) {
+        this.names = names.distinct().sorted().toArray(String[]::new);
+        upperCaseNames = Arrays.stream(this.names).map(name -> name.toUpperCase(Locale.ROOT)).toArray(String[]::new);
+
+        // collect (trigram, name index) pairs and sort them by trigram
+        var pairCount = 0;
+        for (var name : upperCaseNames)
+            pairCount += name.length() + 1;
+        var pairs = new long[pairCount];
+        var pairIndex = 0;
+        for (int i = 0; i < upperCaseNames.length; i += 1) {
+            for (var trigram : trigrams(upperCaseNames[i])) {
+                pairs[pairIndex] = ((long) trigram << 32) | i;
+                pairIndex += 1;
+            }
+        }
+        Arrays.sort(pairs);
+
+        // build the sorted arrays (without duplicate pairs)
+        var distinctTrigrams = new int[pairCount];
+        var trigramOffsets = new int[pairCount + 1];
+        var indexes = new int[pairCount];
+        var trigramCount = 0;
+        var indexCount = 0;
+        for (int i = 0; i < pairCount; i += 1) {
+            if (i > 0 && pairs[i] == pairs[i - 1])
+                continue;
+            var trigram = (int) (pairs[i] >>> 32);
+            if (trigramCount == 0 || distinctTrigrams[trigramCount - 1] != trigram) {
+                distinctTrigrams[trigramCount] = trigram;
+                trigramOffsets[trigramCount] = indexCount;
+                trigramCount += 1;
+            }
+            indexes[indexCount] = (int) pairs[i];
+            indexCount += 1;
+        }
+        trigramOffsets[trigramCount] = indexCount;
+
+        trigrams = Arrays.copyOf(distinctTrigrams, trigramCount);
+        offsets = Arrays.copyOf(trigramOffsets, trigramCount + 1);
+        nameIndexes = Arrays.copyOf(indexes, indexCount);
+    }
+
+    /**
+     * Gets the number of names in this index.
+     *
+     * @return the number of names
+     */
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * Finds the names most similar to the given name.
+     * <p>
+     * A name is only considered similar if its edit distance (Levenshtein distance, ignoring case)
+     * does not exceed a limit depending on the length of the given name. The result is sorted
+     * by increasing distance. If the given name is part of this index (apart from case),
+     * it is returned as the first name.
+     * </p>
+     *
+     * @param name     the name
+     * @param maxCount the maximum number of names to return
+     * @return the similar names
+     */
+    List<String> findSimilar(String name, int maxCount) {
+        var upperCaseName = name.toUpperCase(Locale.ROOT);
+        var maxDistance = maxDistance(upperCaseName);
+        var minLength = upperCaseName.length() - maxDistance;
+        var maxLength = upperCaseName.length() + maxDistance;
+
+        // count the shared trigrams of names with a similar length
+        var queryTrigrams = Arrays.stream(trigrams(upperCaseName)).distinct().toArray();
+        var trigramIndexes = new int[queryTrigrams.length];
+        var postingCount = 0;
+        for (int i = 0; i < queryTrigrams.length; i += 1) {
+            trigramIndexes[i] = Arrays.binarySearch(trigrams, queryTrigrams[i]);
+            if (trigramIndexes[i] >= 0)
+                postingCount += offsets[trigramIndexes[i] + 1] - offsets[trigramIndexes[i]];
+        }
+        var sharedCounts = new SharedCounts(postingCount);
+        for (var index : trigramIndexes) {
+            if (index < 0)
+                continue;
+            for (int i = offsets[index]; i < offsets[index + 1]; i += 1) {
+                var nameIndex = nameIndexes[i];
+                var length = upperCaseNames[nameIndex].length();
+                if (length >= minLength && length <= maxLength)
+                    sharedCounts.increment(nameIndex);
+            }
+        }
+
+        // select the candidates with the most shared trigrams
+        var minSharedCount = Math.max(1, queryTrigrams.length - 3 * maxDistance);
+        var candidates = new long[16];
+        var candidateCount = 0;
+        for (int slot = 0; slot < sharedCounts.capacity(); slot += 1) {
+            var sharedCount = sharedCounts.count(slot);
+            if (sharedCount < minSharedCount)
+                continue;
+            if (candidateCount == candidates.length)
+                candidates = Arrays.copyOf(candidates, candidateCount * 2);
+            candidates[candidateCount] = ((long) (queryTrigrams.length - sharedCount) << 32) | sharedCounts.nameIndex(slot);
+            candidateCount += 1;
+        }
+        Arrays.sort(candidates, 0, candidateCount);
+        candidateCount = Math.min(candidateCount, MAX_CANDIDATES);
+
+        // rank the candidates by edit distance
+        var ranked = new long[candidateCount];
+        var rankedCount = 0;
+        for (int i = 0; i < candidateCount; i += 1) {
+            var nameIndex = (int) candidates[i];
+            var distance = distance(upperCaseName, upperCaseNames[nameIndex], maxDistance);
+            if (distance <= maxDistance) {
+                ranked[rankedCount] = ((long) distance << 32) | nameIndex;
+                rankedCount += 1;
+            }
+        }
+        Arrays.sort(ranked, 0, rankedCount);
+
+        var result = new ArrayList<String>();
+        for (int i = 0; i < Math.min(rankedCount, maxCount); i += 1)
+            result.add(names[(int) ranked[i]]);
+        return result;
+    }
+
+    /**
+     * Open-addressing hash map counting the shared trigrams per name index.
+     * <p>
+     * Its capacity depends on the number of names in the trigram lists of the query,
+     * not on the number of names in the index.
+     * </p>
+     */
+    private static final class SharedCounts {
+        private final int[] keys;
+        private final int[] counts;
+        private final int shift;
+
+        SharedCounts(int maxSize) {
+            var capacity = Integer.highestOneBit(Math.max(8, maxSize) * 2) << 1;
+            keys = new int[capacity];
+            counts = new int[capacity];
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        }
+
+        int capacity() {
+            return keys.length;
+        }
+
+        void increment(int nameIndex) {
+            // keys are stored as name index + 1 so that 0 marks an empty slot
+            var key = nameIndex + 1;
+            var mask = keys.length - 1;
+            var slot = (key * 0x9E3779B9) >>> shift;
+            while (keys[slot] != 0 && keys[slot] != key)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+            counts[slot] += 1;
+        }
+
+        int count(int slot) {
+            return counts[slot];
+        }
+
+        int nameIndex(int slot) {
+            return keys[slot] - 1;
+        }
+    }
+
+    private static int maxDistance(String name) {
+        return Math.min(3, 1 + name.length() / 5);
+    }
+
+    /**
+     * Gets the trigrams of the given name.
+     * <p>
+     * Each trigram is encoded in an {@code int} with 7 bits per character. Characters outside
+     * the ASCII range share the same code. The resulting collisions only make the trigram filter
+     * less selective; the edit distance is computed with the original characters.
+     * </p>
+     */
+    private static int[] trigrams(String name) {
+        var padded = "" + PADDING + PADDING + name + PADDING;
+        var result = new int[padded.length() - 2];
+        for (int i = 0; i < result.length; i += 1)
+            result[i] = (code(padded.charAt(i)) << 14) | (code(padded.charAt(i + 1)) << 7) | code(padded.charAt(i + 2));
+        return result;
+    }
+
+    private static int code(char ch) {
+        return Math.min(ch, 127);
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings.
+     * <p>
+     * If the distance exceeds {@code maxDistance}, the computation is stopped early
+     * and a value greater than {@code maxDistance} is returned.
+     * </p>
+     */
+    static int distance(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance)
+            return maxDistance + 1;
+
+        var previous = new int[b.length() + 1];
+        var current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j += 1)
+            previous[j] = j;
+
+        for (int i = 1; i <= a.length(); i += 1) {
+            current[0] = i;
+            var rowMinimum = i;
+            for (int j = 1; j <= b.length(); j += 1) {
+                var cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > maxDistance)
+                return maxDistance + 1;
+
+            var swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,37 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.metadata;
+
+/**
+ * Kind of named Windows API element that can be looked up by name.
+ */
+public enum NameKind {
+    /**
+     * Struct or union.
+     */
+    STRUCT,
+    /**
+     * Enumeration.
+     */
+    ENUMERATION,
+    /**
+     * Callback function (function pointer).
+     */
+    CALLBACK_FUNCTION,
+    /**
+     * COM interface.
+     */
+    COM_INTERFACE,
+    /**
+     * Function.
+     */
+    FUNCTION,
+    /**
+     * Constant.
+     */
+    CONSTANT
+}
@@ -9,8 +9,22 @@ package net.codecrete.windowsapi.metadata;
 /**
  * Parameter of a method.
  *
- * @param name the parameter name
- * @param type the parameter type
+ * @param name    the parameter name
+ * @param type    the parameter type
+ * @param isIn    indicates if the parameter passes data to the method
+ * @param isOut   indicates if the parameter receives data from the method
+ * @param isArray indicates if the parameter points to an array or memory block
+ *                (instead of a single element)
  */
-public record Parameter(String name, Type type) {
+public record Parameter(String name, Type type, boolean isIn, boolean isOut, boolean isArray) {
+
+    /**
+     * Creates a new instance with the same name and attributes but a different type.
+     *
+     * @param newType the type of the new instance
+     * @return the new instance
+     */
+    public Parameter withType(Type newType) {
+        return new Parameter(name, newType, isIn, isOut, isArray);
+    }
 }
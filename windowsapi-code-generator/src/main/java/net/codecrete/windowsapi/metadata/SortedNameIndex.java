@@ -0,0 +1,169 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Sorted index for finding the names matching a wildcard pattern.
+ * <p>
+ * The index contains the names (without namespace) and the qualified names (namespace and name,
+ * separated by a period), both sorted. The names starting with a given prefix form a contiguous
+ * range that is found with a binary search. So the sorted arrays serve the same purpose as a trie:
+ * a pattern starting with a literal prefix only needs to look at the names in the prefix range.
+ * For patterns starting with a wildcard, the names are additionally sorted by their reversed
+ * characters so the names ending with the pattern's literal suffix form a contiguous range, too.
+ * </p>
+ * <p>
+ * The index is immutable and can be shared by several threads.
+ * </p>
+ */
+final class SortedNameIndex {
+    private final String[] names;
+    private final String[] qualifiedNames;
+    private final String[] reversedNames;
+
+    /**
+     * Creates a new index for the given qualified names.
+     * <p>
+     * The names are qualified with the namespace, separated by a period.
+     * The name itself must not contain a period. Duplicate names are ignored.
+     * </p>
+     *
+     * @param qualifiedNames the qualified names
+     */
+    SortedNameIndex(Stream<String> qualifiedNames) {
+        this.qualifiedNames = qualifiedNames.distinct().sorted().toArray(String[]::new);
+        names = Arrays.stream(this.qualifiedNames).map(SortedNameIndex::unqualifiedName)
+                .distinct().sorted().toArray(String[]::new);
+        reversedNames = Arrays.stream(names).map(SortedNameIndex::reverse).sorted().toArray(String[]::new);
+    }
+
+    /**
+     * Checks if the given name is a pattern.
+     * <p>
+     * A pattern contains at least one wildcard character: {@code *} matches any sequence
+     * of characters, {@code ?} matches a single character.
+     * </p>
+     *
+     * @param name the name
+     * @return {@code true} if it is a pattern, {@code false} otherwise
+     */
+    static boolean isPattern(String name) {
+        return name.indexOf('*') >= 0 || name.indexOf('?') >= 0;
+    }
+
+    /**
+     * Finds the names matching the given pattern.
+     * <p>
+     * If the pattern contains a period, it is matched against the qualified names.
+     * Otherwise, it is matched against the names without namespace. The comparison is case-sensitive.
+     * The result contains the names without namespace, sorted and without duplicates.
+     * </p>
+     *
+     * @param pattern the pattern
+     * @return the matching names
+     */
+    List<String> findMatching(String pattern) {
+        if (pattern.indexOf('.') >= 0)
+            return List.copyOf(new TreeSet<>(findMatching(pattern, qualifiedNames, false)));
+
+        var prefix = literalPrefix(pattern);
+        var suffix = literalSuffix(pattern);
+        if (suffix.length() <= prefix.length())
+            return findMatching(pattern, names, false);
+
+        var result = findMatching(pattern, reversedNames, true);
+        result.sort(null);
+        return result;
+    }
+
+    private static List<String> findMatching(String pattern, String[] sortedNames, boolean isReversed) {
+        var prefix = isReversed ? reverse(literalSuffix(pattern)) : literalPrefix(pattern);
+        var matchStart = isReversed ? 0 : prefix.length();
+
+        var result = new ArrayList<String>();
+        for (int i = startOfRange(sortedNames, prefix); i < sortedNames.length; i += 1) {
+            if (!sortedNames[i].startsWith(prefix))
+                break;
+            var name = isReversed ? reverse(sortedNames[i]) : sortedNames[i];
+            if (matches(pattern, matchStart, name, matchStart))
+                result.add(unqualifiedName(name));
+        }
+        return result;
+    }
+
+    private static String unqualifiedName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+
+    private static String literalPrefix(String pattern) {
+        for (int i = 0; i < pattern.length(); i += 1) {
+            var ch = pattern.charAt(i);
+            if (ch == '*' || ch == '?')
+                return pattern.substring(0, i);
+        }
+        return pattern;
+    }
+
+    private static String literalSuffix(String pattern) {
+        for (int i = pattern.length() - 1; i >= 0; i -= 1) {
+            var ch = pattern.charAt(i);
+            if (ch == '*' || ch == '?')
+                return pattern.substring(i + 1);
+        }
+        return pattern;
+    }
+
+    private static String reverse(String name) {
+        return new StringBuilder(name).reverse().toString();
+    }
+
+    private static int startOfRange(String[] sortedNames, String prefix) {
+        var index = Arrays.binarySearch(sortedNames, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Checks if the name (starting at {@code nameStart}) matches the pattern (starting at {@code patternStart}).
+     * <p>
+     * After a mismatch, the matching continues after the last {@code *} wildcard,
+     * which then covers one more character of the name.
+     * </p>
+     */
+    static boolean matches(String pattern, int patternStart, String name, int nameStart) {
+        var p = patternStart;
+        var n = nameStart;
+        var starPosition = -1;
+        var starMatchEnd = 0;
+
+        while (n < name.length()) {
+            if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == name.charAt(n))) {
+                p += 1;
+                n += 1;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                starPosition = p;
+                starMatchEnd = n;
+                p += 1;
+            } else if (starPosition >= 0) {
+                starMatchEnd += 1;
+                p = starPosition + 1;
+                n = starMatchEnd;
+            } else {
+                return false;
+            }
+        }
+
+        while (p < pattern.length() && pattern.charAt(p) == '*')
+            p += 1;
+        return p == pattern.length();
+    }
+}
@@ -0,0 +1,365 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Dependency graph of the types defined in the metadata.
+ * <p>
+ * Each type with a {@code TypeDef} index is a node. The nodes are numbered in the order of the
+ * {@code TypeDef} index. As the indexes are sparse, the node numbers are not the same as the indexes.
+ * The edges connect a type to the types it references, directly or through pointers and arrays.
+ * Primitive types and type aliases are not part of the edges as they do not extend the scope
+ * of the generated code.
+ * </p>
+ * <p>
+ * Edges to structs only referenced through pointers are kept separately from the remaining edges
+ * so they can be excluded from the closure (see {@link #closure(BitSet, boolean)}).
+ * </p>
+ * <p>
+ * The edges are stored in compressed sparse row format: the targets of node {@code n} are
+ * {@code targets[offsets[n]]} to {@code targets[offsets[n + 1] - 1]}.
+ * </p>
+ * <p>
+ * The graph is immutable and can be shared by several threads.
+ * </p>
+ */
+public final class TypeDependencyGraph {
+    private static final int PARALLEL_THRESHOLD = 1024;
+
+    private final Type[] types;
+    private final Map<Type, Integer> nodesByType;
+    private final Edges valueEdges;
+    private final Edges structPointerEdges;
+
+    /**
+     * Creates the dependency graph for the given types.
+     * <p>
+     * The graph contains the given types and all types reachable from them. It can contain types
+     * that are no longer registered with the metadata, e.g., if a reference has not been replaced
+     * with an architecture-specific variant. Type aliases are not part of the graph, but the types
+     * they reference are.
+     * </p>
+     *
+     * @param rootTypes the types to start from
+     */
+    TypeDependencyGraph(Stream<Type> rootTypes) {
+        // discover types and edges in a single pass (with nodes numbered in discovery order)
+        var discoveredTypes = new ArrayList<Type>();
+        var discoveredNodes = new IdentityHashMap<Type, Integer>();
+        rootTypes.forEach(type -> {
+            if (type instanceof TypeAlias)
+                type.referencedTypes().forEach(referencedType -> discover(referencedType, discoveredTypes, discoveredNodes));
+            else
+                discover(type, discoveredTypes, discoveredNodes);
+        });
+
+        var discoveredValueEdges = new EdgeBuilder();
+        var discoveredStructPointerEdges = new EdgeBuilder();
+        for (int node = 0; node < discoveredTypes.size(); node += 1) {
+            var iterator = discoveredTypes.get(node).referencedTypes().iterator();
+            while (iterator.hasNext()) {
+                var referencedType = iterator.next();
+                var target = discover(referencedType, discoveredTypes, discoveredNodes);
+                if (target < 0)
+                    continue;
+                if (isStructPointer(referencedType))
+                    discoveredStructPointerEdges.add(target);
+                else
+                    discoveredValueEdges.add(target);
+            }
+            discoveredValueEdges.endNode(node, null);
+            discoveredStructPointerEdges.endNode(node, discoveredValueEdges);
+        }
+
+        // renumber nodes in the order of the TypeDef index
+        var nodeCount = discoveredTypes.size();
+        var sortKeys = new long[nodeCount];
+        for (int node = 0; node < nodeCount; node += 1)
+            sortKeys[node] = ((long) discoveredTypes.get(node).typeDefIndex() << 32) | node;
+        Arrays.sort(sortKeys);
+
+        var renumbered = new int[nodeCount];
+        types = new Type[nodeCount];
+        nodesByType = new IdentityHashMap<>(nodeCount);
+        for (int node = 0; node < nodeCount; node += 1) {
+            var discoveredNode = (int) sortKeys[node];
+            renumbered[discoveredNode] = node;
+            types[node] = discoveredTypes.get(discoveredNode);
+            nodesByType.put(types[node], node);
+        }
+
+        valueEdges = discoveredValueEdges.build(sortKeys, renumbered);
+        structPointerEdges = discoveredStructPointerEdges.build(sortKeys, renumbered);
+    }
+
+    private static int discover(Type type, List<Type> discoveredTypes, Map<Type, Integer> discoveredNodes) {
+        var baseType = baseType(type);
+        if (baseType == null)
+            return -1;
+
+        return discoveredNodes.computeIfAbsent(baseType, t -> {
+            discoveredTypes.add(t);
+            return discoveredTypes.size() - 1;
+        });
+    }
+
+    private static Type baseType(Type type) {
+        return switch (type) {
+            case Primitive ignored -> null;
+            case TypeAlias ignored -> null;
+            case Pointer pointer -> baseType(pointer.referencedType());
+            case Array array -> baseType(array.itemType());
+            default -> type;
+        };
+    }
+
+    private static boolean isStructPointer(Type type) {
+        return switch (type) {
+            case Pointer pointer -> baseType(pointer.referencedType()) instanceof Struct;
+            case Array array -> isStructPointer(array.itemType());
+            default -> false;
+        };
+    }
+
+    /**
+     * Gets the number of nodes.
+     *
+     * @return the number of nodes
+     */
+    public int nodeCount() {
+        return types.length;
+    }
+
+    /**
+     * Gets the type of the specified node.
+     *
+     * @param node the node
+     * @return the type
+     */
+    public Type type(int node) {
+        return types[node];
+    }
+
+    /**
+     * Gets the node of the specified type.
+     *
+     * @param type the type
+     * @return the node, or -1 if the type is not part of the graph
+     */
+    public int node(Type type) {
+        var node = nodesByType.get(type);
+        return node != null ? node : -1;
+    }
+
+    /**
+     * Adds the nodes for the specified type to the set.
+     * <p>
+     * For pointers and arrays, the nodes of the referenced types are added.
+     * Primitive types and type aliases do not add any nodes.
+     * </p>
+     *
+     * @param type  the type
+     * @param nodes the set of nodes
+     */
+    public void addNodes(Type type, BitSet nodes) {
+        addNodes(type, nodes, true);
+    }
+
+    /**
+     * Adds the nodes for the specified type to the set.
+     * <p>
+     * For pointers and arrays, the nodes of the referenced types are added.
+     * Primitive types and type aliases do not add any nodes.
+     * If {@code includeStructPointers} is {@code false}, pointers to structs do not add any nodes either.
+     * </p>
+     *
+     * @param type                  the type
+     * @param nodes                 the set of nodes
+     * @param includeStructPointers {@code true} to add the structs referenced through pointers
+     */
+    public void addNodes(Type type, BitSet nodes, boolean includeStructPointers) {
+        if (!includeStructPointers && isStructPointer(type))
+            return;
+
+        var baseType = baseType(type);
+        if (baseType == null)
+            return;
+
+        var node = node(baseType);
+        if (node < 0)
+            throw new IllegalArgumentException("Type " + baseType.name() + " is not part of the dependency graph");
+        nodes.set(node);
+    }
+
+    /**
+     * Computes the transitive closure of the specified nodes.
+     * <p>
+     * The result contains the specified nodes and all nodes reachable from them.
+     * For a large number of nodes, the closure is computed in parallel.
+     * </p>
+     *
+     * @param nodes the set of nodes
+     * @return the transitive closure (as a new set)
+     */
+    public BitSet closure(BitSet nodes) {
+        return closure(nodes, true);
+    }
+
+    /**
+     * Computes the transitive closure of the specified nodes.
+     * <p>
+     * The result contains the specified nodes and all nodes reachable from them.
+     * If {@code includeStructPointers} is {@code false}, structs only referenced through pointers
+     * are not reached, i.e., only structs embedded by value are added to the specified nodes.
+     * For a large number of nodes, the closure is computed in parallel.
+     * </p>
+     *
+     * @param nodes                 the set of nodes
+     * @param includeStructPointers {@code true} to follow pointers to structs
+     * @return the transitive closure (as a new set)
+     */
+    public BitSet closure(BitSet nodes, boolean includeStructPointers) {
+        return nodes.cardinality() >= PARALLEL_THRESHOLD
+                ? parallelClosure(nodes, includeStructPointers)
+                : sequentialClosure(nodes, includeStructPointers);
+    }
+
+    BitSet sequentialClosure(BitSet nodes, boolean includeStructPointers) {
+        var visited = (BitSet) nodes.clone();
+        var worklist = new int[types.length];
+        var worklistSize = 0;
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            worklist[worklistSize] = node;
+            worklistSize += 1;
+        }
+
+        while (worklistSize > 0) {
+            worklistSize -= 1;
+            var node = worklist[worklistSize];
+            worklistSize = valueEdges.visitTargets(node, visited, worklist, worklistSize);
+            if (includeStructPointers)
+                worklistSize = structPointerEdges.visitTargets(node, visited, worklist, worklistSize);
+        }
+
+        return visited;
+    }
+
+    BitSet parallelClosure(BitSet nodes, boolean includeStructPointers) {
+        var visited = (BitSet) nodes.clone();
+        var frontier = nodes;
+        while (!frontier.isEmpty()) {
+            var next = frontier.stream().parallel()
+                    .collect(BitSet::new, (set, node) -> {
+                        valueEdges.addTargets(node, set);
+                        if (includeStructPointers)
+                            structPointerEdges.addTargets(node, set);
+                    }, BitSet::or);
+            next.andNot(visited);
+            visited.or(next);
+            frontier = next;
+        }
+        return visited;
+    }
+
+    /**
+     * Edges in compressed sparse row format.
+     *
+     * @param offsets the start of the targets of each node (plus the end of the last node)
+     * @param targets the targets of all nodes
+     */
+    private record Edges(int[] offsets, int[] targets) {
+
+        int visitTargets(int node, BitSet visited, int[] worklist, int worklistSize) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i += 1) {
+                var target = targets[i];
+                if (!visited.get(target)) {
+                    visited.set(target);
+                    worklist[worklistSize] = target;
+                    worklistSize += 1;
+                }
+            }
+            return worklistSize;
+        }
+
+        void addTargets(int node, BitSet set) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i += 1)
+                set.set(targets[i]);
+        }
+    }
+
+    /**
+     * Builder for edges, collected node by node in discovery order.
+     */
+    private static final class EdgeBuilder {
+        private int[] offsets = new int[1024];
+        private int[] targets = new int[4096];
+        private int edgeCount;
+
+        void add(int target) {
+            if (edgeCount == targets.length)
+                targets = Arrays.copyOf(targets, edgeCount * 2);
+            targets[edgeCount] = target;
+            edgeCount += 1;
+        }
+
+        /**
+         * Completes the edges of the specified node.
+         * <p>
+         * Duplicate targets are removed, as well as the targets that are already targets
+         * of the same node in {@code otherEdges}.
+         * </p>
+         */
+        void endNode(int node, EdgeBuilder otherEdges) {
+            var start = offsets[node];
+            Arrays.sort(targets, start, edgeCount);
+            var end = start;
+            for (int i = start; i < edgeCount; i += 1) {
+                var target = targets[i];
+                if ((end == start || targets[end - 1] != target)
+                        && (otherEdges == null || !otherEdges.hasTarget(node, target))) {
+                    targets[end] = target;
+                    end += 1;
+                }
+            }
+            edgeCount = end;
+
+            if (node + 2 > offsets.length)
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[node + 1] = edgeCount;
+        }
+
+        private boolean hasTarget(int node, int target) {
+            return Arrays.binarySearch(targets, offsets[node], offsets[node + 1], target) >= 0;
+        }
+
+        Edges build(long[] sortKeys, int[] renumbered) {
+            var nodeCount = renumbered.length;
+            var builtOffsets = new int[nodeCount + 1];
+            var builtTargets = new int[edgeCount];
+            for (int node = 0; node < nodeCount; node += 1) {
+                var discoveredNode = (int) sortKeys[node];
+                var start = builtOffsets[node];
+                var end = start;
+                for (int i = offsets[discoveredNode]; i < offsets[discoveredNode + 1]; i += 1) {
+                    builtTargets[end] = renumbered[targets[i]];
+                    end += 1;
+                }
+                Arrays.sort(builtTargets, start, end);
+                builtOffsets[node + 1] = end;
+            }
+            return new Edges(builtOffsets, builtTargets);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.usage;
+
+/**
+ * Exception thrown when an invalid Java class file is detected.
+ */
+public class ClassFileException extends RuntimeException {
+    /**
+     * Creates a new exception with the given message.
+     *
+     * @param message the message
+     */
+    public ClassFileException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new exception with the given message and cause.
+     *
+     * @param message the message
+     * @param cause   the original cause
+     */
+    public ClassFileException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
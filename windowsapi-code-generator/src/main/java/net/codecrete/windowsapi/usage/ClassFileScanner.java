@@ -0,0 +1,183 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.usage;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+/**
+ * Scans compiled Java classes for references to other classes and their members.
+ * <p>
+ * Only the constant pool of each class file is read. It contains all classes, fields and methods
+ * referenced by the bytecode, as well as the descriptors of the declared fields and methods.
+ * The remainder of the class file is skipped.
+ * </p>
+ */
+public final class ClassFileScanner {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELD_REF = 9;
+    private static final int CONSTANT_METHOD_REF = 10;
+    private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private ClassFileScanner() {
+    }
+
+    /**
+     * Scans all class files in the specified directory and its subdirectories.
+     * <p>
+     * Class files of excluded classes are skipped, e.g., the classes generated from the Windows API
+     * as they reference each other.
+     * </p>
+     *
+     * @param directory       the directory
+     * @param isExcludedClass predicate returning {@code true} for the binary names of the classes to skip
+     * @return the references
+     */
+    public static ClassReferences scan(Path directory, Predicate<String> isExcludedClass) {
+        var references = new ClassReferences();
+        try (var paths = Files.walk(directory)) {
+            paths.filter(path -> path.getFileName().toString().endsWith(".class") && Files.isRegularFile(path))
+                    .sorted()
+                    .forEach(path -> scanClassFile(path, isExcludedClass, references));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to scan class files in " + directory, e);
+        }
+        return references;
+    }
+
+    private static void scanClassFile(Path path, Predicate<String> isExcludedClass, ClassReferences references) {
+        try (var inputStream = new BufferedInputStream(Files.newInputStream(path))) {
+            scan(inputStream, isExcludedClass, references);
+        } catch (IOException e) {
+            throw new ClassFileException("Failed to read class file " + path, e);
+        }
+    }
+
+    /**
+     * Scans a single class file.
+     *
+     * @param inputStream     the input stream providing the class file contents
+     * @param isExcludedClass predicate returning {@code true} for the binary names of the classes to skip
+     * @param references      the references to add to
+     * @throws IOException if an I/O error occurs
+     */
+    static void scan(InputStream inputStream, Predicate<String> isExcludedClass, ClassReferences references)
+            throws IOException {
+        var in = new DataInputStream(inputStream);
+        if (in.readInt() != MAGIC)
+            throw new ClassFileException("Invalid class file (magic number missing)");
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        // read constant pool
+        var count = in.readUnsignedShort();
+        var tags = new byte[count];
+        var strings = new String[count];
+        var firstIndexes = new int[count];
+        var secondIndexes = new int[count];
+        for (int i = 1; i < count; i += 1) {
+            var tag = in.readUnsignedByte();
+            tags[i] = (byte) tag;
+            switch (tag) {
+                case CONSTANT_UTF8 -> strings[i] = in.readUTF();
+                case CONSTANT_INTEGER, CONSTANT_FLOAT -> in.readInt();
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    in.readLong();
+                    i += 1; // takes two entries
+                }
+                case CONSTANT_CLASS, CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE, CONSTANT_PACKAGE ->
+                        firstIndexes[i] = in.readUnsignedShort();
+                case CONSTANT_FIELD_REF, CONSTANT_METHOD_REF, CONSTANT_INTERFACE_METHOD_REF, CONSTANT_NAME_AND_TYPE,
+                     CONSTANT_DYNAMIC, CONSTANT_INVOKE_DYNAMIC -> {
+                    firstIndexes[i] = in.readUnsignedShort();
+                    secondIndexes[i] = in.readUnsignedShort();
+                }
+                case CONSTANT_METHOD_HANDLE -> {
+                    in.readUnsignedByte();
+                    firstIndexes[i] = in.readUnsignedShort();
+                }
+                default -> throw new ClassFileException("Invalid class file (unknown constant pool tag " + tag + ")");
+            }
+        }
+
+        in.readUnsignedShort(); // access flags
+        var thisClass = strings[firstIndexes[in.readUnsignedShort()]];
+        if (isExcludedClass.test(thisClass.replace('/', '.')))
+            return;
+
+        references.addClassFile();
+        for (int i = 1; i < count; i += 1) {
+            switch (tags[i]) {
+                case CONSTANT_CLASS -> addClassOrArray(strings[firstIndexes[i]], references);
+                case CONSTANT_FIELD_REF, CONSTANT_METHOD_REF, CONSTANT_INTERFACE_METHOD_REF -> {
+                    var className = strings[firstIndexes[firstIndexes[i]]];
+                    var memberName = strings[firstIndexes[secondIndexes[i]]];
+                    if (className.charAt(0) != '[')
+                        references.addMember(className, memberName);
+                }
+                case CONSTANT_UTF8 -> addDescriptorClasses(strings[i], references);
+                default -> {
+                    // no class reference
+                }
+            }
+        }
+    }
+
+    private static void addClassOrArray(String name, ClassReferences references) {
+        if (name.charAt(0) == '[')
+            addDescriptorClasses(name, references);
+        else
+            references.addClass(name);
+    }
+
+    /**
+     * Adds the classes of a field, method or generic signature descriptor.
+     * <p>
+     * Class types have the form {@code Lname;} or {@code Lname<...>;}.
+     * Other strings (e.g., names) rarely contain this pattern; if they do, the result is an
+     * additional reference, which only makes the result more conservative.
+     * </p>
+     */
+    private static void addDescriptorClasses(String descriptor, ClassReferences references) {
+        var start = descriptor.indexOf('L');
+        while (start >= 0) {
+            var end = start + 1;
+            while (end < descriptor.length() && isClassNameChar(descriptor.charAt(end)))
+                end += 1;
+            if (end < descriptor.length() && end > start + 1
+                    && (descriptor.charAt(end) == ';' || descriptor.charAt(end) == '<'))
+                references.addClass(descriptor.substring(start + 1, end));
+            start = descriptor.indexOf('L', end);
+        }
+    }
+
+    private static boolean isClassNameChar(char ch) {
+        return ch != ';' && ch != '<' && ch != '>' && ch != '(' && ch != ')' && ch != '[';
+    }
+}
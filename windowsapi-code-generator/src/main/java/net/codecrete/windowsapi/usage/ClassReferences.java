@@ -0,0 +1,98 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.usage;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Classes and class members referenced by compiled Java classes.
+ * <p>
+ * Classes are identified by their binary name with periods as separators, e.g.,
+ * {@code windows.win32.foundation.RECT}. References to nested classes are recorded
+ * as references to the top-level class.
+ * </p>
+ * <p>
+ * Member references are only recorded if they appear in the constant pool. References to
+ * compile-time constants (static final fields of primitive type or {@code String}) are
+ * inlined by the Java compiler and cannot be detected.
+ * </p>
+ */
+public final class ClassReferences {
+    private final Set<String> classes = new HashSet<>();
+    private final Set<String> members = new HashSet<>();
+    private int classFileCount;
+
+    /**
+     * Creates a new instance without any references.
+     */
+    public ClassReferences() {
+        // no references yet
+    }
+
+    /**
+     * Gets the number of class files the references have been collected from.
+     *
+     * @return the number of class files
+     */
+    public int classFileCount() {
+        return classFileCount;
+    }
+
+    /**
+     * Checks if the specified class is referenced.
+     *
+     * @param className the binary class name (top-level class)
+     * @return {@code true} if it is referenced, {@code false} otherwise
+     */
+    public boolean isClassReferenced(String className) {
+        return classes.contains(className);
+    }
+
+    /**
+     * Checks if the specified member (field or method) of the specified class is referenced.
+     *
+     * @param className  the binary class name (top-level class)
+     * @param memberName the field or method name
+     * @return {@code true} if it is referenced, {@code false} otherwise
+     */
+    public boolean isMemberReferenced(String className, String memberName) {
+        return members.contains(className + "#" + memberName);
+    }
+
+    void addClassFile() {
+        classFileCount += 1;
+    }
+
+    /**
+     * Adds a reference to a class.
+     *
+     * @param internalName the internal class name, e.g., {@code java/util/Map$Entry}
+     */
+    public void addClass(String internalName) {
+        classes.add(toClassName(internalName));
+    }
+
+    /**
+     * Adds a reference to a member (field or method) of a class.
+     *
+     * @param internalName the internal class name, e.g., {@code java/util/Map$Entry}
+     * @param memberName   the field or method name
+     */
+    public void addMember(String internalName, String memberName) {
+        var className = toClassName(internalName);
+        classes.add(className);
+        members.add(className + "#" + memberName);
+    }
+
+    private static String toClassName(String internalName) {
+        var nestedSeparator = internalName.indexOf('$', internalName.lastIndexOf('/') + 1);
+        if (nestedSeparator >= 0)
+            internalName = internalName.substring(0, nestedSeparator);
+        return internalName.replace('/', '.');
+    }
+}
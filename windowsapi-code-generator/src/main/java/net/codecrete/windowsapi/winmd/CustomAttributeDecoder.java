@@ -24,6 +24,7 @@ import static net.codecrete.windowsapi.winmd.tables.CodedIndexes.HAS_CUSTOM_ATTR
 import static net.codecrete.windowsapi.winmd.tables.MetadataTables.FIELD;
 import static net.codecrete.windowsapi.winmd.tables.MetadataTables.MEMBER_REF;
 import static net.codecrete.windowsapi.winmd.tables.MetadataTables.METHOD_DEF;
+import static net.codecrete.windowsapi.winmd.tables.MetadataTables.PARAM;
 import static net.codecrete.windowsapi.winmd.tables.MetadataTables.TYPE_DEF;
 import static net.codecrete.windowsapi.winmd.tables.MetadataTables.TYPE_REF;
 
@@ -46,6 +47,9 @@ class CustomAttributeDecoder extends Decoder {
     private static final QualifiedName DOCUMENTATION_ATTRIBUTE = new QualifiedName(METADATA, "DocumentationAttribute");
     private static final QualifiedName FLEXIBLE_ARRAY_ATTRIBUTE = new QualifiedName(METADATA, "FlexibleArrayAttribute");
     private static final QualifiedName GUID_ATTRIBUTE = new QualifiedName(METADATA, "GuidAttribute");
+    private static final QualifiedName MEMORY_SIZE_ATTRIBUTE = new QualifiedName(METADATA, "MemorySizeAttribute");
+    private static final QualifiedName NATIVE_ARRAY_INFO_ATTRIBUTE = new QualifiedName(METADATA,
+            "NativeArrayInfoAttribute");
     private static final QualifiedName NATIVE_ENCODING_ATTRIBUTE = new QualifiedName(METADATA,
             "NativeEncodingAttribute");
     private static final QualifiedName NATIVE_TYPEDEF_ATTRIBUTE = new QualifiedName(METADATA, "NativeTypedefAttribute");
@@ -88,7 +92,7 @@ class CustomAttributeDecoder extends Decoder {
             new QualifiedName(METADATA, "ConstAttribute"),
             new QualifiedName(METADATA, "InvalidHandleValueAttribute"),
             new QualifiedName(METADATA, "MetadataTypedefAttribute"),
-            new QualifiedName(METADATA, "NativeArrayInfoAttribute"),
+            NATIVE_ARRAY_INFO_ATTRIBUTE,
             new QualifiedName(METADATA, "NativeBitfieldAttribute"),
             new QualifiedName(METADATA, "NotNullTerminatedAttribute"),
             new QualifiedName(METADATA, "NullNullTerminatedAttribute"),
@@ -146,22 +150,49 @@ class CustomAttributeDecoder extends Decoder {
         return getAttributes(fieldIndex);
     }
 
+    /**
+     * Checks if the parameter with the given {@code Param} index is an array or a memory block.
+     * <p>
+     * Such parameters are marked with the {@code NativeArrayInfo} or {@code MemorySize} attribute.
+     * </p>
+     *
+     * @param param the {@code Param} index
+     * @return {@code true} if the parameter is an array or memory block, {@code false} otherwise
+     */
+    boolean isArrayParameter(int param) {
+        var paramIndex = CodedIndex.encode(PARAM, param, HAS_CUSTOM_ATTRIBUTE_TABLES);
+        for (var customAttribute : metadataFile.getCustomAttributes(paramIndex)) {
+            var qualifiedName = getAttributeName(getConstructor(customAttribute));
+            if (qualifiedName.equals(NATIVE_ARRAY_INFO_ATTRIBUTE) || qualifiedName.equals(MEMORY_SIZE_ATTRIBUTE))
+                return true;
+        }
+        return false;
+    }
+
+    private QualifiedName getAttributeName(MemberRef memberRef) {
+        var parent = memberRef.parentIndex();
+        assert parent.table() == TYPE_REF;
+        assert parent.index() != 0;
+        var typeRef = metadataFile.getTypeRef(parent.index());
+        return new QualifiedName(
+                metadataFile.getString(typeRef.typeNamespace()),
+                metadataFile.getString(typeRef.typeName())
+        );
+    }
+
+    private MemberRef getConstructor(CustomAttribute customAttribute) {
+        var constructor = customAttribute.constructorIndex();
+        assert constructor.table() == MEMBER_REF;
+        assert constructor.index() != 0;
+        return metadataFile.getMemberRef(constructor.index());
+    }
+
     private CustomAttributeData getAttributes(int hasCustomAttributeIndex) {
         var data = new CustomAttributeData();
 
         for (var customAttribute : metadataFile.getCustomAttributes(hasCustomAttributeIndex)) {
-            var constructor = customAttribute.constructorIndex();
-            assert constructor.table() == MEMBER_REF;
-            assert constructor.index() != 0;
-            var memberRef = metadataFile.getMemberRef(constructor.index());
-            var parent = memberRef.parentIndex();
-            assert parent.table() == TYPE_REF;
-            assert parent.index() != 0;
-            var typeRef = metadataFile.getTypeRef(parent.index());
-            var qualifiedName = new QualifiedName(
-                    metadataFile.getString(typeRef.typeNamespace()),
-                    metadataFile.getString(typeRef.typeName())
-            );
+            var memberRef = getConstructor(customAttribute);
+            var qualifiedName = getAttributeName(memberRef);
 
             if (ignoredAttributes.contains(qualifiedName))
                 continue;
@@ -27,6 +27,7 @@ import net.codecrete.windowsapi.metadata.TypeKind;
 import net.codecrete.windowsapi.winmd.tables.CodedIndex;
 import net.codecrete.windowsapi.winmd.tables.CodedIndexes;
 import net.codecrete.windowsapi.winmd.tables.Field;
+import net.codecrete.windowsapi.winmd.tables.Param;
 import net.codecrete.windowsapi.winmd.tables.TypeDef;
 
 import java.io.IOException;
@@ -79,13 +80,23 @@ public class MetadataBuilder implements TypeLookup {
      */
     public static Metadata load() {
         try (var stream = MetadataBuilder.class.getClassLoader().getResourceAsStream("Windows.Win32.winmd")) {
-            var builder = new MetadataBuilder(new MetadataFile(stream));
-            return builder.build();
+            return load(new MetadataFile(stream));
         } catch (IOException e) {
             throw new WinmdException("Cannot open resource 'Windows.Win32.winmd'", e);
         }
     }
 
+    /**
+     * Builds the metadata from the given parsed .winmd file.
+     *
+     * @param metadataFile the parsed metadata file
+     * @return the built metadata
+     */
+    public static Metadata load(MetadataFile metadataFile) {
+        var builder = new MetadataBuilder(metadataFile);
+        return builder.build();
+    }
+
     private MetadataBuilder(MetadataFile metadataFile) {
         this.metadataFile = metadataFile;
         metadata = new Metadata();
@@ -462,7 +473,9 @@ public class MetadataBuilder implements TypeLookup {
             } else {
                 // positional parameter
                 assert paramName != null;
-                parameters[index] = new Parameter(paramName, methodSignature.paramTypes()[index]);
+                parameters[index] = new Parameter(paramName, methodSignature.paramTypes()[index],
+                        (param.flags() & Param.IN) != 0, (param.flags() & Param.OUT) != 0,
+                        customAttributeDecoder.isArrayParameter(param.index()));
                 index += 1;
             }
         }
@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Describes an address layout.
@@ -125,12 +126,13 @@ record AddressLayout(boolean aligned,
     /**
      * Gets the required address layouts for the given struct.
      *
-     * @param struct the struct
+     * @param struct   the struct
+     * @param isPruned predicate indicating if a struct has been pruned from the scope
      * @return the required address layouts
      */
-    static List<AddressLayout> requiredLayouts(Struct struct) {
+    static List<AddressLayout> requiredLayouts(Struct struct, Predicate<Struct> isPruned) {
         var addressLayouts = new HashSet<AddressLayout>();
-        addLayoutsRecursively(struct, struct.packageSize(), addressLayouts);
+        addLayoutsRecursively(struct, struct.packageSize(), addressLayouts, isPruned);
         return filteredAndSorted(addressLayouts);
     }
 
@@ -138,11 +140,12 @@ record AddressLayout(boolean aligned,
      * Gets the required address layouts for the given functions.
      *
      * @param functions the functions
+     * @param isPruned  predicate indicating if a struct has been pruned from the scope
      * @return the required address layouts
      */
-    static List<AddressLayout> requiredLayouts(Collection<Method> functions) {
+    static List<AddressLayout> requiredLayouts(Collection<Method> functions, Predicate<Struct> isPruned) {
         var addressLayouts = new HashSet<AddressLayout>();
-        functions.stream().flatMap(Method::referencedTypes).forEach(it -> addLayout(it, addressLayouts));
+        functions.stream().flatMap(Method::referencedTypes).forEach(it -> addLayout(it, addressLayouts, isPruned));
         return filteredAndSorted(addressLayouts);
     }
 
@@ -158,19 +161,21 @@ record AddressLayout(boolean aligned,
      * Gets the required address layouts for the given function.
      *
      * @param function the function
+     * @param isPruned predicate indicating if a struct has been pruned from the scope
      * @return the required address layouts
      */
-    static List<AddressLayout> requiredLayouts(Method function) {
-        return requiredLayouts(List.of(function));
+    static List<AddressLayout> requiredLayouts(Method function, Predicate<Struct> isPruned) {
+        return requiredLayouts(List.of(function), isPruned);
     }
 
     /**
      * Gets the required address layouts for the given COM interface.
      *
      * @param comInterface the COM interface
+     * @param isPruned     predicate indicating if a struct has been pruned from the scope
      * @return the required address layouts
      */
-    static List<AddressLayout> requiredLayouts(ComInterface comInterface) {
+    static List<AddressLayout> requiredLayouts(ComInterface comInterface, Predicate<Struct> isPruned) {
         var allInterfaces = new ArrayList<ComInterface>();
         var intf = comInterface;
         while (intf != null) {
@@ -179,20 +184,21 @@ record AddressLayout(boolean aligned,
         }
 
         var methods = allInterfaces.stream().flatMap(it -> it.methods().stream()).toList();
-        return requiredLayouts(methods);
+        return requiredLayouts(methods, isPruned);
     }
 
-    private static void addLayout(Type type, Set<AddressLayout> addressLayouts) {
+    private static void addLayout(Type type, Set<AddressLayout> addressLayouts, Predicate<Struct> isPruned) {
         switch (type) {
-            case TypeAlias typeAlias -> addLayout(typeAlias.aliasedType(), addressLayouts);
-            case Pointer pointer -> addressLayouts.add(getAddressLayout(pointer.referencedType(), true));
+            case TypeAlias typeAlias -> addLayout(typeAlias.aliasedType(), addressLayouts, isPruned);
+            case Pointer pointer -> addressLayouts.add(getAddressLayout(pointer.referencedType(), true, isPruned));
             case Delegate ignored -> addressLayouts.add(pointerToAddress(true));
             case ComInterface ignored -> addressLayouts.add(pointerToAddress(true));
             default -> { /* no address layout required */ }
         }
     }
 
-    private static void addLayoutsRecursively(Type type, int packageSize, Set<AddressLayout> addressLayouts) {
+    private static void addLayoutsRecursively(Type type, int packageSize, Set<AddressLayout> addressLayouts,
+                                              Predicate<Struct> isPruned) {
         var aligned = packageSize >= 8;
         switch (type) {
             case Struct struct -> {
@@ -200,15 +206,16 @@ record AddressLayout(boolean aligned,
                     var memberType = member.type();
                     if (memberType instanceof Struct structMember) {
                         if (structMember.isNested())
-                            addLayoutsRecursively(memberType, packageSize, addressLayouts);
+                            addLayoutsRecursively(memberType, packageSize, addressLayouts, isPruned);
                     } else {
-                        addLayoutsRecursively(memberType, packageSize, addressLayouts);
+                        addLayoutsRecursively(memberType, packageSize, addressLayouts, isPruned);
                     }
                 }
             }
-            case Array arrayType -> addLayoutsRecursively(arrayType.itemType(), packageSize, addressLayouts);
-            case TypeAlias typeAlias -> addLayoutsRecursively(typeAlias.aliasedType(), packageSize, addressLayouts);
-            case Pointer pointer -> addressLayouts.add(getAddressLayout(pointer.referencedType(), aligned));
+            case Array arrayType -> addLayoutsRecursively(arrayType.itemType(), packageSize, addressLayouts, isPruned);
+            case TypeAlias typeAlias ->
+                    addLayoutsRecursively(typeAlias.aliasedType(), packageSize, addressLayouts, isPruned);
+            case Pointer pointer -> addressLayouts.add(getAddressLayout(pointer.referencedType(), aligned, isPruned));
             case Delegate ignored -> addressLayouts.add(pointerToAddress(aligned));
             case ComInterface ignored -> addressLayouts.add(pointerToAddress(aligned));
             default -> { /* no address layout required */ }
@@ -217,12 +224,17 @@ record AddressLayout(boolean aligned,
 
     /**
      * Gets the address layout for the specified target type.
+     * <p>
+     * Pointers to structs that have been pruned from the scope use the address layout for
+     * a memory segment of unknown size.
+     * </p>
      *
      * @param targetType the target type
      * @param aligned    {@code true} if the address should be aligned, {@code false} if it should be unaligned
+     * @param isPruned   predicate indicating if a struct has been pruned from the scope
      * @return the address layout
      */
-    static AddressLayout getAddressLayout(Type targetType, boolean aligned) {
+    static AddressLayout getAddressLayout(Type targetType, boolean aligned, Predicate<Struct> isPruned) {
         return switch (targetType) {
             case Primitive primitive -> {
                 if (primitive.kind() == PrimitiveKind.VOID) {
@@ -231,10 +243,10 @@ record AddressLayout(boolean aligned,
                     yield pointerToUnknown(aligned);
                 }
             }
-            case EnumType enumType -> getAddressLayout(enumType.baseType(), aligned);
-            case TypeAlias typeAlias -> getAddressLayout(typeAlias.aliasedType(), aligned);
+            case EnumType enumType -> getAddressLayout(enumType.baseType(), aligned, isPruned);
+            case TypeAlias typeAlias -> getAddressLayout(typeAlias.aliasedType(), aligned, isPruned);
             case Struct struct -> {
-                if (struct.namespace() != null && !struct.isArchitectureSpecific()) {
+                if (struct.namespace() != null && !struct.isArchitectureSpecific() && !isPruned.test(struct)) {
                     yield new AddressLayout(aligned, struct.structSize(), struct.packageSize(), null);
                 } else {
                     yield pointerToUnknown(aligned);
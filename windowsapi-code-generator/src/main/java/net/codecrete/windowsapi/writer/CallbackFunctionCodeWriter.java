@@ -8,12 +8,24 @@ package net.codecrete.windowsapi.writer;
 
 import net.codecrete.windowsapi.metadata.Delegate;
 import net.codecrete.windowsapi.metadata.Method;
+import net.codecrete.windowsapi.metadata.Parameter;
+import net.codecrete.windowsapi.metadata.Pointer;
+import net.codecrete.windowsapi.metadata.Primitive;
+import net.codecrete.windowsapi.metadata.PrimitiveKind;
+import net.codecrete.windowsapi.metadata.TypeAlias;
+
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Creates the Java code for a callback function.
  */
 class CallbackFunctionCodeWriter extends FunctionCodeWriterBase<Delegate> {
 
+    private static final Pattern CONTEXT_NAME_PATTERN =
+            Pattern.compile("(lp|lpv|pv|p)?([A-Za-z][a-z]+)?([Cc]ontext|[Pp]arameter|[Pp]aram|[Aa]rg|[Uu]serData)");
+    private static final Pattern ENUM_CALLBACK_NAME_PATTERN = Pattern.compile("(?i).*ENUM.*");
+
     private final CommentWriter commentWriter = new CommentWriter();
 
     /**
@@ -37,14 +49,16 @@ class CallbackFunctionCodeWriter extends FunctionCodeWriterBase<Delegate> {
 
     private void writeCallbackFunctionContent() {
         var signature = type.signature();
+        var contextParameter = getContextParameter(type);
         writer.printf("""
                 package %1$s;
                 
                 import java.lang.foreign.*;
                 import java.lang.invoke.*;
                 import static java.lang.foreign.ValueLayout.*;
-                
                 """, packageName);
+        writeAddressLayoutsImport(AddressLayout.requiredLayouts(signature, generationContext::isPrunedStruct));
+        writer.println();
 
         writeCallbackFunctionComment();
 
@@ -84,6 +98,9 @@ class CallbackFunctionCodeWriter extends FunctionCodeWriterBase<Delegate> {
                 """, className);
         writer.println();
 
+        if (contextParameter != null)
+            writeSharedUpcallStubMethods(contextParameter);
+
         // invoke the function pointer
         writeCallbackFunctionInvokeComment(signature);
         var optionalComma = signature.parameters().length > 0 ? ", " : "";
@@ -97,10 +114,7 @@ class CallbackFunctionCodeWriter extends FunctionCodeWriterBase<Delegate> {
         writer.println("    }");
         writer.println();
 
-        // address layouts
-        AddressLayout.requiredLayouts(signature).forEach(layoutType ->
-                writeAddressLayoutInitialization(layoutType, "private static final "));
-        writer.println();
+        writeWarmUpMethod(className, "public static ", contextParameter != null ? List.of("$SHARED") : List.of());
 
         // function descriptor
         writer.print("    private static final FunctionDescriptor $DESC = ");
@@ -122,6 +136,9 @@ class CallbackFunctionCodeWriter extends FunctionCodeWriterBase<Delegate> {
                 
                 """, className);
 
+        if (contextParameter != null)
+            writeSharedUpcallStubImplementation(signature, contextParameter);
+
         // downcall handle
         writer.println("    private static final MethodHandle DOWNCALL$MH = Linker.nativeLinker().downcallHandle" +
                 "($DESC);");
@@ -134,6 +151,143 @@ class CallbackFunctionCodeWriter extends FunctionCodeWriterBase<Delegate> {
                 """, className);
     }
 
+    /**
+     * Gets the parameter passing the caller-provided context to the callback function.
+     * <p>
+     * The context parameter is the last {@code void*} parameter with a name indicating a context
+     * (such as {@code lpParameter}, {@code pvContext} or {@code EnumerationContext}). For enumeration callbacks
+     * (such as {@code WNDENUMPROC} used by {@code EnumWindows}), it is the last parameter of type {@code LPARAM}.
+     * In other callback functions, {@code LPARAM} usually carries message data, e.g., in window procedures,
+     * driver procedures and property sheet callbacks. So they are not considered.
+     * </p>
+     *
+     * @param delegate the callback function
+     * @return the context parameter, or {@code null} if there is none
+     */
+    static Parameter getContextParameter(Delegate delegate) {
+        var isEnumCallback = ENUM_CALLBACK_NAME_PATTERN.matcher(delegate.name()).matches();
+        Parameter contextParameter = null;
+        for (var parameter : delegate.signature().parameters()) {
+            var parameterType = parameter.type();
+            if (parameterType instanceof TypeAlias alias && alias.name().equals("WPARAM"))
+                return null;
+
+            if (isEnumCallback && parameterType instanceof TypeAlias alias && alias.name().equals("LPARAM"))
+                contextParameter = parameter;
+            else if (parameterType instanceof Pointer pointer
+                    && pointer.referencedType() instanceof Primitive primitive
+                    && primitive.kind() == PrimitiveKind.VOID
+                    && CONTEXT_NAME_PATTERN.matcher(parameter.name()).matches())
+                contextParameter = parameter;
+        }
+        return contextParameter;
+    }
+
+    private void writeSharedUpcallStubMethods(Parameter contextParameter) {
+        var isAddress = contextParameter.type() instanceof Pointer;
+        var contextType = isAddress ? "MemorySegment" : "long";
+        var contextName = getJavaSafeName(contextParameter.name());
+
+        writer.printf("""
+                    /**
+                     * Gets the upcall stub shared by all registered functions.
+                     * <p>
+                     * The stub is created once per process. When called, it looks up the function registered
+                     * for the context passed in parameter {@code %1$s} and calls it.
+                     * </p>
+                     * <p>
+                     * Pass the stub as the callback function and the value returned by {@link #register(Function)}
+                     * as the context. If the context does not refer to a registered function when the stub is called,
+                     * the stub returns the default value (0 or {@code NULL}) without calling a function.
+                     * </p>
+                     *
+                     * @return the upcall stub
+                     */
+                    public static MemorySegment sharedUpcallStub() {
+                        return $SHARED.STUB;
+                    }
+                
+                    /**
+                     * Registers the given function for the shared upcall stub.
+                     * <p>
+                     * The function stays registered until {@link #unregister(%2$s)} is called.
+                     * </p>
+                     *
+                     * @param function the function
+                     * @return the context to pass in parameter {@code %1$s} (an opaque handle)
+                     */
+                    public static %2$s register(Function function) {
+                        return %3$s;
+                    }
+                
+                    /**
+                     * Unregisters the function registered for the given context.
+                     *
+                     * @param context the context returned by {@link #register(Function)}
+                     */
+                    public static void unregister(%2$s context) {
+                        REGISTRY.unregister(context%4$s);
+                    }
+                
+                """, contextName, contextType,
+                isAddress ? "MemorySegment.ofAddress(REGISTRY.register(function))" : "REGISTRY.register(function)",
+                isAddress ? ".address()" : "");
+    }
+
+    private void writeSharedUpcallStubImplementation(Method signature, Parameter contextParameter) {
+        var contextName = getJavaSafeName(contextParameter.name());
+        var isAddress = contextParameter.type() instanceof Pointer;
+
+        writer.printf("""
+                    private static final %1$s<Function> REGISTRY = new %1$s<>();
+                
+                """, runtimeClass(RuntimeCodeWriter.CALLBACK_REGISTRY));
+
+        writer.print("    private static ");
+        writeFunctionSignatureIntro(signature, "dispatch");
+        writeFunctionSignatureParameters(signature);
+        writer.println(" {");
+        writer.printf("""
+                        var function = REGISTRY.get(%s%s);
+                        if (function == null)
+                            return%s;
+                """, contextName, isAddress ? ".address()" : "",
+                signature.hasReturnType() ? " " + getDefaultValue(getJavaType(signature.returnType())) : "");
+        writer.printf("        %sfunction.invoke(", signature.hasReturnType() ? "return " : "");
+        var parameters = signature.parameters();
+        for (int i = 0; i < parameters.length; i += 1) {
+            writer.print(i > 0 ? ", " : "");
+            writer.print(getJavaSafeName(parameters[i].name()));
+        }
+        writer.println(");");
+        writer.println("    }");
+        writer.println();
+
+        writer.printf("""
+                    private static final class $SHARED {
+                        static final MemorySegment STUB = createSharedUpcallStub();
+                    }
+                
+                    private static MemorySegment createSharedUpcallStub() {
+                        try {
+                            var dispatch = MethodHandles.lookup().findStatic(%1$s.class, "dispatch", $DESC.toMethodType());
+                            return Linker.nativeLinker().upcallStub(dispatch, $DESC, Arena.global());
+                        } catch (ReflectiveOperationException ex) {
+                            throw new RuntimeException(ex);
+                        }
+                    }
+                
+                """, className);
+    }
+
+    private static String getDefaultValue(String javaType) {
+        return switch (javaType) {
+            case "MemorySegment" -> "MemorySegment.NULL";
+            case "boolean" -> "false";
+            default -> "0";
+        };
+    }
+
     private void writeCallbackFunctionComment() {
         writer.printf("""
                 /**
@@ -14,20 +14,28 @@ import net.codecrete.windowsapi.metadata.Metadata;
 import net.codecrete.windowsapi.metadata.Struct;
 import net.codecrete.windowsapi.metadata.Type;
 
-import java.io.FileWriter;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Generates Java code for a given scope of types, functions, and constants.
  */
 public class CodeWriter extends JavaCodeWriter<Type> {
 
+    private static final String RUNTIME = "runtime";
+
     private final Path outputDirectory;
     private final StructCodeWriter structCodeWriter;
     private final EnumCodeWriter enumCodeWriter;
@@ -35,6 +43,10 @@ public class CodeWriter extends JavaCodeWriter<Type> {
     private final CallbackFunctionCodeWriter callbackFunctionCodeWriter;
     private final ConstantCodeWriter constantCodeWriter;
     private final ComInterfaceWriter comInterfaceWriter;
+    private final RuntimeCodeWriter runtimeCodeWriter;
+    private final Map<String, Long> writerNanos = new LinkedHashMap<>();
+    private int fileCount;
+    private long bytesWritten;
 
     /**
      * Creates a new instance.
@@ -54,6 +66,7 @@ public class CodeWriter extends JavaCodeWriter<Type> {
         callbackFunctionCodeWriter = new CallbackFunctionCodeWriter(generationContext());
         constantCodeWriter = new ConstantCodeWriter(generationContext());
         comInterfaceWriter = new ComInterfaceWriter(generationContext());
+        runtimeCodeWriter = new RuntimeCodeWriter(generationContext());
 
         if (Files.notExists(outputDirectory))
             throw new IllegalArgumentException("Output directory does not exist: " + outputDirectory);
@@ -73,15 +86,20 @@ public class CodeWriter extends JavaCodeWriter<Type> {
 
             // create the file
             var file = fullPath.toFile();
-            return new PrintWriter(new FileWriter(file, StandardCharsets.UTF_8));
+            return createCountingWriter(new FileOutputStream(file));
 
         } catch (IOException exception) {
             throw new UncheckedIOException("Failed to write Java file " + path, exception);
         }
     }
 
-    private static PrintWriter createNullWriter(Path path) {
-        return new PrintWriter(OutputStream.nullOutputStream());
+    private PrintWriter createNullWriter(Path path) {
+        return createCountingWriter(OutputStream.nullOutputStream());
+    }
+
+    private PrintWriter createCountingWriter(OutputStream out) {
+        fileCount += 1;
+        return new PrintWriter(new OutputStreamWriter(new CountingOutputStream(out), StandardCharsets.UTF_8));
     }
 
     /**
@@ -97,6 +115,113 @@ public class CodeWriter extends JavaCodeWriter<Type> {
         generationContext().setBasePackage(basePackage);
     }
 
+    /**
+     * Sets if a Java record with codecs for reading and writing is generated for each struct.
+     * <p>
+     * The record is a snapshot of the struct's field values. Unions, variable size structs and
+     * structs with too many fields for a record are excluded. Initially, it is set to {@code false}.
+     * </p>
+     *
+     * @param structRecords {@code true} to generate struct records
+     */
+    public void setStructRecords(boolean structRecords) {
+        generationContext.setStructRecords(structRecords);
+    }
+
+    /**
+     * Sets if variants throwing an exception on failure are generated for functions returning an error code.
+     * <p>
+     * The variants have the suffix {@code OrThrow} and are generated for functions and COM interface methods
+     * returning {@code HRESULT}, {@code NTSTATUS} or {@code WIN32_ERROR}, and for functions returning
+     * {@code BOOL} and setting the last error. Initially, it is set to {@code false}.
+     * </p>
+     *
+     * @param orThrowVariants {@code true} to generate the variants
+     */
+    public void setOrThrowVariants(boolean orThrowVariants) {
+        generationContext.setOrThrowVariants(orThrowVariants);
+    }
+
+    /**
+     * Sets if handle types are mapped to {@code long}.
+     * <p>
+     * If enabled, handle types such as {@code HANDLE}, {@code HWND} or {@code HKEY} are represented as
+     * {@code long} instead of {@code MemorySegment} in function signatures, struct accessors and constants. Initially, it is set to {@code false}.
+     * </p>
+     *
+     * @param longHandles {@code true} to map handle types to {@code long}
+     */
+    public void setLongHandles(boolean longHandles) {
+        generationContext.setLongHandles(longHandles);
+    }
+
+    /**
+     * Sets the names of the functions for which an async variant is generated.
+     * <p>
+     * The async variants have the suffix {@code Async}, return a {@code CompletableFuture} and
+     * run the function on a bounded pool of platform threads. Initially, the set is empty.
+     * </p>
+     *
+     * @param asyncFunctions the function names
+     */
+    public void setAsyncFunctions(Set<String> asyncFunctions) {
+        generationContext.setAsyncFunctions(asyncFunctions);
+    }
+
+    /**
+     * Sets if a JFR event is recorded for each call of a function or COM interface method.
+     * <p>
+     * The event class {@code NativeCallEvent} is disabled by default and must be enabled in the
+     * JFR recording. Initially, it is set to {@code false}.
+     * </p>
+     *
+     * @param callEvents {@code true} to record call events
+     */
+    public void setCallEvents(boolean callEvents) {
+        generationContext.setCallEvents(callEvents);
+    }
+
+    /**
+     * Sets if the calls of each function and COM interface method are counted.
+     * <p>
+     * The counters can be queried with the runtime class {@code CallCounters}.
+     * Initially, it is set to {@code false}.
+     * </p>
+     *
+     * @param callCounters {@code true} to count calls
+     */
+    public void setCallCounters(boolean callCounters) {
+        generationContext.setCallCounters(callCounters);
+    }
+
+    /**
+     * Sets if a training entry point for creating an AOT cache is generated.
+     * <p>
+     * The runtime class {@code AotTraining} has a {@code main} method initializing all generated
+     * classes and creating their method handles. On platforms other than Windows, the DLLs are not
+     * loaded and the symbols are linked to a stub address. Initially, it is set to {@code false}.
+     * </p>
+     *
+     * @param aotTraining {@code true} to generate the training entry point
+     */
+    public void setAotTraining(boolean aotTraining) {
+        generationContext.setAotTraining(aotTraining);
+    }
+
+    /**
+     * Sets if allocation methods using a slab allocator or a segment pool are generated for structs.
+     * <p>
+     * The methods {@code allocateUninitialized(SlabAllocator)} and {@code acquire(SegmentPool)} return
+     * memory that is not zeroed. They use the runtime classes {@code SlabAllocator} and {@code SegmentPool}.
+     * Initially, it is set to {@code false}.
+     * </p>
+     *
+     * @param pooledAllocation {@code true} to generate the allocation methods
+     */
+    public void setPooledAllocation(boolean pooledAllocation) {
+        generationContext.setPooledAllocation(pooledAllocation);
+    }
+
     /**
      * Sets if this code writer should execute a dry run without creating files and directories.
      * <p>
@@ -106,7 +231,7 @@ public class CodeWriter extends JavaCodeWriter<Type> {
      * @param isDryRun {@code true} for dry run, {@code false} for real run
      */
     public void setDryRun(boolean isDryRun) {
-        generationContext.setWriterFactory(isDryRun ? CodeWriter::createNullWriter : this::createFileWriter);
+        generationContext.setWriterFactory(isDryRun ? this::createNullWriter : this::createFileWriter);
     }
 
     /**
@@ -115,9 +240,12 @@ public class CodeWriter extends JavaCodeWriter<Type> {
      * @param scope the scope
      */
     public void write(Scope scope) {
+        if (scope.isPrunePointerOnlyStructs())
+            generationContext.setPrunedTypeScope(scope.getTransitiveTypeScope());
         scope.getTransitiveTypeScope().forEach(this::writeType);
-        scope.getFunctions().forEach(functionCodeWriter::writeFunctions);
-        scope.getConstants().forEach(constantCodeWriter::writeConstants);
+        timed(Scope.KIND_FUNCTIONS, () -> scope.getFunctions().forEach(functionCodeWriter::writeFunctions));
+        timed(Scope.KIND_CONSTANTS, () -> scope.getConstants().forEach(constantCodeWriter::writeConstants));
+        timed(RUNTIME, this::writeRuntimeClasses);
     }
 
     /**
@@ -130,17 +258,76 @@ public class CodeWriter extends JavaCodeWriter<Type> {
         var metadata = generationContext.metadata();
         metadata.types().forEach(this::writeType);
 
-        metadata.namespaces().values().stream()
+        timed(Scope.KIND_FUNCTIONS, () -> metadata.namespaces().values().stream()
                 .filter(n -> !n.methods().isEmpty())
-                .forEach(namespace -> functionCodeWriter.writeFunctions(namespace, namespace.methods().values()));
+                .forEach(namespace -> functionCodeWriter.writeFunctions(namespace, namespace.methods().values())));
 
-
-        metadata.namespaces().values().stream()
+        timed(Scope.KIND_CONSTANTS, () -> metadata.namespaces().values().stream()
                 .filter(n -> !n.constants().isEmpty())
-                .forEach(namespace -> constantCodeWriter.writeConstants(namespace, namespace.constants().values()));
+                .forEach(namespace -> constantCodeWriter.writeConstants(namespace, namespace.constants().values())));
+
+        timed(RUNTIME, this::writeRuntimeClasses);
+    }
+
+    /**
+     * Gets the number of Java files written so far.
+     * <p>
+     * For a dry run, it is the number of files that would have been written.
+     * </p>
+     *
+     * @return the number of files
+     */
+    public int fileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Gets the number of bytes written to Java files so far.
+     * <p>
+     * For a dry run, it is the number of bytes that would have been written.
+     * </p>
+     *
+     * @return the number of bytes (UTF-8 encoded)
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Gets the time spent in each code writer so far.
+     * <p>
+     * The durations are indexed by the name of the configuration argument for the kind
+     * of the written code, e.g., {@code structs} or {@code functions}, and by {@code runtime}
+     * for the runtime support classes.
+     * </p>
+     *
+     * @return the durations
+     */
+    public Map<String, Duration> writerDurations() {
+        var durations = new LinkedHashMap<String, Duration>();
+        writerNanos.forEach((kind, nanos) -> durations.put(kind, Duration.ofNanos(nanos)));
+        return durations;
+    }
+
+    private void timed(String kind, Runnable action) {
+        var startTime = System.nanoTime();
+        action.run();
+        writerNanos.merge(kind, System.nanoTime() - startTime, Long::sum);
+    }
+
+    private void writeRuntimeClasses() {
+        if (generationContext.aotTraining())
+            runtimeClass(RuntimeCodeWriter.AOT_TRAINING);
+        runtimeCodeWriter.writeRequiredClasses();
     }
 
     private void writeType(Type type) {
+        var kind = Scope.kindOf(type);
+        if (kind != null)
+            timed(kind, () -> writeTypeContent(type));
+    }
+
+    private void writeTypeContent(Type type) {
         switch (type) {
             case Struct struct when struct.namespace() != null -> structCodeWriter.writeStructOrUnion(struct);
             case EnumType enumType -> enumCodeWriter.writeEnum(enumType);
@@ -151,4 +338,22 @@ public class CodeWriter extends JavaCodeWriter<Type> {
             }
         }
     }
+
+    private class CountingOutputStream extends FilterOutputStream {
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytesWritten += 1;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytesWritten += len;
+        }
+    }
 }
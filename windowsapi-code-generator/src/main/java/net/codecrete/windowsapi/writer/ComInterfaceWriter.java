@@ -14,6 +14,8 @@ import net.codecrete.windowsapi.metadata.PrimitiveKind;
 import net.codecrete.windowsapi.metadata.Type;
 import net.codecrete.windowsapi.metadata.TypeAlias;
 
+import java.util.ArrayList;
+
 /**
  * Creates the Java code for COM interfaces.
  */
@@ -47,8 +49,9 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
                 import java.lang.foreign.*;
                 import java.lang.invoke.*;
                 import static java.lang.foreign.ValueLayout.*;
-                
                 """, packageName);
+        writeAddressLayoutsImport(AddressLayout.requiredLayouts(type, generationContext::isPrunedStruct));
+        writer.println();
 
         writeComInterfaceComment();
 
@@ -103,6 +106,13 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
             writeFunctionSignatureParameters(method);
             writer.println(";");
             writer.println();
+
+            var errorKind = getErrorKind(method);
+            if (generationContext.orThrowVariants() && errorKind != null) {
+                commentWriter.writeFunctionComment(writer, method, "COM interface method", getOrThrowNote(errorKind));
+                writeOrThrowVariant(method, methodName, "default ",
+                        type.nativeName() + "." + method.nativeName(), errorKind);
+            }
         }
     }
 
@@ -117,11 +127,6 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
                     AddressLayout %1$s$ADDRESS_LAYOUT = ADDRESS.withTargetLayout(%1$s$COM_OBJECT_LAYOUT);
                 
                 """, className, methodOffset + type.methods().size());
-
-        AddressLayout.requiredLayouts(type).forEach(layoutType ->
-                writeAddressLayoutInitialization(layoutType, ""));
-        writer.println();
-
     }
 
     private void writeIidInnerClass() {
@@ -188,6 +193,14 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
                     }
                 
                 """, toJavaClassName(type.name()), methodNames.length);
+
+        var holderClasses = new ArrayList<String>();
+        final var methodOffset = getNumSuperMethods(type);
+        for (int i = 0; i < type.methods().size(); i++)
+            holderClasses.add("VFUNC" + (methodOffset + i) + "$IMPL");
+        holderClasses.add("$DOWNCALL");
+        holderClasses.add("$UPCALL_IMPL");
+        writeWarmUpMethod(className, "static ", holderClasses);
     }
 
     private void writeDowncallWrapper(String[] methodNames, String extendsInterface) {
@@ -244,7 +257,8 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
                     " comObject";
             if (method.parameters().length > 0)
                 invokeString += ", ";
-            writeInvoke(method, invokeString, 12);
+            writeInstrumentedInvoke(method, innerClassName + "$IMPL", invokeString,
+                    type.nativeName() + "." + method.nativeName(), 12);
             writer.println("        }");
             writer.println();
         }
@@ -267,6 +281,11 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
         // method handle
         writer.print("""
                         private static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(DESC);
+                """);
+
+        // call counter and end of inner class
+        writeCallCounter(type.nativeName() + "." + method.nativeName());
+        writer.print("""
                     }
                 
                 """);
@@ -420,7 +439,7 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
      * @param comInterface the COM interface
      * @return the method name array
      */
-    private static String[] getAllMethodNames(ComInterface comInterface) {
+    private String[] getAllMethodNames(ComInterface comInterface) {
         var methodCount = getNumSuperMethods(comInterface) + comInterface.methods().size();
         var methodNames = new String[methodCount];
         collectMethodNames(comInterface, methodNames);
@@ -440,7 +459,7 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
      * @return the number of collected methods
      */
     @SuppressWarnings("java:S3776")
-    private static int collectMethodNames(ComInterface comInterface, String[] methodNames) {
+    private int collectMethodNames(ComInterface comInterface, String[] methodNames) {
         var methods = getAllMethods(comInterface);
 
         int numSuperMethods = 0;
@@ -485,7 +504,7 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
      * @param method the method
      * @return signature key
      */
-    private static long getSignatureKey(Method method) {
+    private long getSignatureKey(Method method) {
         var index = (long) method.parameters().length;
         for (var param : method.parameters()) {
             index = (index << 4) | getJavaTypeKey(param.type());
@@ -493,10 +512,11 @@ class ComInterfaceWriter extends FunctionCodeWriterBase<ComInterface> {
         return index;
     }
 
-    private static long getJavaTypeKey(Type type) {
+    private long getJavaTypeKey(Type type) {
         return switch (type) {
             case Primitive primitive -> getPrimitiveJavaTypeIndex(primitive);
             case EnumType enumType -> getPrimitiveJavaTypeIndex(enumType.baseType());
+            case TypeAlias typeAlias when isLongHandle(typeAlias) -> 1;
             case TypeAlias typeAlias -> getJavaTypeKey(typeAlias.aliasedType());
             default -> 0;
         };
@@ -85,6 +85,20 @@ class CommentWriter {
      * @param label    the label for the function or similar construct
      */
     void writeFunctionComment(PrintWriter writer, Method function, String label) {
+        writeFunctionComment(writer, function, label, function.supportsLastError()
+                ? "The additional first parameter takes a memory segment to capture the call state (replacement for {@code GetLastError()})."
+                : null);
+    }
+
+    /**
+     * Writes a Java comment for a function including the C signature as a snippet and an additional note.
+     *
+     * @param writer   the writer
+     * @param function the method
+     * @param label    the label for the function or similar construct
+     * @param note     the note to add as a separate paragraph (or {@code null})
+     */
+    void writeFunctionComment(PrintWriter writer, Method function, String label, String note) {
         writer.printf("""
                     /**
                      * {@code %2$s} %1$s
@@ -101,12 +115,12 @@ class CommentWriter {
                      * </p>
                 """);
 
-        if (function.supportsLastError())
-            writer.print("""
+        if (note != null)
+            writer.printf("""
                          * <p>
-                         * The additional first parameter takes a memory segment to capture the call state (replacement for {@code GetLastError()}).
+                         * %s
                          * </p>
-                    """);
+                    """, note);
 
         writeDocumentationUrl(writer, function);
 
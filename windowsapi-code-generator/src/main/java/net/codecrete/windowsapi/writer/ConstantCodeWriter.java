@@ -137,14 +137,13 @@ class ConstantCodeWriter extends JavaCodeWriter<Type> {
         ) == 0;
 
         var stringType = String.format("%s, null-terminated", constant.isAnsiEncoding() ? "ANSI" : "UTF-16");
-        writer.printf("    private static final MemorySegment %s$SEG = ARENA.allocateFrom(\"%s\"%s);%n%n",
-                constant.name(),
+        writeSegmentHolder(constant.name(), String.format("ARENA.allocateFrom(\"%s\"%s)",
                 value
                         .replace("\\", "\\\\")
                         .replace("\n", "\\n")
                         .replace("\r", "\\r"),
                 !constant.isAnsiEncoding() ? ", java.nio.charset.StandardCharsets.UTF_16LE" : ""
-        );
+        ));
 
         writer.printf("""
                     /**
@@ -155,7 +154,7 @@ class ConstantCodeWriter extends JavaCodeWriter<Type> {
     }
 
     private void writeGuidConstant(ConstantValue constant) {
-        writeGuidConstantMemorySegment(constant.name(), (UUID) constant.value(), 4);
+        writeSegmentHolder(constant.name(), getCreateGuidExpression((UUID) constant.value()));
 
         writer.printf("""
                     /**
@@ -185,10 +184,7 @@ class ConstantCodeWriter extends JavaCodeWriter<Type> {
 
         var v3 = numbers[11].intValue();
 
-        writer.printf("""
-                    private static final MemorySegment %s$SEG = createPropertyKey(%dL, %dL, %d);
-                
-                """, constant.name(), v1, v2, v3);
+        writeSegmentHolder(constant.name(), String.format("createPropertyKey(%dL, %dL, %d)", v1, v2, v3));
 
         writer.printf("""
                     /**
@@ -201,14 +197,11 @@ class ConstantCodeWriter extends JavaCodeWriter<Type> {
     private void writeByteArrayConstant(ConstantValue constant) {
         var numbers = parseNumbers(constant.value().toString());
 
-        writer.printf("    private static final MemorySegment %s$SEG = ARENA.allocateFrom(ValueLayout.JAVA_BYTE",
-                constant.name());
-        for (var number : numbers) {
-            writer.print(", (byte) ");
-            writer.print(number.intValue());
-        }
-        writer.println(");");
-        writer.println();
+        var initializer = new StringBuilder("ARENA.allocateFrom(ValueLayout.JAVA_BYTE");
+        for (var number : numbers)
+            initializer.append(", (byte) ").append(number.intValue());
+        initializer.append(")");
+        writeSegmentHolder(constant.name(), initializer.toString());
 
         writer.printf("""
                     /**
@@ -220,10 +213,8 @@ class ConstantCodeWriter extends JavaCodeWriter<Type> {
 
     private void writePointerStruct(ConstantValue constant) {
         // The struct consists of a single pointer (address).
-        writer.printf("""
-                    private static final MemorySegment %s$SEG = ARENA.allocateFrom(ValueLayout.JAVA_LONG, %sL);
-                
-                """, constant.name(), constant.value());
+        writeSegmentHolder(constant.name(), String.format("ARENA.allocateFrom(ValueLayout.JAVA_LONG, %sL)",
+                constant.value()));
 
         writer.printf("""
                     /**
@@ -242,10 +233,29 @@ class ConstantCodeWriter extends JavaCodeWriter<Type> {
         return Arrays.stream(numbers).map(Long::parseLong).toArray(Long[]::new);
     }
 
+    /**
+     * Writes a holder class for a constant memory segment.
+     * <p>
+     * The memory segment is only allocated and initialized when the constant is accessed for the first time
+     * (lazy holder idiom). So accessing a constant does not materialize the other constants of the namespace.
+     * </p>
+     *
+     * @param name        the constant name
+     * @param initializer the Java expression creating the memory segment
+     */
+    private void writeSegmentHolder(String name, String initializer) {
+        writer.printf("""
+                    private static final class %s$SEG {
+                        static final MemorySegment SEG = %s;
+                    }
+                
+                """, name, initializer);
+    }
+
     private void writeMemorySegmentConstant(String name) {
         writer.printf("""
                     public static MemorySegment %1$s() {
-                        return %1$s$SEG;
+                        return %1$s$SEG.SEG;
                     }
                 
                 """, name);
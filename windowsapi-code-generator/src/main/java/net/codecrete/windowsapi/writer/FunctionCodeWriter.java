@@ -6,14 +6,22 @@
 //
 package net.codecrete.windowsapi.writer;
 
+import net.codecrete.windowsapi.metadata.ComInterface;
+import net.codecrete.windowsapi.metadata.Delegate;
+import net.codecrete.windowsapi.metadata.EnumType;
 import net.codecrete.windowsapi.metadata.Method;
 import net.codecrete.windowsapi.metadata.Namespace;
+import net.codecrete.windowsapi.metadata.Parameter;
 import net.codecrete.windowsapi.metadata.Pointer;
+import net.codecrete.windowsapi.metadata.Primitive;
+import net.codecrete.windowsapi.metadata.PrimitiveKind;
 import net.codecrete.windowsapi.metadata.Type;
 import net.codecrete.windowsapi.metadata.TypeAlias;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Creates the Java code for the functions in a given namespace.
@@ -22,6 +30,15 @@ class FunctionCodeWriter extends FunctionCodeWriterBase<Type> {
 
     private static final String CALL_STATE_NOTE = "The additional first parameter takes a memory segment to capture " +
             "the call state (replacement for {@code GetLastError()}).";
+    private static final String OUT_PARAMETERS_NOTE = "The values of the out parameters %s are returned in " +
+            "the result record. Pure out parameters are omitted from the parameter list; for in/out parameters, " +
+            "the initial value is passed. The memory for these parameters is allocated from a thread-local " +
+            "scratch allocator.";
+    private static final String ASYNC_NOTE = "The function is called on a bounded pool of platform threads " +
+            "(see {@link %s}) so it does not pin the carrier thread of a virtual thread. Memory segments passed " +
+            "as arguments must be accessible from other threads (e.g. allocated with a shared or automatic arena).";
+    private static final String THREAD_LOCAL_CALL_STATE_NOTE = "The call state is captured in a thread-local " +
+            "memory segment. The error code can be retrieved with {@link #lastError()}.";
 
     private final CommentWriter commentWriter = new CommentWriter();
 
@@ -49,9 +66,12 @@ class FunctionCodeWriter extends FunctionCodeWriterBase<Type> {
                 
                 import java.lang.foreign.*;
                 import java.lang.invoke.MethodHandle;
-                import static java.lang.foreign.ValueLayout.*;
-                
                 """, packageName);
+        if (functions.stream().anyMatch(this::hasAsyncVariant))
+            writer.println("import java.util.concurrent.CompletableFuture;");
+        writer.println("import static java.lang.foreign.ValueLayout.*;");
+        writeAddressLayoutsImport(AddressLayout.requiredLayouts(functions, generationContext::isPrunedStruct));
+        writer.println();
 
         writeApiComment();
 
@@ -60,11 +80,19 @@ class FunctionCodeWriter extends FunctionCodeWriterBase<Type> {
                 
                 """);
 
+        // with AOT training, linking can be stubbed to run the training on other platforms
+        var aotTraining = generationContext.aotTraining() ? runtimeClass(RuntimeCodeWriter.AOT_TRAINING) : null;
+        var indent = aotTraining != null ? "        " : "    ";
+
         writer.println("    static {");
+        if (aotTraining != null)
+            writer.printf("        if (!%s.isStubbed()) {%n", aotTraining);
         functions.stream().map(Method::dll).filter(Objects::nonNull).distinct().sorted().forEach(dll ->
                 writer.printf("""
-                                System.loadLibrary("%s");
-                        """, dllName(dll)));
+                        %s    System.loadLibrary("%s");
+                        """, indent, dllName(dll)));
+        if (aotTraining != null)
+            writer.println("        }");
         writer.print("""
                     }
                 
@@ -72,23 +100,40 @@ class FunctionCodeWriter extends FunctionCodeWriterBase<Type> {
 
         boolean usesLastError = anyFunctionUsesLastError(functions);
 
+        if (aotTraining != null) {
+            writer.printf("""
+                        private static final SymbolLookup SYMBOL_LOOKUP = %s.symbolLookup(SymbolLookup.loaderLookup());
+                    """, aotTraining);
+        } else {
+            writer.print("""
+                        private static final SymbolLookup SYMBOL_LOOKUP = SymbolLookup.loaderLookup();
+                    """);
+        }
         writer.print("""
-                    private static final SymbolLookup SYMBOL_LOOKUP = SymbolLookup.loaderLookup();
                     private static final Linker LINKER = Linker.nativeLinker();
                 """);
-        if (usesLastError)
+        if (usesLastError && aotTraining != null)
+            writer.printf("""
+                        private static final Linker.Option LAST_ERROR_STATE = %s.lastErrorState();
+                    """, aotTraining);
+        else if (usesLastError)
             writer.print("""
                         private static final Linker.Option LAST_ERROR_STATE = Linker.Option.captureCallState("GetLastError");
                     """);
 
-        AddressLayout.requiredLayouts(functions).forEach(layoutType ->
-                writeAddressLayoutInitialization(layoutType, "private static final "));
-
         writer.println();
 
         for (var method : functions)
             writeFunction(method);
 
+        writeWarmUpMethod("Apis", "public static ", functions.stream()
+                .filter(method -> method.dll() != null)
+                .map(method -> method.name() + "$IMPL")
+                .toList());
+
+        if (usesLastError)
+            writeLastErrorAccessor();
+
         writer.println("}");
     }
 
@@ -117,15 +162,287 @@ class FunctionCodeWriter extends FunctionCodeWriterBase<Type> {
         if (isInlined) {
             assert method.constantValue() instanceof String;
             assert method.returnType() instanceof TypeAlias typeAlias && typeAlias.aliasedType() instanceof Pointer;
-            writer.printf("        return MemorySegment.ofAddress(%s);", method.constantValue());
+            if (isLongHandle(method.returnType()))
+                writer.printf("        return %sL;", method.constantValue());
+            else
+                writer.printf("        return MemorySegment.ofAddress(%s);", method.constantValue());
         } else {
-            writeInvoke(method, methodName + "$IMPL.HANDLE.invokeExact(", 8);
+            writeInstrumentedInvoke(method, methodName + "$IMPL", methodName + "$IMPL.HANDLE.invokeExact(",
+                    method.nativeName(), 8);
+        }
+
+        writer.println("    }");
+        writer.println();
+
+        if (method.supportsLastError())
+            writeThreadLocalCallStateOverload(method);
+
+        if (!isInlined)
+            writeOutParameterOverload(method);
+
+        var errorKind = getErrorKind(method);
+        if (generationContext.orThrowVariants() && !isInlined && errorKind != null) {
+            commentWriter.writeFunctionComment(writer, method, "function", getOrThrowNote(errorKind));
+            writeOrThrowVariant(method, methodName, "public static ", method.nativeName(), errorKind);
+        }
+
+        if (hasAsyncVariant(method))
+            writeAsyncVariant(method);
+    }
+
+    private boolean hasAsyncVariant(Method method) {
+        return method.dll() != null && generationContext.asyncFunctions().contains(method.nativeName());
+    }
+
+    /**
+     * Writes a variant of the function returning a {@code CompletableFuture}.
+     * <p>
+     * The variant runs the function on the bounded platform thread pool of the runtime class
+     * {@code BlockingCalls}. It has the same parameters as the function.
+     * </p>
+     *
+     * @param method the function
+     */
+    private void writeAsyncVariant(Method method) {
+        var blockingCalls = runtimeClass(RuntimeCodeWriter.BLOCKING_CALLS);
+        var note = String.format(ASYNC_NOTE, blockingCalls);
+        if (method.supportsLastError())
+            note = CALL_STATE_NOTE + "\n     * </p>\n     * <p>\n     * " + note;
+        commentWriter.writeFunctionComment(writer, method, "function", note);
+
+        var methodName = method.name();
+        writer.printf("    public static CompletableFuture<%s> %sAsync(",
+                method.hasReturnType() ? getBoxedJavaType(method.returnType()) : "Void",
+                methodName);
+        writeFunctionSignatureParameters(method);
+        writer.println(" {");
+
+        writer.printf("        return %s.%s(() -> %s(",
+                blockingCalls,
+                method.hasReturnType() ? "supplyAsync" : "runAsync",
+                methodName);
+        var isFirst = true;
+        if (method.supportsLastError()) {
+            writer.print("lastErrorState");
+            isFirst = false;
         }
+        for (var parameter : method.parameters()) {
+            writer.printf("%s%s", isFirst ? "" : ", ", getJavaSafeName(parameter.name()));
+            isFirst = false;
+        }
+        writer.println("));");
 
         writer.println("    }");
         writer.println();
     }
 
+    private String getBoxedJavaType(Type type) {
+        var javaType = getJavaType(type);
+        return switch (javaType) {
+            case "byte" -> "Byte";
+            case "short" -> "Short";
+            case "int" -> "Integer";
+            case "long" -> "Long";
+            case "char" -> "Character";
+            case "float" -> "Float";
+            case "double" -> "Double";
+            case "boolean" -> "Boolean";
+            default -> javaType;
+        };
+    }
+
+    /**
+     * Writes an overload of the function without the {@code lastErrorState} parameter.
+     * <p>
+     * The overload captures the call state in the thread-local call state segment.
+     * </p>
+     *
+     * @param method the function
+     */
+    private void writeThreadLocalCallStateOverload(Method method) {
+        commentWriter.writeFunctionComment(writer, method, "function", THREAD_LOCAL_CALL_STATE_NOTE);
+
+        var methodName = method.name();
+        writer.print("    public static ");
+        writeFunctionSignatureIntro(method, methodName);
+        writeParameters(method.parameters());
+        writer.println(" {");
+
+        writer.printf("        %s%s(%s.lastErrorState()",
+                method.hasReturnType() ? "return " : "",
+                methodName,
+                runtimeClass(RuntimeCodeWriter.CALL_STATE));
+        for (var parameter : method.parameters())
+            writer.printf(", %s", getJavaSafeName(parameter.name()));
+        writer.println(");");
+
+        writer.println("    }");
+        writer.println();
+    }
+
+    /**
+     * Writes an overload of the function returning the values of the out parameters in a result record.
+     * <p>
+     * The overload is only written if the function has out parameters pointing to a single primitive value,
+     * enumeration value or pointer. The memory for the out parameters is taken from the thread-local
+     * scratch allocator. Pure out parameters are removed from the parameter list while in/out parameters
+     * take the initial value.
+     * </p>
+     *
+     * @param method the function
+     */
+    private void writeOutParameterOverload(Method method) {
+        var parameters = method.parameters();
+        var outParameters = Arrays.stream(parameters).filter(FunctionCodeWriter::isScalarOutParameter).toList();
+        if (outParameters.isEmpty())
+            return;
+
+        // the overload must not clash with the other overloads
+        var overloadParameters = Arrays.stream(parameters)
+                .filter(parameter -> !isScalarOutParameter(parameter) || parameter.isIn())
+                .toList();
+        var overloadParameterTypes = overloadParameters.stream().map(this::getOverloadJavaType).toList();
+        var functionParameterTypes = Arrays.stream(parameters).map(parameter -> getJavaType(parameter.type())).toList();
+        if (overloadParameterTypes.equals(functionParameterTypes))
+            return;
+
+        var methodName = method.name();
+        var resultName = methodName + "$Result";
+        var returnValueName = outParameters.stream().anyMatch(parameter -> parameter.name().equals("result"))
+                ? "result_" : "result";
+
+        // overload
+        commentWriter.writeFunctionComment(writer, method, "function", String.format(OUT_PARAMETERS_NOTE,
+                outParameters.stream().map(parameter -> "{@code " + parameter.name() + "}")
+                        .collect(Collectors.joining(", "))));
+
+        writer.printf("    public static %s %s(", resultName, methodName);
+        for (int i = 0; i < overloadParameters.size(); i += 1) {
+            writer.printf("%s%s %s",
+                    i > 0 ? ", " : "",
+                    overloadParameterTypes.get(i),
+                    getJavaSafeName(overloadParameters.get(i).name()));
+        }
+        writer.printf("""
+                ) {
+                        var $scratch = %s.current();
+                        var $mark = $scratch.mark();
+                        try {
+                """, runtimeClass(RuntimeCodeWriter.SCRATCH_ALLOCATOR));
+
+        for (var parameter : outParameters) {
+            var name = getJavaSafeName(parameter.name());
+            var layout = getOutValueLayoutName(parameter);
+            writer.printf("            var %s$seg = $scratch.allocate(%s);%n", name, layout);
+            if (parameter.isIn())
+                writer.printf("            %s$seg.set(%s, 0, %s);%n", name, layout, name);
+        }
+
+        writer.printf("            %s%s(", method.hasReturnType() ? "var $result = " : "", methodName);
+        for (int i = 0; i < parameters.length; i += 1) {
+            var name = getJavaSafeName(parameters[i].name());
+            writer.printf("%s%s%s", i > 0 ? ", " : "", name, isScalarOutParameter(parameters[i]) ? "$seg" : "");
+        }
+        writer.println(");");
+
+        writer.printf("            return new %s(", resultName);
+        if (method.hasReturnType())
+            writer.print("$result");
+        for (int i = 0; i < outParameters.size(); i += 1) {
+            var parameter = outParameters.get(i);
+            writer.printf("%s%s$seg.get(%s, 0)",
+                    i > 0 || method.hasReturnType() ? ", " : "",
+                    getJavaSafeName(parameter.name()),
+                    getOutValueLayoutName(parameter));
+        }
+        writer.println(");");
+
+        writer.print("""
+                        } finally {
+                            $scratch.reset($mark);
+                        }
+                    }
+                
+                """);
+
+        // result record
+        writer.printf("""
+                    /**
+                     * Result of {@code %s} with the values of the out parameters
+                     *
+                """, method.nativeName());
+        if (method.hasReturnType())
+            writer.printf("     * @param %s the return value%n", returnValueName);
+        for (var parameter : outParameters)
+            writer.printf("     * @param %s the value of the out parameter {@code %s}%n",
+                    getJavaSafeName(parameter.name()), parameter.name());
+        writer.println("     */");
+
+        writer.printf("    public record %s(", resultName);
+        if (method.hasReturnType())
+            writer.printf("%s %s", getJavaType(method.returnType()), returnValueName);
+        for (int i = 0; i < outParameters.size(); i += 1) {
+            var parameter = outParameters.get(i);
+            writer.printf("%s%s %s",
+                    i > 0 || method.hasReturnType() ? ", " : "",
+                    getJavaType(getOutValueType(parameter)),
+                    getJavaSafeName(parameter.name()));
+        }
+        writer.println(") {}");
+        writer.println();
+    }
+
+    /**
+     * Checks if the parameter is an out parameter pointing to a single primitive value, enumeration value or
+     * pointer.
+     *
+     * @param parameter the parameter
+     * @return {@code true} if it is a scalar out parameter, {@code false} otherwise
+     */
+    private static boolean isScalarOutParameter(Parameter parameter) {
+        if (!parameter.isOut() || parameter.isArray() || !(parameter.type() instanceof Pointer pointer))
+            return false;
+
+        return switch (pointer.referencedType()) {
+            case Primitive primitive -> primitive.kind() != PrimitiveKind.VOID && primitive.kind() != PrimitiveKind.STRING;
+            case EnumType ignored -> true;
+            case TypeAlias ignored -> true;
+            case Pointer ignored -> true;
+            case Delegate ignored -> true;
+            case ComInterface ignored -> true;
+            default -> false;
+        };
+    }
+
+    private static Type getOutValueType(Parameter parameter) {
+        return ((Pointer) parameter.type()).referencedType();
+    }
+
+    private String getOverloadJavaType(Parameter parameter) {
+        return isScalarOutParameter(parameter)
+                ? getJavaType(getOutValueType(parameter))
+                : getJavaType(parameter.type());
+    }
+
+    private String getOutValueLayoutName(Parameter parameter) {
+        var valueType = getOutValueType(parameter);
+        // pointers are read as zero-length segments (like the return values of functions)
+        if (getJavaType(valueType).equals("MemorySegment"))
+            return "ADDRESS";
+        return getLayoutName(valueType, namespace);
+    }
+
+    private void writeLastErrorAccessor() {
+        writeCommentWithNotes("Gets the error code captured by the most recent call of the current thread.",
+                "Only calls of the function overloads without the {@code lastErrorState} parameter update this error code.");
+        writer.printf("""
+                    public static int lastError() {
+                        return %s.lastError();
+                    }
+                
+                """, runtimeClass(RuntimeCodeWriter.CALL_STATE));
+    }
+
     private void writeFunctionInnerClass(Method method) {
         var methodName = method.name();
 
@@ -135,14 +452,19 @@ class FunctionCodeWriter extends FunctionCodeWriterBase<Type> {
         writeFunctionDescriptor(method, null);
         writer.println(";");
 
-        // method handle and end of inner class
+        // method handle
         writer.printf("""
                                 private static final MethodHandle HANDLE = LINKER.downcallHandle(SYMBOL_LOOKUP.findOrThrow("%s"), DESC%s);
-                            }
-                        
                         """,
                 method.nativeName(),
                 method.supportsLastError() ? ", LAST_ERROR_STATE" : "");
+
+        // call counter and end of inner class
+        writeCallCounter(method.nativeName());
+        writer.print("""
+                    }
+                
+                """);
     }
 
     private void writeFunctionDescriptorAndHandle(Method method) {
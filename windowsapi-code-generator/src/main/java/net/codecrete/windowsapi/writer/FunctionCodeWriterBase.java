@@ -6,8 +6,14 @@
 //
 package net.codecrete.windowsapi.writer;
 
+import net.codecrete.windowsapi.metadata.EnumType;
 import net.codecrete.windowsapi.metadata.Method;
+import net.codecrete.windowsapi.metadata.Parameter;
 import net.codecrete.windowsapi.metadata.Type;
+import net.codecrete.windowsapi.metadata.TypeAlias;
+
+import java.util.List;
+import java.util.Set;
 
 /**
  * Base class for code writers generating function descriptors and calls.
@@ -16,6 +22,42 @@ import net.codecrete.windowsapi.metadata.Type;
  */
 class FunctionCodeWriterBase<T extends Type> extends JavaCodeWriter<T> {
 
+    /**
+     * Kind of error reporting of a function.
+     */
+    protected enum ErrorKind {
+        /**
+         * Returns an {@code HRESULT}; negative values indicate a failure.
+         */
+        HRESULT,
+        /**
+         * Returns an {@code NTSTATUS}; negative values indicate a failure.
+         */
+        NTSTATUS,
+        /**
+         * Returns a {@code WIN32_ERROR}; all values except {@code ERROR_SUCCESS} indicate a failure.
+         */
+        WIN32_ERROR,
+        /**
+         * Returns a {@code BOOL}; {@code FALSE} indicates a failure, and the error code is the last error.
+         */
+        LAST_ERROR,
+        /**
+         * Returns a {@code BOOL} with three states (nonzero, zero and -1); only -1 indicates a failure,
+         * and the error code is the last error.
+         */
+        TRI_STATE_LAST_ERROR
+    }
+
+    /**
+     * Functions returning a {@code BOOL} with three states.
+     * <p>
+     * For these functions, {@code FALSE} is a regular result (e.g., {@code WM_QUIT} for {@code GetMessage}),
+     * and -1 indicates a failure.
+     * </p>
+     */
+    private static final Set<String> TRI_STATE_BOOL_FUNCTIONS = Set.of("GetMessageA", "GetMessageW");
+
     /**
      * Creates a new instance.
      *
@@ -96,6 +138,127 @@ class FunctionCodeWriterBase<T extends Type> extends JavaCodeWriter<T> {
         writer.print(")");
     }
 
+    /**
+     * Writes the given parameters of a Java method signature (without opening parenthesis, but with closing
+     * parenthesis)
+     *
+     * @param parameters the parameters
+     */
+    protected void writeParameters(Parameter[] parameters) {
+        for (int i = 0; i < parameters.length; i += 1) {
+            writer.printf("%s%s %s",
+                    i > 0 ? ", " : "",
+                    getJavaType(parameters[i].type()),
+                    getJavaSafeName(parameters[i].name()));
+        }
+        writer.print(")");
+    }
+
+    /**
+     * Gets how the given function reports errors.
+     *
+     * @param method the function
+     * @return the kind of error reporting, or {@code null} if the function does not return an error code
+     */
+    protected static ErrorKind getErrorKind(Method method) {
+        if (!method.hasReturnType())
+            return null;
+
+        return switch (method.returnType()) {
+            case TypeAlias alias when alias.name().equals("HRESULT") -> ErrorKind.HRESULT;
+            case TypeAlias alias when alias.name().equals("NTSTATUS") -> ErrorKind.NTSTATUS;
+            case TypeAlias alias when alias.name().equals("BOOL") && method.supportsLastError() ->
+                    TRI_STATE_BOOL_FUNCTIONS.contains(method.nativeName())
+                            ? ErrorKind.TRI_STATE_LAST_ERROR : ErrorKind.LAST_ERROR;
+            case EnumType enumType when enumType.name().equals("WIN32_ERROR") -> ErrorKind.WIN32_ERROR;
+            default -> null;
+        };
+    }
+
+    /**
+     * Gets the note for the comment of the variant throwing an exception on failure.
+     *
+     * @param errorKind the kind of error reporting
+     * @return the note
+     */
+    protected String getOrThrowNote(ErrorKind errorKind) {
+        var exceptionClass = runtimeClass(RuntimeCodeWriter.WINDOWS_EXCEPTION);
+        return switch (errorKind) {
+            case HRESULT, NTSTATUS -> String.format("If the returned {@code %1$s} indicates a failure, a "
+                    + "{@link %2$s} is thrown. Otherwise, the {@code %1$s} is returned.", errorKind.name(), exceptionClass);
+            case WIN32_ERROR -> String.format("If the returned error code is not {@code ERROR_SUCCESS}, a "
+                    + "{@link %s} is thrown.", exceptionClass);
+            case LAST_ERROR -> String.format("If the function returns {@code FALSE}, a {@link %s} with the "
+                    + "last error code is thrown.", exceptionClass);
+            case TRI_STATE_LAST_ERROR -> String.format("If the function returns -1, a {@link %s} with the "
+                    + "last error code is thrown. Otherwise, the result ({@code TRUE} or {@code FALSE}) "
+                    + "is returned.", exceptionClass);
+        };
+    }
+
+    /**
+     * Writes the variant of the function throwing an exception on failure.
+     * <p>
+     * The variant calls the function (or, for functions setting the last error, the overload using the
+     * thread-local call state) and checks the result. The exception is created in a separate method of the
+     * runtime support class so the variant remains small enough to be inlined.
+     * </p>
+     *
+     * @param method     the function
+     * @param methodName the Java name of the function
+     * @param modifiers  the modifiers of the variant (including a trailing space)
+     * @param label      the function name used in the exception message
+     * @param errorKind  the kind of error reporting
+     */
+    protected void writeOrThrowVariant(Method method, String methodName, String modifiers, String label,
+                                       ErrorKind errorKind) {
+        var returnsResult = errorKind == ErrorKind.HRESULT || errorKind == ErrorKind.NTSTATUS
+                || errorKind == ErrorKind.TRI_STATE_LAST_ERROR;
+        writer.printf("    %s%s %sOrThrow(", modifiers, returnsResult ? "int" : "void", methodName);
+        writeParameters(method.parameters());
+        writer.println(" {");
+
+        writer.printf("        var $result = %s(", methodName);
+        var parameters = method.parameters();
+        for (int i = 0; i < parameters.length; i += 1) {
+            writer.print(i > 0 ? ", " : "");
+            writer.print(getJavaSafeName(parameters[i].name()));
+        }
+        writer.println(");");
+
+        // the exception class refers to the call state class
+        var exceptionClass = runtimeClass(RuntimeCodeWriter.WINDOWS_EXCEPTION);
+        runtimeClass(RuntimeCodeWriter.CALL_STATE);
+        switch (errorKind) {
+            case HRESULT -> writer.printf("""
+                            if ($result < 0)
+                                throw %s.hresult("%s", $result);
+                            return $result;
+                    """, exceptionClass, label);
+            case NTSTATUS -> writer.printf("""
+                            if ($result < 0)
+                                throw %s.ntStatus("%s", $result);
+                            return $result;
+                    """, exceptionClass, label);
+            case WIN32_ERROR -> writer.printf("""
+                            if ($result != 0)
+                                throw %s.win32Error("%s", $result);
+                    """, exceptionClass, label);
+            case LAST_ERROR -> writer.printf("""
+                            if ($result == 0)
+                                throw %s.lastError("%s");
+                    """, exceptionClass, label);
+            case TRI_STATE_LAST_ERROR -> writer.printf("""
+                            if ($result == -1)
+                                throw %s.lastError("%s");
+                            return $result;
+                    """, exceptionClass, label);
+        }
+
+        writer.println("    }");
+        writer.println();
+    }
+
     /**
      * Writes the Java code for invoking a native function through a method handle.
      *
@@ -112,7 +275,122 @@ class FunctionCodeWriterBase<T extends Type> extends JavaCodeWriter<T> {
         writer.printf("""
                 %1$stry {
                 %1$s    %2$s%3$s""", indent, returnWithCast, invoke);
+        writeInvokeArguments(function);
 
+        writer.printf("""
+                %1$s} catch (Throwable ex) {
+                %1$s    throw new RuntimeException(ex);
+                %1$s}
+                """, indent);
+    }
+
+    /**
+     * Writes the Java code for invoking a native function through a method handle,
+     * including the call instrumentation if enabled.
+     * <p>
+     * If call counters are enabled, the counter {@code CALLS} of the inner class is incremented.
+     * If call events are enabled, a JFR event is recorded for the call.
+     * </p>
+     *
+     * @param function  the function
+     * @param implClass the name of the inner class with the method handle and the call counter
+     * @param invoke    the name of the method handle to invoke
+     * @param label     the function name used for the event
+     * @param indenting the indenting (number of spaces)
+     */
+    protected void writeInstrumentedInvoke(Method function, String implClass, String invoke, String label,
+                                           int indenting) {
+        var indent = getIndent(indenting);
+        if (generationContext.callCounters())
+            writer.printf("%s%s.CALLS.increment();%n", indent, implClass);
+
+        if (!generationContext.callEvents()) {
+            writeInvoke(function, invoke, indenting);
+            return;
+        }
+
+        var resultWithCast = function.hasReturnType()
+                ? String.format("var $result = (%s) ", getJavaType(function.returnType()))
+                : "";
+        writer.printf("""
+                %1$svar $event = new %2$s();
+                %1$s$event.begin();
+                %1$stry {
+                %1$s    %3$s%4$s""", indent, runtimeClass(RuntimeCodeWriter.NATIVE_CALL_EVENT), resultWithCast, invoke);
+        writeInvokeArguments(function);
+
+        var dll = function.dll() != null ? "\"" + function.dll() + "\"" : "null";
+        var errorKind = getErrorKind(function);
+        String errorCode;
+        if (function.supportsLastError())
+            errorCode = ", lastErrorState";
+        else if (errorKind != null)
+            errorCode = ", $result";
+        else
+            errorCode = "";
+        writer.printf("%s    $event.complete(\"%s\", %s%s);%n", indent, label, dll, errorCode);
+        if (function.hasReturnType())
+            writer.printf("%s    return $result;%n", indent);
+
+        writer.printf("""
+                %1$s} catch (Throwable ex) {
+                %1$s    throw new RuntimeException(ex);
+                %1$s}
+                """, indent);
+    }
+
+    /**
+     * Writes the Java code for creating the call counter of a function.
+     * <p>
+     * The counter is only written if call counters are enabled.
+     * </p>
+     *
+     * @param label the function name used for the counter
+     */
+    protected void writeCallCounter(String label) {
+        if (!generationContext.callCounters())
+            return;
+
+        writer.printf("""
+                        private static final java.util.concurrent.atomic.LongAdder CALLS = %s.register("%s");
+                """, runtimeClass(RuntimeCodeWriter.CALL_COUNTERS), label);
+    }
+
+    /**
+     * Writes the {@code warmUp()} method initializing the given holder classes.
+     * <p>
+     * The class is registered so the runtime support class {@code Bindings} calls the method.
+     * </p>
+     *
+     * @param className     the name of the class containing the method
+     * @param modifiers     the modifiers of the method (including a trailing space)
+     * @param holderClasses the names of the holder classes to initialize
+     */
+    protected void writeWarmUpMethod(String className, String modifiers, List<String> holderClasses) {
+        runtimeClass(RuntimeCodeWriter.BINDINGS);
+        generationContext.requireWarmUpClass(packageName + "." + className);
+
+        writeCommentWithNotes("Initializes the method handles of this class in advance.",
+                "Otherwise, they are created on first use, and the first call pays for the symbol lookup and the linking.");
+        writer.printf("    %svoid warmUp() {%n", modifiers);
+        if (holderClasses.isEmpty()) {
+            writer.println("        // calling this method initializes the class");
+        } else {
+            writer.println("        var lookup = java.lang.invoke.MethodHandles.lookup();");
+            writer.println("        try {");
+            for (var holderClass : holderClasses)
+                writer.printf("            lookup.ensureInitialized(%s.class);%n", holderClass);
+            writer.print("""
+                            } catch (IllegalAccessException ex) {
+                                throw new AssertionError(ex);
+                            }
+                    """);
+        }
+        writer.println("    }");
+        writer.println();
+    }
+
+    private void writeInvokeArguments(Method function) {
         var supportsLastError = function.supportsLastError();
         if (supportsLastError)
             writer.print("lastErrorState");
@@ -123,11 +401,5 @@ class FunctionCodeWriterBase<T extends Type> extends JavaCodeWriter<T> {
             writer.print(getJavaSafeName(parameters[i].name()));
         }
         writer.println(");");
-
-        writer.printf("""
-                %1$s} catch (Throwable ex) {
-                %1$s    throw new RuntimeException(ex);
-                %1$s}
-                """, indent);
     }
 }
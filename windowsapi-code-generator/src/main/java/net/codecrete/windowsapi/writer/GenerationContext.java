@@ -9,9 +9,14 @@ package net.codecrete.windowsapi.writer;
 import net.codecrete.windowsapi.events.Event;
 import net.codecrete.windowsapi.events.EventListener;
 import net.codecrete.windowsapi.metadata.Metadata;
+import net.codecrete.windowsapi.metadata.Struct;
+import net.codecrete.windowsapi.metadata.Type;
 
 import java.io.PrintWriter;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 
 /**
@@ -25,6 +30,19 @@ class GenerationContext {
     protected Function<Path, PrintWriter> writerFactory;
     protected final EventListener eventListener;
     protected String basePackage = "";
+    protected boolean structRecords;
+    protected boolean orThrowVariants;
+    protected boolean longHandles;
+    protected Set<String> asyncFunctions = Set.of();
+    protected boolean callEvents;
+    protected boolean callCounters;
+    protected boolean aotTraining;
+    protected boolean pooledAllocation;
+    protected Set<Type> prunedTypeScope;
+    private final Set<String> runtimeClasses = new TreeSet<>();
+    private final Set<AddressLayout> addressLayouts = new TreeSet<>();
+    private final Set<String> warmUpClasses = new TreeSet<>();
+    private final Set<String> generatedClasses = new TreeSet<>();
 
     /**
      * Creates a new instance.
@@ -73,6 +91,250 @@ class GenerationContext {
         this.basePackage = basePackage;
     }
 
+    /**
+     * Indicates if a record and codecs are generated for each struct.
+     *
+     * @return {@code true} if struct records are generated
+     */
+    boolean structRecords() {
+        return structRecords;
+    }
+
+    /**
+     * Sets if a record and codecs are generated for each struct.
+     *
+     * @param structRecords {@code true} to generate struct records
+     */
+    void setStructRecords(boolean structRecords) {
+        this.structRecords = structRecords;
+    }
+
+    /**
+     * Indicates if variants throwing an exception on failure are generated for functions returning an error code.
+     *
+     * @return {@code true} if the variants are generated
+     */
+    boolean orThrowVariants() {
+        return orThrowVariants;
+    }
+
+    /**
+     * Sets if variants throwing an exception on failure are generated for functions returning an error code.
+     *
+     * @param orThrowVariants {@code true} to generate the variants
+     */
+    void setOrThrowVariants(boolean orThrowVariants) {
+        this.orThrowVariants = orThrowVariants;
+    }
+
+    /**
+     * Indicates if handle types are mapped to {@code long} instead of {@code MemorySegment}.
+     *
+     * @return {@code true} if handles are mapped to {@code long}
+     */
+    boolean longHandles() {
+        return longHandles;
+    }
+
+    /**
+     * Sets if handle types are mapped to {@code long} instead of {@code MemorySegment}.
+     *
+     * @param longHandles {@code true} to map handles to {@code long}
+     */
+    void setLongHandles(boolean longHandles) {
+        this.longHandles = longHandles;
+    }
+
+    /**
+     * Gets the names of the functions with an async variant.
+     *
+     * @return the function names
+     */
+    Set<String> asyncFunctions() {
+        return asyncFunctions;
+    }
+
+    /**
+     * Sets the names of the functions with an async variant.
+     *
+     * @param asyncFunctions the function names
+     */
+    void setAsyncFunctions(Set<String> asyncFunctions) {
+        this.asyncFunctions = asyncFunctions;
+    }
+
+    /**
+     * Indicates if a JFR event is recorded for each call of a function or COM interface method.
+     *
+     * @return {@code true} if call events are recorded
+     */
+    boolean callEvents() {
+        return callEvents;
+    }
+
+    /**
+     * Sets if a JFR event is recorded for each call of a function or COM interface method.
+     *
+     * @param callEvents {@code true} to record call events
+     */
+    void setCallEvents(boolean callEvents) {
+        this.callEvents = callEvents;
+    }
+
+    /**
+     * Indicates if the calls of each function and COM interface method are counted.
+     *
+     * @return {@code true} if calls are counted
+     */
+    boolean callCounters() {
+        return callCounters;
+    }
+
+    /**
+     * Sets if the calls of each function and COM interface method are counted.
+     *
+     * @param callCounters {@code true} to count calls
+     */
+    void setCallCounters(boolean callCounters) {
+        this.callCounters = callCounters;
+    }
+
+    /**
+     * Indicates if a training entry point for the AOT cache is generated.
+     *
+     * @return {@code true} if the training entry point is generated
+     */
+    boolean aotTraining() {
+        return aotTraining;
+    }
+
+    /**
+     * Sets if a training entry point for the AOT cache is generated.
+     *
+     * @param aotTraining {@code true} to generate the training entry point
+     */
+    void setAotTraining(boolean aotTraining) {
+        this.aotTraining = aotTraining;
+    }
+
+    /**
+     * Indicates if allocation methods using a slab allocator or a segment pool are generated for structs.
+     *
+     * @return {@code true} if the allocation methods are generated
+     */
+    boolean pooledAllocation() {
+        return pooledAllocation;
+    }
+
+    /**
+     * Sets if allocation methods using a slab allocator or a segment pool are generated for structs.
+     *
+     * @param pooledAllocation {@code true} to generate the allocation methods
+     */
+    void setPooledAllocation(boolean pooledAllocation) {
+        this.pooledAllocation = pooledAllocation;
+    }
+
+    /**
+     * Sets the transitive type scope if structs only referenced through pointers have been pruned from it.
+     *
+     * @param prunedTypeScope the pruned type scope, or {@code null} if no structs have been pruned
+     */
+    void setPrunedTypeScope(Set<Type> prunedTypeScope) {
+        this.prunedTypeScope = prunedTypeScope;
+    }
+
+    /**
+     * Indicates if the specified struct has been pruned from the scope.
+     * <p>
+     * No code is generated for pruned structs. Pointers to them use an address layout of unknown size.
+     * </p>
+     *
+     * @param struct the struct
+     * @return {@code true} if it has been pruned, {@code false} otherwise
+     */
+    boolean isPrunedStruct(Struct struct) {
+        return prunedTypeScope != null && !prunedTypeScope.contains(struct);
+    }
+
+    /**
+     * Registers a runtime support class required by the generated code.
+     *
+     * @param className the runtime support class name
+     */
+    void requireRuntimeClass(String className) {
+        runtimeClasses.add(className);
+    }
+
+    /**
+     * Gets the runtime support classes required by the generated code so far.
+     *
+     * @return the runtime support class names (sorted)
+     */
+    Set<String> requiredRuntimeClasses() {
+        return runtimeClasses;
+    }
+
+    /**
+     * Registers address layouts required by the generated code.
+     * <p>
+     * The address layouts are defined in a single runtime support class.
+     * </p>
+     *
+     * @param layouts the address layouts
+     */
+    void requireAddressLayouts(Collection<AddressLayout> layouts) {
+        addressLayouts.addAll(layouts);
+    }
+
+    /**
+     * Gets the address layouts required by the generated code so far.
+     *
+     * @return the address layouts (sorted)
+     */
+    Set<AddressLayout> requiredAddressLayouts() {
+        return addressLayouts;
+    }
+
+    /**
+     * Registers a generated class with a {@code warmUp()} method.
+     * <p>
+     * The warm-up methods of all registered classes are called by the runtime support class {@code Bindings}.
+     * </p>
+     *
+     * @param className the fully qualified class name
+     */
+    void requireWarmUpClass(String className) {
+        warmUpClasses.add(className);
+    }
+
+    /**
+     * Gets the generated classes with a {@code warmUp()} method so far.
+     *
+     * @return the fully qualified class names (sorted)
+     */
+    Set<String> requiredWarmUpClasses() {
+        return warmUpClasses;
+    }
+
+    /**
+     * Registers a generated class (excluding runtime support classes).
+     *
+     * @param className the fully qualified class name
+     */
+    void addGeneratedClass(String className) {
+        generatedClasses.add(className);
+    }
+
+    /**
+     * Gets the generated classes (excluding runtime support classes) so far.
+     *
+     * @return the fully qualified class names (sorted)
+     */
+    Set<String> generatedClasses() {
+        return generatedClasses;
+    }
+
     /**
      * Sets the writer factory.
      * <p>
@@ -21,6 +21,7 @@ import net.codecrete.windowsapi.winmd.LayoutRequirement;
 
 import java.io.PrintWriter;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
@@ -30,6 +31,11 @@ import java.util.UUID;
  */
 @SuppressWarnings("java:S1192")
 class JavaCodeWriter<T extends Type> {
+    /**
+     * Pseudo namespace for the runtime support classes.
+     */
+    static final String RUNTIME_NAMESPACE = "Windows.Win32.Runtime";
+
     /**
      * Shared generation context.
      */
@@ -98,7 +104,25 @@ class JavaCodeWriter<T extends Type> {
      * @param action    the action to execute
      */
     protected void withFile(Namespace namespace, T type, String className, Runnable action) {
-        packageName = toJavaPackageName(namespace.name());
+        withFile(toJavaPackageName(namespace.name()), namespace, type, className, action);
+    }
+
+    /**
+     * Creates a new Java source file in the runtime support package and executes the action.
+     * <p>
+     * The runtime support package contains classes shared by the generated code of all namespaces.
+     * No namespace and no type are available while the action is executed.
+     * </p>
+     *
+     * @param className the Java class name
+     * @param action    the action to execute
+     */
+    protected void withRuntimeFile(String className, Runnable action) {
+        withFile(runtimePackageName(), null, null, className, action);
+    }
+
+    private void withFile(String packageName, Namespace namespace, T type, String className, Runnable action) {
+        this.packageName = packageName;
         var path = createJavaClassPath(packageName, className);
         try (var w = generationContext.createWriter(path)) {
             writeHeader(w);
@@ -107,6 +131,8 @@ class JavaCodeWriter<T extends Type> {
             this.type = type;
             this.className = className;
             action.run();
+            if (namespace != null)
+                generationContext.addGeneratedClass(packageName + "." + className);
             generationContext.notify(new Event.JavaSourceGenerated(path));
 
         } finally {
@@ -160,10 +186,44 @@ class JavaCodeWriter<T extends Type> {
      * @return the Java package name
      */
     protected String toJavaPackageName(String namespace) {
+        return toJavaPackageName(generationContext.basePackage(), namespace);
+    }
+
+    /**
+     * Converts the namespace name to a Java package name.
+     *
+     * @param basePackage the base package (or an empty string)
+     * @param namespace   the namespace
+     * @return the Java package name
+     */
+    static String toJavaPackageName(String basePackage, String namespace) {
         var lowercaseNamespace = namespace.toLowerCase(Locale.ROOT);
-        if (generationContext.basePackage().isEmpty())
+        if (basePackage.isEmpty())
             return lowercaseNamespace;
-        return generationContext.basePackage() + "." + lowercaseNamespace;
+        return basePackage + "." + lowercaseNamespace;
+    }
+
+    /**
+     * Gets the Java package name of the runtime support classes.
+     *
+     * @return the Java package name
+     */
+    protected String runtimePackageName() {
+        return toJavaPackageName(RUNTIME_NAMESPACE);
+    }
+
+    /**
+     * Gets the fully qualified name of the specified runtime support class.
+     * <p>
+     * The runtime support class is registered and will be generated at the end of the code generation.
+     * </p>
+     *
+     * @param className the runtime support class name
+     * @return the fully qualified class name
+     */
+    protected String runtimeClass(String className) {
+        generationContext.requireRuntimeClass(className);
+        return runtimePackageName() + "." + className;
     }
 
     /**
@@ -227,20 +287,70 @@ class JavaCodeWriter<T extends Type> {
      * <p>
      * Type aliases are resolved. For enumerations, the base integer type
      * is used. For non-primitive types, the result will be "MemorySegment".
+     * Handle types are mapped to "long" if the long handle mode is enabled.
      * </p>
      *
      * @param type the metadata type
      * @return the Java type
      */
-    static String getJavaType(Type type) {
+    String getJavaType(Type type) {
         return switch (type) {
             case Primitive primitive -> getPrimitiveJavaType(primitive);
             case EnumType enumType -> getPrimitiveJavaType(enumType.baseType());
+            case TypeAlias typeAlias when isLongHandle(typeAlias) -> "long";
             case TypeAlias typeAlias -> getJavaType(typeAlias.aliasedType());
             default -> "MemorySegment";
         };
     }
 
+    /**
+     * Type aliases for {@code void*} that point to memory accessed by the application, i.e., are not handles.
+     */
+    private static final Set<String> NON_HANDLE_TYPES = Set.of(
+            "LPPROC_THREAD_ATTRIBUTE_LIST",
+            "PSECURITY_DESCRIPTOR",
+            "PSID"
+    );
+
+    /**
+     * Checks if the given type is a handle type.
+     * <p>
+     * Handle types are type aliases for {@code void*} such as {@code HANDLE}, {@code HWND} or {@code HKEY}.
+     * </p>
+     *
+     * @param type the type
+     * @return {@code true} if it is a handle type, {@code false} otherwise
+     */
+    static boolean isHandleType(Type type) {
+        return type instanceof TypeAlias typeAlias
+                && typeAlias.aliasedType() instanceof Pointer pointer
+                && pointer.referencedType() instanceof Primitive primitive
+                && primitive.kind() == PrimitiveKind.VOID
+                && !NON_HANDLE_TYPES.contains(typeAlias.name());
+    }
+
+    /**
+     * Checks if the given type is a handle type to be mapped to {@code long}.
+     * <p>
+     * This is only the case if the long handle mode is enabled.
+     * </p>
+     *
+     * @param type the type
+     * @return {@code true} if the type is mapped to {@code long}, {@code false} otherwise
+     */
+    boolean isLongHandle(Type type) {
+        return generationContext.longHandles() && isHandleType(type);
+    }
+
+    /**
+     * Gets the primitive type used for handle types in long handle mode.
+     *
+     * @return the primitive type
+     */
+    Primitive getHandlePrimitive() {
+        return generationContext.metadata().getPrimitive(PrimitiveKind.INT_PTR);
+    }
+
     private static final Set<String> JAVA_KEYWORDS = Set.of(
             "abstract",
             "final",
@@ -264,6 +374,24 @@ class JavaCodeWriter<T extends Type> {
         return name;
     }
 
+    /**
+     * Writes the import of the shared address layouts and registers the layouts.
+     * <p>
+     * The address layouts are defined in the runtime support class {@code AddressLayouts},
+     * which is shared by the generated code of all namespaces. If no address layouts
+     * are required, nothing is written.
+     * </p>
+     *
+     * @param addressLayouts the required address layouts
+     */
+    void writeAddressLayoutsImport(Collection<AddressLayout> addressLayouts) {
+        if (addressLayouts.isEmpty())
+            return;
+
+        generationContext.requireAddressLayouts(addressLayouts);
+        writer.printf("import static %s.*;%n", runtimeClass(RuntimeCodeWriter.ADDRESS_LAYOUTS));
+    }
+
     /**
      * Writes Java code to initialize a variable with a given address layout.
      *
@@ -317,8 +445,10 @@ class JavaCodeWriter<T extends Type> {
     String getLayoutName(Type type, int packageSize, Namespace currentNamespace) {
         return switch (type) {
             case Primitive primitive -> getPrimitiveLayoutName(primitive, packageSize);
+            case TypeAlias typeAlias when isLongHandle(typeAlias) -> getPrimitiveLayoutName(getHandlePrimitive(), packageSize);
             case TypeAlias typeAlias -> getLayoutName(typeAlias.aliasedType(), packageSize, currentNamespace);
-            case Pointer pointer -> AddressLayout.getAddressLayout(pointer.referencedType(), packageSize >= 8).name();
+            case Pointer pointer -> AddressLayout.getAddressLayout(pointer.referencedType(), packageSize >= 8,
+                    generationContext::isPrunedStruct).name();
             case Delegate ignored -> AddressLayout.pointerToAddress(packageSize >= 8).name();
             case ComInterface ignored -> AddressLayout.pointerToAddress(packageSize >= 8).name();
             case EnumType enumType -> getPrimitiveLayoutName(enumType.baseType(), packageSize);
@@ -420,6 +550,7 @@ class JavaCodeWriter<T extends Type> {
     void writeValue(Type type, Object value) {
         switch (type) {
             case Primitive primitive -> writePrimitiveValue(primitive, value);
+            case TypeAlias typeAlias when isLongHandle(typeAlias) -> writePrimitiveValue(getHandlePrimitive(), value);
             case TypeAlias typeAlias -> writeValue(typeAlias.aliasedType(), value);
             case Pointer ignored -> writePointerValue(value);
             default -> throw new AssertionError("Unexpected type: " + type.name());
@@ -496,9 +627,22 @@ class JavaCodeWriter<T extends Type> {
      */
     void writeGuidConstantMemorySegment(String name, UUID uuid, int indenting) {
         writer.printf("""
-                        %2$sprivate static final MemorySegment %1$s$SEG = createGuid(%3$dL, %4$dL);
+                        %2$sprivate static final MemorySegment %1$s$SEG = %3$s;
                         
-                        """, name, getIndent(indenting),
+                        """, name, getIndent(indenting), getCreateGuidExpression(uuid));
+    }
+
+    /**
+     * Gets a Java expression creating a memory segment with a GUID.
+     * <p>
+     * The expression calls the method written by {@link #writeCreateGuidMethod(int)}.
+     * </p>
+     *
+     * @param uuid the GUID value
+     * @return the Java expression
+     */
+    static String getCreateGuidExpression(UUID uuid) {
+        return String.format("createGuid(%dL, %dL)",
                 reorderMostSignificantBits(uuid.getMostSignificantBits()),
                 Long.reverseBytes(uuid.getLeastSignificantBits()));
     }
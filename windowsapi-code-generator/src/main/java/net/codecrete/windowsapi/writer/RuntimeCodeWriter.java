@@ -0,0 +1,1336 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.writer;
+
+import net.codecrete.windowsapi.metadata.Type;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Creates the Java code for the runtime support classes.
+ * <p>
+ * Runtime support classes are shared by the generated code of all namespaces.
+ * They are generated into the package {@code windows.win32.runtime} (plus base package)
+ * and only if the generated code refers to them.
+ * </p>
+ */
+class RuntimeCodeWriter extends JavaCodeWriter<Type> {
+
+    static final String ADDRESS_LAYOUTS = "AddressLayouts";
+    static final String AOT_TRAINING = "AotTraining";
+    static final String BINDINGS = "Bindings";
+    static final String BLOCKING_CALLS = "BlockingCalls";
+    static final String CALLBACK_REGISTRY = "CallbackRegistry";
+    static final String CALL_COUNTERS = "CallCounters";
+    static final String CALL_STATE = "CallState";
+    static final String NATIVE_CALL_EVENT = "NativeCallEvent";
+    static final String SCRATCH_ALLOCATOR = "ScratchAllocator";
+    static final String SEGMENT_POOL = "SegmentPool";
+    static final String SLAB_ALLOCATOR = "SlabAllocator";
+    static final String WINDOWS_EXCEPTION = "WindowsException";
+
+    private static final int WARM_UP_GROUP_SIZE = 500;
+    private static final int MAX_CLASS_LIST_LENGTH = 30000;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param generationContext the code generation context
+     */
+    RuntimeCodeWriter(GenerationContext generationContext) {
+        super(generationContext);
+    }
+
+    /**
+     * Writes the runtime support classes required by the code generated so far.
+     */
+    void writeRequiredClasses() {
+        // repeat until no further classes are registered (writing a runtime class can register further ones)
+        var writtenClasses = new HashSet<String>();
+        while (writtenClasses.size() < generationContext.requiredRuntimeClasses().size()) {
+            for (var className : List.copyOf(generationContext.requiredRuntimeClasses())) {
+                if (writtenClasses.add(className))
+                    withRuntimeFile(className, () -> writeClass(className));
+            }
+        }
+    }
+
+    private void writeClass(String className) {
+        switch (className) {
+            case ADDRESS_LAYOUTS -> writeAddressLayouts();
+            case AOT_TRAINING -> writeAotTraining();
+            case BINDINGS -> writeBindings();
+            case BLOCKING_CALLS -> writeBlockingCalls();
+            case CALLBACK_REGISTRY -> writeCallbackRegistry();
+            case CALL_COUNTERS -> writeCallCounters();
+            case CALL_STATE -> writeCallState();
+            case NATIVE_CALL_EVENT -> writeNativeCallEvent();
+            case SCRATCH_ALLOCATOR -> writeScratchAllocator();
+            case SEGMENT_POOL -> writeSegmentPool();
+            case SLAB_ALLOCATOR -> writeSlabAllocator();
+            case WINDOWS_EXCEPTION -> writeWindowsException();
+            default -> throw new AssertionError("Unknown runtime class: " + className);
+        }
+    }
+
+    private void writeAddressLayouts() {
+        writer.printf("""
+                package %s;
+
+                import java.lang.foreign.*;
+                import static java.lang.foreign.ValueLayout.*;
+
+                /**
+                 * Address layouts shared by the generated code.
+                 * <p>
+                 * The address layouts for pointers to structs, to addresses and to memory of unknown size
+                 * are defined once and referenced by the generated classes of all packages.
+                 * </p>
+                 */
+                public final class AddressLayouts {
+
+                """, packageName);
+
+        for (var addressLayout : generationContext.requiredAddressLayouts()) {
+            writeComment("%s", getAddressLayoutDescription(addressLayout));
+            writeAddressLayoutInitialization(addressLayout, "public static final ");
+            writer.println();
+        }
+
+        writer.print("""
+                    private AddressLayouts() {}
+                }
+                """);
+    }
+
+    private static String getAddressLayoutDescription(AddressLayout addressLayout) {
+        String target;
+        if (addressLayout.isForStruct())
+            target = String.format("a struct of %d bytes with an alignment of %d bytes", addressLayout.structSize(),
+                    addressLayout.packageSize());
+        else if (addressLayout == AddressLayout.pointerToAddress(addressLayout.aligned()))
+            target = "an address";
+        else
+            target = "memory of unknown size";
+        return String.format("Layout of %s address pointing to %s.", addressLayout.aligned() ? "an" : "an unaligned",
+                target);
+    }
+
+    private void writeAotTraining() {
+        writer.printf("""
+                package %s;
+
+                import java.lang.foreign.*;
+                import java.util.Optional;
+
+                /**
+                 * Training run for the AOT cache.
+                 * <p>
+                 * The {@code main} method loads and initializes all generated classes including their nested
+                 * classes, which hold the lazily created parts. It creates all layouts, function descriptors, downcall handles and upcall stubs
+                 * without calling any native function. Run it with {@code -XX:AOTCacheOutput=<file>} to
+                 * create an AOT cache.
+                 * </p>
+                 * <p>
+                 * On platforms other than Windows, linking is stubbed: the DLLs are not loaded and all symbols
+                 * resolve to a stub address. This allows the training run to check all generated code paths on
+                 * other platforms. Generated functions must not be called while linking is stubbed.
+                 * </p>
+                 */
+                public final class AotTraining {
+
+                    private static final boolean IS_WINDOWS = System.getProperty("os.name").startsWith("Windows");
+
+                    private static volatile boolean stubbed = Boolean.getBoolean("windows.win32.aotTraining.stubbed");
+
+                    /**
+                     * Runs the training.
+                     * <p>
+                     * On platforms other than Windows, linking is stubbed.
+                     * </p>
+                     *
+                     * @param args the command line arguments (not used)
+                     * @throws ClassNotFoundException if a generated class is missing
+                     */
+                    public static void main(String[] args) throws ClassNotFoundException {
+                        if (!IS_WINDOWS)
+                            stubbed = true;
+
+                        var loader = AotTraining.class.getClassLoader();
+                        int count = 0;
+                """, packageName);
+
+        // the class names are grouped by package to keep the constant pool small
+        String currentPackage = null;
+        var classNames = new StringBuilder();
+        for (var className : generationContext.generatedClasses()) {
+            var index = className.lastIndexOf('.');
+            var classPackage = className.substring(0, index);
+            if (!classPackage.equals(currentPackage) || classNames.length() > MAX_CLASS_LIST_LENGTH) {
+                writeInitializeClasses(currentPackage, classNames);
+                currentPackage = classPackage;
+                classNames.setLength(0);
+            }
+            if (!classNames.isEmpty())
+                classNames.append(',');
+            classNames.append(className, index + 1, className.length());
+        }
+        writeInitializeClasses(currentPackage, classNames);
+
+        writer.print("""
+                        System.out.printf("AOT training: %d classes initialized%n", count);
+                    }
+
+                    /**
+                     * Indicates if linking is stubbed.
+                     *
+                     * @return {@code true} if linking is stubbed
+                     */
+                    public static boolean isStubbed() {
+                        return stubbed;
+                    }
+
+                    /**
+                     * Gets the symbol lookup to use for the generated functions.
+                     * <p>
+                     * If linking is stubbed, the returned lookup resolves all symbols to a stub address.
+                     * </p>
+                     *
+                     * @param lookup the symbol lookup of the loaded DLLs
+                     * @return the symbol lookup
+                     */
+                    public static SymbolLookup symbolLookup(SymbolLookup lookup) {
+                        if (!stubbed)
+                            return lookup;
+                        var stub = Arena.global().allocate(ValueLayout.ADDRESS);
+                        return name -> Optional.of(stub);
+                    }
+
+                    /**
+                     * Gets the linker option to capture the last error.
+                     * <p>
+                     * If linking is stubbed on a platform other than Windows, {@code errno} is captured instead
+                     * so the method handles have the same type.
+                     * </p>
+                     *
+                     * @return the linker option
+                     */
+                    public static Linker.Option lastErrorState() {
+                        return Linker.Option.captureCallState(stubbed && !IS_WINDOWS ? "errno" : "GetLastError");
+                    }
+
+                    private static int initialize(ClassLoader loader, String packageName, String classNames)
+                            throws ClassNotFoundException {
+                        int count = 0;
+                        for (var className : classNames.split(","))
+                            count += initialize(loader, Class.forName(packageName + "." + className, false, loader));
+                        return count;
+                    }
+
+                    private static int initialize(ClassLoader loader, Class<?> cls) throws ClassNotFoundException {
+                        Class.forName(cls.getName(), true, loader);
+                        int count = 1;
+                        for (var nestedClass : cls.getDeclaredClasses())
+                            count += initialize(loader, nestedClass);
+                        return count;
+                    }
+
+                    private AotTraining() {}
+                }
+                """);
+    }
+
+    private void writeInitializeClasses(String classPackage, CharSequence classNames) {
+        if (classPackage != null)
+            writer.printf("        count += initialize(loader, \"%s\", \"%s\");%n", classPackage, classNames);
+    }
+
+    private void writeBindings() {
+        writer.printf("""
+                package %s;
+
+                import java.util.ArrayList;
+                import java.util.List;
+                import java.util.concurrent.CompletableFuture;
+                import java.util.concurrent.Executor;
+
+                /**
+                 * Warm-up of all generated bindings.
+                 * <p>
+                 * The method handles of the generated functions, COM interface methods and callback functions
+                 * are created on first use. So the first call of each function pays for the symbol lookup and
+                 * the linking. The warm-up creates them in advance, e.g. during application startup.
+                 * </p>
+                 */
+                public final class Bindings {
+
+                    /**
+                     * Initializes the method handles of all generated classes on the current thread.
+                     */
+                    public static void warmUp() {
+                        for (var task : warmUpTasks())
+                            task.run();
+                    }
+
+                    /**
+                     * Initializes the method handles of all generated classes in parallel on the given executor.
+                     * <p>
+                     * Each generated class is initialized in a separate task.
+                     * </p>
+                     *
+                     * @param executor the executor
+                     * @return the future completed when all classes have been initialized
+                     */
+                    public static CompletableFuture<Void> warmUp(Executor executor) {
+                        var futures = warmUpTasks().stream()
+                                .map(task -> CompletableFuture.runAsync(task, executor))
+                                .toArray(CompletableFuture[]::new);
+                        return CompletableFuture.allOf(futures);
+                    }
+
+                    private static List<Runnable> warmUpTasks() {
+                        var tasks = new ArrayList<Runnable>();
+                """, packageName);
+
+        // split the tasks into several methods to stay below the method size limit
+        var classNames = List.copyOf(generationContext.requiredWarmUpClasses());
+        var numGroups = (classNames.size() + WARM_UP_GROUP_SIZE - 1) / WARM_UP_GROUP_SIZE;
+        for (int i = 0; i < numGroups; i += 1)
+            writer.printf("        addWarmUpTasks%d(tasks);%n", i);
+        writer.print("""
+                        return tasks;
+                    }
+
+                """);
+
+        for (int i = 0; i < numGroups; i += 1) {
+            writer.printf("    private static void addWarmUpTasks%d(List<Runnable> tasks) {%n", i);
+            for (var className : classNames.subList(i * WARM_UP_GROUP_SIZE,
+                    Math.min((i + 1) * WARM_UP_GROUP_SIZE, classNames.size())))
+                writer.printf("        tasks.add(%s::warmUp);%n", className);
+            writer.println("    }");
+            writer.println();
+        }
+
+        writer.print("""
+                    private Bindings() {}
+                }
+                """);
+    }
+
+    private void writeBlockingCalls() {
+        writer.printf("""
+                package %s;
+
+                import java.util.concurrent.CompletableFuture;
+                import java.util.concurrent.Executor;
+                import java.util.concurrent.LinkedBlockingQueue;
+                import java.util.concurrent.ThreadPoolExecutor;
+                import java.util.concurrent.TimeUnit;
+                import java.util.concurrent.atomic.AtomicInteger;
+                import java.util.concurrent.atomic.LongAdder;
+                import java.util.function.Supplier;
+
+                /**
+                 * Bounded pool of platform threads for calling blocking Windows API functions.
+                 * <p>
+                 * A native call pins the carrier thread of a virtual thread for the entire call. The generated
+                 * function variants with the suffix {@code Async} run the call on this pool instead. A virtual
+                 * thread waiting for the returned future (e.g. with {@code join()}) is unmounted from its carrier
+                 * thread and only blocks itself.
+                 * </p>
+                 * <p>
+                 * The maximum number of threads is taken from the system property
+                 * {@code windows.win32.blockingCalls.maxThreads} (default: 64) and can be changed at any time
+                 * with {@link #setMaxThreads(int)}. If all threads are busy, further calls are queued.
+                 * Idle threads are terminated after 60 seconds.
+                 * </p>
+                 */
+                public final class BlockingCalls {
+
+                    private static final int DEFAULT_MAX_THREADS = 64;
+
+                    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger(1);
+                    private static final LongAdder SUBMITTED_CALLS = new LongAdder();
+                    private static final LongAdder FAILED_CALLS = new LongAdder();
+                    private static final LongAdder QUEUED_NANOS = new LongAdder();
+                    private static final ThreadPoolExecutor POOL = createPool();
+
+                    private static ThreadPoolExecutor createPool() {
+                        var maxThreads = Integer.getInteger("windows.win32.blockingCalls.maxThreads", DEFAULT_MAX_THREADS);
+                        var pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                                new LinkedBlockingQueue<>(), runnable -> {
+                                    var thread = new Thread(runnable, "win32-blocking-" + THREAD_NUMBER.getAndIncrement());
+                                    thread.setDaemon(true);
+                                    return thread;
+                                });
+                        pool.allowCoreThreadTimeOut(true);
+                        return pool;
+                    }
+
+                    /**
+                     * Calls the given function on the thread pool.
+                     *
+                     * @param call the function call
+                     * @param <T>  the result type
+                     * @return the future completed with the function's result
+                     */
+                    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+                        SUBMITTED_CALLS.increment();
+                        var submitTime = System.nanoTime();
+                        return CompletableFuture.supplyAsync(() -> {
+                            QUEUED_NANOS.add(System.nanoTime() - submitTime);
+                            try {
+                                return call.get();
+                            } catch (RuntimeException | Error e) {
+                                FAILED_CALLS.increment();
+                                throw e;
+                            }
+                        }, POOL);
+                    }
+
+                    /**
+                     * Calls the given function without result on the thread pool.
+                     *
+                     * @param call the function call
+                     * @return the future completed when the function returns
+                     */
+                    public static CompletableFuture<Void> runAsync(Runnable call) {
+                        return supplyAsync(() -> {
+                            call.run();
+                            return null;
+                        });
+                    }
+
+                    /**
+                     * Gets the thread pool as an executor.
+                     * <p>
+                     * It can be used to run further blocking native calls on the pool.
+                     * </p>
+                     *
+                     * @return the executor
+                     */
+                    public static Executor executor() {
+                        return POOL;
+                    }
+
+                    /**
+                     * Gets the maximum number of threads.
+                     *
+                     * @return the maximum number of threads
+                     */
+                    public static int maxThreads() {
+                        return POOL.getMaximumPoolSize();
+                    }
+
+                    /**
+                     * Sets the maximum number of threads.
+                     * <p>
+                     * If the number is reduced, excess threads are terminated when they become idle.
+                     * </p>
+                     *
+                     * @param maxThreads the maximum number of threads (at least 1)
+                     */
+                    public static synchronized void setMaxThreads(int maxThreads) {
+                        if (maxThreads < 1)
+                            throw new IllegalArgumentException("maxThreads must be at least 1");
+                        if (maxThreads > POOL.getMaximumPoolSize()) {
+                            POOL.setMaximumPoolSize(maxThreads);
+                            POOL.setCorePoolSize(maxThreads);
+                        } else {
+                            POOL.setCorePoolSize(maxThreads);
+                            POOL.setMaximumPoolSize(maxThreads);
+                        }
+                    }
+
+                    /**
+                     * Gets a snapshot of the thread pool metrics.
+                     *
+                     * @return the metrics
+                     */
+                    public static Metrics metrics() {
+                        return new Metrics(POOL.getMaximumPoolSize(), POOL.getPoolSize(), POOL.getLargestPoolSize(),
+                                POOL.getActiveCount(), POOL.getQueue().size(), SUBMITTED_CALLS.sum(),
+                                POOL.getCompletedTaskCount(), FAILED_CALLS.sum(), QUEUED_NANOS.sum());
+                    }
+
+                    /**
+                     * Metrics of the thread pool.
+                     * <p>
+                     * The values are taken one by one and are therefore only approximately consistent.
+                     * </p>
+                     *
+                     * @param maxThreads      the maximum number of threads
+                     * @param poolSize        the current number of threads
+                     * @param largestPoolSize the largest number of threads that have ever been in the pool
+                     * @param activeThreads   the number of threads currently executing a call
+                     * @param queuedCalls     the number of calls waiting for a thread
+                     * @param submittedCalls  the total number of submitted calls
+                     * @param completedCalls  the total number of completed calls (including failed calls)
+                     * @param failedCalls     the total number of calls that threw an exception
+                     * @param queuedNanos     the total time the started calls have waited for a thread (in nanoseconds)
+                     */
+                    public record Metrics(int maxThreads, int poolSize, int largestPoolSize, int activeThreads,
+                                          int queuedCalls, long submittedCalls, long completedCalls, long failedCalls,
+                                          long queuedNanos) {}
+
+                    private BlockingCalls() {}
+                }
+                """, packageName);
+    }
+
+    private void writeCallbackRegistry() {
+        writer.printf("""
+                package %s;
+
+                import java.util.Arrays;
+                import java.util.Objects;
+                import java.util.concurrent.atomic.AtomicLong;
+                import java.util.concurrent.atomic.AtomicReferenceArray;
+                import java.util.concurrent.atomic.LongAdder;
+                import java.util.function.LongConsumer;
+
+                /**
+                 * Registry of callback functions called through a shared upcall stub.
+                 * <p>
+                 * Callback functions with a context parameter use a single upcall stub per callback type.
+                 * The Java function is registered and an opaque handle is passed as the context.
+                 * When the shared upcall stub is called, it looks up the function by the handle.
+                 * </p>
+                 * <p>
+                 * The functions are stored in a slot table. The lower 32 bits of a handle are the slot index
+                 * (plus 1), the upper bits are a sequence number. So handles are unique across all registries,
+                 * and a handle is not valid anymore after it has been unregistered, even if its slot is reused.
+                 * Freed slots are kept in a free list. Lookups neither lock nor allocate.
+                 * </p>
+                 * <p>
+                 * If the shared upcall stub is called with an unknown handle (e.g., a late timer callback
+                 * after the function has been unregistered), the stub returns the default value (0 or
+                 * {@code NULL}) instead of throwing an exception, as an exception in an upcall terminates the JVM.
+                 * Such calls are counted and reported to the handler set with
+                 * {@link #setUnknownHandleHandler(LongConsumer)}.
+                 * </p>
+                 *
+                 * @param <F> the function type
+                 */
+                public final class CallbackRegistry<F> {
+
+                    private static final int INITIAL_CAPACITY = 16;
+                    private static final AtomicLong NEXT_SEQUENCE = new AtomicLong(1);
+                    private static final LongAdder UNKNOWN_HANDLE_COUNT = new LongAdder();
+                    private static volatile LongConsumer unknownHandleHandler;
+
+                    private record Entry<F>(long handle, F function) {}
+
+                    private volatile AtomicReferenceArray<Entry<F>> slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+                    private int[] freeSlots = new int[INITIAL_CAPACITY];
+                    private int freeSlotCount;
+                    private int usedSlotCount;
+
+                    /**
+                     * Registers the given function.
+                     *
+                     * @param function the function
+                     * @return the handle identifying the registration
+                     */
+                    public synchronized long register(F function) {
+                        Objects.requireNonNull(function, "function must not be null");
+
+                        int slot;
+                        if (freeSlotCount > 0) {
+                            freeSlotCount -= 1;
+                            slot = freeSlots[freeSlotCount];
+                        } else {
+                            if (usedSlotCount == slots.length())
+                                grow();
+                            slot = usedSlotCount;
+                            usedSlotCount += 1;
+                        }
+
+                        var handle = (NEXT_SEQUENCE.getAndIncrement() << 32) | (slot + 1);
+                        slots.set(slot, new Entry<>(handle, function));
+                        return handle;
+                    }
+
+                    /**
+                     * Gets the function registered for the given handle.
+                     * <p>
+                     * If no function is registered for the handle, the call is counted and reported
+                     * to the unknown handle handler.
+                     * </p>
+                     *
+                     * @param handle the handle returned by {@link #register(Object)}
+                     * @return the function, or {@code null} if no function is registered for the handle
+                     */
+                    public F get(long handle) {
+                        var currentSlots = slots;
+                        var slot = (int) handle - 1;
+                        if (slot >= 0 && slot < currentSlots.length()) {
+                            var entry = currentSlots.get(slot);
+                            if (entry != null && entry.handle() == handle)
+                                return entry.function();
+                        }
+
+                        reportUnknownHandle(handle);
+                        return null;
+                    }
+
+                    /**
+                     * Unregisters the function registered for the given handle.
+                     * <p>
+                     * Unknown handles are ignored.
+                     * </p>
+                     *
+                     * @param handle the handle returned by {@link #register(Object)}
+                     */
+                    public synchronized void unregister(long handle) {
+                        var slot = (int) handle - 1;
+                        if (slot < 0 || slot >= usedSlotCount)
+                            return;
+                        var entry = slots.get(slot);
+                        if (entry == null || entry.handle() != handle)
+                            return;
+
+                        slots.set(slot, null);
+                        if (freeSlotCount == freeSlots.length)
+                            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+                        freeSlots[freeSlotCount] = slot;
+                        freeSlotCount += 1;
+                    }
+
+                    /**
+                     * Sets the handler called if a shared upcall stub is called with an unknown handle.
+                     * <p>
+                     * The handler is called on the thread of the upcall and receives the unknown handle.
+                     * Exceptions thrown by the handler are ignored.
+                     * </p>
+                     *
+                     * @param handler the handler, or {@code null} to remove the handler
+                     */
+                    public static void setUnknownHandleHandler(LongConsumer handler) {
+                        unknownHandleHandler = handler;
+                    }
+
+                    /**
+                     * Gets the number of calls of shared upcall stubs with an unknown handle.
+                     *
+                     * @return the number of calls
+                     */
+                    public static long unknownHandleCount() {
+                        return UNKNOWN_HANDLE_COUNT.sum();
+                    }
+
+                    private void grow() {
+                        var currentSlots = slots;
+                        var newSlots = new AtomicReferenceArray<Entry<F>>(currentSlots.length() * 2);
+                        for (int i = 0; i < currentSlots.length(); i += 1)
+                            newSlots.set(i, currentSlots.get(i));
+                        slots = newSlots;
+                    }
+
+                    private static void reportUnknownHandle(long handle) {
+                        UNKNOWN_HANDLE_COUNT.increment();
+                        var handler = unknownHandleHandler;
+                        if (handler == null)
+                            return;
+                        try {
+                            handler.accept(handle);
+                        } catch (Throwable ignored) {
+                            // an exception must not escape the upcall
+                        }
+                    }
+                }
+                """, packageName);
+    }
+
+    private void writeCallCounters() {
+        writer.printf("""
+                package %s;
+
+                import java.util.Map;
+                import java.util.TreeMap;
+                import java.util.concurrent.ConcurrentHashMap;
+                import java.util.concurrent.atomic.LongAdder;
+
+                /**
+                 * Registry of the call counters of the generated functions and COM interface methods.
+                 * <p>
+                 * Each function has a counter that is incremented on every call. The counter is registered
+                 * when the function is called for the first time. COM interface methods are registered
+                 * with the name {@code Interface.Method}.
+                 * </p>
+                 */
+                public final class CallCounters {
+
+                    private static final ConcurrentHashMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+                    /**
+                     * Registers the call counter for the given function.
+                     * <p>
+                     * If the counter is already registered, the existing counter is returned.
+                     * </p>
+                     *
+                     * @param functionName the function name
+                     * @return the call counter
+                     */
+                    public static LongAdder register(String functionName) {
+                        return COUNTERS.computeIfAbsent(functionName, name -> new LongAdder());
+                    }
+
+                    /**
+                     * Gets the number of calls of the given function.
+                     *
+                     * @param functionName the function name
+                     * @return the number of calls (0 if the function has not been called)
+                     */
+                    public static long count(String functionName) {
+                        var counter = COUNTERS.get(functionName);
+                        return counter != null ? counter.sum() : 0;
+                    }
+
+                    /**
+                     * Gets the number of calls of all called functions.
+                     *
+                     * @return map of function names to number of calls (sorted by name)
+                     */
+                    public static Map<String, Long> counts() {
+                        var counts = new TreeMap<String, Long>();
+                        COUNTERS.forEach((name, counter) -> counts.put(name, counter.sum()));
+                        return counts;
+                    }
+
+                    /**
+                     * Resets all counters to 0.
+                     */
+                    public static void reset() {
+                        COUNTERS.values().forEach(LongAdder::reset);
+                    }
+
+                    private CallCounters() {}
+                }
+                """, packageName);
+    }
+
+    private void writeNativeCallEvent() {
+        writer.printf("""
+                package %1$s;
+
+                import jdk.jfr.Category;
+                import jdk.jfr.Description;
+                import jdk.jfr.Enabled;
+                import jdk.jfr.Event;
+                import jdk.jfr.Label;
+                import jdk.jfr.Name;
+
+                import java.lang.foreign.*;
+                import java.lang.invoke.VarHandle;
+
+                /**
+                 * JFR event recorded for each call of a Windows API function or COM interface method.
+                 * <p>
+                 * The event is disabled by default. It can be enabled when the recording is started, e.g. with
+                 * {@code -XX:StartFlightRecording:%1$s.NativeCall#enabled=true}, or programmatically with
+                 * {@code recording.enable("%1$s.NativeCall")}. If the event is disabled, the event instance does
+                 * not escape and the JIT compiler removes it.
+                 * </p>
+                 */
+                @Name("%1$s.NativeCall")
+                @Label("Windows API Call")
+                @Category("Windows API")
+                @Description("Call of a Windows API function or COM interface method")
+                @Enabled(false)
+                public final class NativeCallEvent extends Event {
+
+                    @Label("Function")
+                    String functionName;
+
+                    @Label("DLL")
+                    String dll;
+
+                    @Label("Error Code")
+                    @Description("Captured last error or returned HRESULT, NTSTATUS or WIN32_ERROR")
+                    int errorCode;
+
+                    /**
+                     * Completes and commits the event for a function without error code.
+                     *
+                     * @param functionName the function name
+                     * @param dll          the DLL name ({@code null} for COM interface methods)
+                     */
+                    public void complete(String functionName, String dll) {
+                        end();
+                        if (shouldCommit()) {
+                            this.functionName = functionName;
+                            this.dll = dll;
+                            commit();
+                        }
+                    }
+
+                    /**
+                     * Completes and commits the event for a function returning an error code.
+                     *
+                     * @param functionName the function name
+                     * @param dll          the DLL name ({@code null} for COM interface methods)
+                     * @param errorCode    the returned error code ({@code HRESULT}, {@code NTSTATUS} or {@code WIN32_ERROR})
+                     */
+                    public void complete(String functionName, String dll, int errorCode) {
+                        end();
+                        if (shouldCommit()) {
+                            this.functionName = functionName;
+                            this.dll = dll;
+                            this.errorCode = errorCode;
+                            commit();
+                        }
+                    }
+
+                    /**
+                     * Completes and commits the event for a function setting the last error.
+                     *
+                     * @param functionName   the function name
+                     * @param dll            the DLL name
+                     * @param lastErrorState the memory segment with the captured call state
+                     */
+                    public void complete(String functionName, String dll, MemorySegment lastErrorState) {
+                        end();
+                        if (shouldCommit()) {
+                            this.functionName = functionName;
+                            this.dll = dll;
+                            this.errorCode = (int) LastError.HANDLE.get(lastErrorState, 0L);
+                            commit();
+                        }
+                    }
+
+                    // separate class so the call state layout is only looked up if needed
+                    private static final class LastError {
+                        private static final VarHandle HANDLE = Linker.Option.captureStateLayout()
+                                .varHandle(MemoryLayout.PathElement.groupElement("GetLastError"));
+                    }
+                }
+                """, packageName);
+    }
+
+    private void writeCallState() {
+        writer.printf("""
+                package %s;
+
+                import java.lang.foreign.*;
+                import java.lang.invoke.VarHandle;
+
+                /**
+                 * Thread-local call state for capturing the last error ({@code GetLastError()}).
+                 * <p>
+                 * The function overloads without the {@code lastErrorState} parameter capture the call state
+                 * in a memory segment that is allocated once per thread and then reused for all calls.
+                 * The error code of the most recent call can be retrieved with {@link #lastError()}.
+                 * </p>
+                 * <p>
+                 * The state belongs to the Java thread and not to the carrier thread. So if a virtual thread
+                 * is moved to a different carrier thread between the call and the retrieval of the error code,
+                 * it still retrieves its own error code.
+                 * </p>
+                 */
+                public final class CallState {
+
+                    private static final StructLayout LAYOUT = Linker.Option.captureStateLayout();
+                    private static final VarHandle LAST_ERROR = LAYOUT.varHandle(MemoryLayout.PathElement.groupElement("GetLastError"));
+                    private static final ThreadLocal<MemorySegment> STATE = ThreadLocal.withInitial(() -> Arena.ofAuto().allocate(LAYOUT));
+
+                    /**
+                     * Gets the call state segment of the current thread.
+                     * <p>
+                     * The segment is allocated on first use and lives as long as the thread.
+                     * </p>
+                     *
+                     * @return the call state segment
+                     */
+                    public static MemorySegment lastErrorState() {
+                        return STATE.get();
+                    }
+
+                    /**
+                     * Gets the error code captured by the most recent call of the current thread.
+                     * <p>
+                     * Only calls of the function overloads without the {@code lastErrorState} parameter
+                     * update this error code.
+                     * </p>
+                     *
+                     * @return the error code (usually a {@code WIN32_ERROR} value)
+                     */
+                    public static int lastError() {
+                        return (int) LAST_ERROR.get(STATE.get(), 0L);
+                    }
+
+                    private CallState() {}
+                }
+                """, packageName);
+    }
+
+    private void writeWindowsException() {
+        writer.printf("""
+                package %s;
+
+                /**
+                 * Exception thrown if a Windows API function fails.
+                 * <p>
+                 * It is thrown by the generated function variants with the suffix {@code OrThrow}.
+                 * The static factory methods are only called if a function fails. They keep the
+                 * exception construction out of the generated code so the success path remains small.
+                 * </p>
+                 */
+                public class WindowsException extends RuntimeException {
+
+                    private static final long serialVersionUID = 1L;
+
+                    private final String functionName;
+                    private final int errorCode;
+
+                    /**
+                     * Creates a new instance.
+                     *
+                     * @param message      the exception message
+                     * @param functionName the name of the failed function
+                     * @param errorCode    the error code ({@code HRESULT}, {@code NTSTATUS} or {@code WIN32_ERROR})
+                     */
+                    public WindowsException(String message, String functionName, int errorCode) {
+                        super(message);
+                        this.functionName = functionName;
+                        this.errorCode = errorCode;
+                    }
+
+                    /**
+                     * Gets the name of the failed function.
+                     *
+                     * @return the function name
+                     */
+                    public String functionName() {
+                        return functionName;
+                    }
+
+                    /**
+                     * Gets the error code.
+                     *
+                     * @return the error code ({@code HRESULT}, {@code NTSTATUS} or {@code WIN32_ERROR})
+                     */
+                    public int errorCode() {
+                        return errorCode;
+                    }
+
+                    /**
+                     * Creates an exception for a function that failed with the given {@code HRESULT}.
+                     *
+                     * @param functionName the function name
+                     * @param hresult      the {@code HRESULT}
+                     * @return the exception
+                     */
+                    public static WindowsException hresult(String functionName, int hresult) {
+                        return new WindowsException(String.format("%%s failed with HRESULT 0x%%08X", functionName, hresult),
+                                functionName, hresult);
+                    }
+
+                    /**
+                     * Creates an exception for a function that failed with the given {@code NTSTATUS}.
+                     *
+                     * @param functionName the function name
+                     * @param status       the {@code NTSTATUS}
+                     * @return the exception
+                     */
+                    public static WindowsException ntStatus(String functionName, int status) {
+                        return new WindowsException(String.format("%%s failed with NTSTATUS 0x%%08X", functionName, status),
+                                functionName, status);
+                    }
+
+                    /**
+                     * Creates an exception for a function that failed with the given error code.
+                     *
+                     * @param functionName the function name
+                     * @param errorCode    the error code (usually a {@code WIN32_ERROR} value)
+                     * @return the exception
+                     */
+                    public static WindowsException win32Error(String functionName, int errorCode) {
+                        return new WindowsException(String.format("%%s failed with error %%d", functionName, errorCode),
+                                functionName, errorCode);
+                    }
+
+                    /**
+                     * Creates an exception for a function that failed and set the last error.
+                     * <p>
+                     * The error code is taken from the thread-local call state (see {@link CallState#lastError()}).
+                     * </p>
+                     *
+                     * @param functionName the function name
+                     * @return the exception
+                     */
+                    public static WindowsException lastError(String functionName) {
+                        return win32Error(functionName, CallState.lastError());
+                    }
+                }
+                """, packageName);
+    }
+
+    private void writeScratchAllocator() {
+        writer.printf("""
+                package %s;
+
+                import java.lang.foreign.*;
+
+                /**
+                 * Thread-local scratch allocator for short-lived native memory.
+                 * <p>
+                 * The allocator manages a small memory segment that is allocated once per thread and reused.
+                 * Memory is allocated in stack order: the current position is saved with {@link #mark()}
+                 * and all memory allocated since is released with {@link #reset(long)}. So nested usage,
+                 * e.g., from a callback function invoked during a native call, is safe.
+                 * </p>
+                 * <p>
+                 * Allocated memory is not initialized. If the scratch memory is exhausted, memory is
+                 * allocated from an automatic arena instead.
+                 * </p>
+                 * <p>
+                 * The allocator is used by the generated function overloads returning the values of
+                 * out parameters. It must only be used by the thread it belongs to.
+                 * </p>
+                 */
+                public final class ScratchAllocator implements SegmentAllocator {
+
+                    private static final long SIZE = 256;
+                    private static final ThreadLocal<ScratchAllocator> CURRENT = ThreadLocal.withInitial(ScratchAllocator::new);
+
+                    private final MemorySegment buffer = Arena.ofAuto().allocate(SIZE, 16);
+                    private long offset;
+
+                    /**
+                     * Gets the scratch allocator of the current thread.
+                     *
+                     * @return the scratch allocator
+                     */
+                    public static ScratchAllocator current() {
+                        return CURRENT.get();
+                    }
+
+                    /**
+                     * Gets the current allocation position.
+                     *
+                     * @return the position, to be passed to {@link #reset(long)}
+                     */
+                    public long mark() {
+                        return offset;
+                    }
+
+                    /**
+                     * Releases all memory allocated since the specified position was retrieved.
+                     *
+                     * @param mark the position returned by {@link #mark()}
+                     */
+                    public void reset(long mark) {
+                        offset = mark;
+                    }
+
+                    @Override
+                    public MemorySegment allocate(long byteSize, long byteAlignment) {
+                        var address = buffer.address();
+                        var start = ((address + offset + byteAlignment - 1) & -byteAlignment) - address;
+                        var end = start + byteSize;
+                        if (end > SIZE)
+                            return Arena.ofAuto().allocate(byteSize, byteAlignment);
+
+                        offset = end;
+                        return buffer.asSlice(start, byteSize, byteAlignment);
+                    }
+
+                    private ScratchAllocator() {}
+                }
+                """, packageName);
+    }
+
+    private void writeSlabAllocator() {
+        writer.printf("""
+                package %s;
+
+                import java.lang.foreign.*;
+                import java.util.ArrayList;
+                import java.util.List;
+
+                /**
+                 * Slab allocator for native memory reused across iterations.
+                 * <p>
+                 * The allocator hands out consecutive slices of a few large memory segments (slabs).
+                 * Allocation is a simple increment of the current position. {@link #reset()} releases all
+                 * allocated memory at once so it can be reused in the next iteration, without calling
+                 * {@code malloc()} and {@code free()}. If the current slab is exhausted, another slab twice
+                 * the size is allocated and kept for later iterations.
+                 * </p>
+                 * <p>
+                 * {@link #allocate(long, long)} zeroes the memory like an arena.
+                 * {@link #allocateUninitialized(long, long)} skips it and leaves the data of the previous
+                 * iteration in place. The generated {@code allocateUninitialized(SlabAllocator)} methods of structs
+                 * use it and only set the struct size field, if any.
+                 * </p>
+                 * <p>
+                 * The slabs are allocated from a confined arena. So the allocator and the allocated memory
+                 * must only be used by the thread that has created the allocator. The slabs are freed when
+                 * the allocator is closed.
+                 * </p>
+                 */
+                public final class SlabAllocator implements SegmentAllocator, AutoCloseable {
+
+                    private static final long DEFAULT_SLAB_SIZE = 4096;
+                    private static final long SLAB_ALIGNMENT = 16;
+
+                    private final Arena arena = Arena.ofConfined();
+                    private final List<MemorySegment> slabs = new ArrayList<>();
+                    private MemorySegment slab;
+                    private int slabIndex;
+                    private long offset;
+
+                    /**
+                     * Creates a new allocator with the default slab size of 4 KB.
+                     */
+                    public SlabAllocator() {
+                        this(DEFAULT_SLAB_SIZE);
+                    }
+
+                    /**
+                     * Creates a new allocator with the specified size of the initial slab.
+                     *
+                     * @param slabSize the size of the initial slab (in bytes)
+                     */
+                    public SlabAllocator(long slabSize) {
+                        if (slabSize <= 0)
+                            throw new IllegalArgumentException("Slab size must be positive");
+                        slab = arena.allocate(slabSize, SLAB_ALIGNMENT);
+                        slabs.add(slab);
+                    }
+
+                    @Override
+                    public MemorySegment allocate(long byteSize, long byteAlignment) {
+                        return allocateUninitialized(byteSize, byteAlignment).fill((byte) 0);
+                    }
+
+                    /**
+                     * Allocates a memory segment without zeroing it.
+                     * <p>
+                     * The memory contains the data of a previous allocation or garbage.
+                     * </p>
+                     *
+                     * @param byteSize      the size (in bytes)
+                     * @param byteAlignment the alignment (in bytes), a power of two
+                     * @return the memory segment
+                     */
+                    public MemorySegment allocateUninitialized(long byteSize, long byteAlignment) {
+                        if (byteSize < 0 || byteAlignment <= 0 || (byteAlignment & (byteAlignment - 1)) != 0)
+                            throw new IllegalArgumentException("Invalid size or alignment");
+
+                        var address = slab.address();
+                        var start = ((address + offset + byteAlignment - 1) & -byteAlignment) - address;
+                        var end = start + byteSize;
+                        if (end > slab.byteSize()) {
+                            nextSlab(byteSize + byteAlignment);
+                            return allocateUninitialized(byteSize, byteAlignment);
+                        }
+
+                        offset = end;
+                        return slab.asSlice(start, byteSize, byteAlignment);
+                    }
+
+                    /**
+                     * Releases all allocated memory for reuse.
+                     * <p>
+                     * Memory segments allocated before must no longer be used.
+                     * </p>
+                     */
+                    public void reset() {
+                        slabIndex = 0;
+                        slab = slabs.getFirst();
+                        offset = 0;
+                    }
+
+                    /**
+                     * Gets the total size of the slabs allocated so far.
+                     *
+                     * @return the size (in bytes)
+                     */
+                    public long capacity() {
+                        long capacity = 0;
+                        for (var s : slabs)
+                            capacity += s.byteSize();
+                        return capacity;
+                    }
+
+                    /**
+                     * Frees all slabs.
+                     * <p>
+                     * Memory segments allocated before must no longer be used.
+                     * </p>
+                     */
+                    @Override
+                    public void close() {
+                        arena.close();
+                    }
+
+                    private void nextSlab(long minSize) {
+                        offset = 0;
+                        // reuse the next slab if it is large enough
+                        while (slabIndex + 1 < slabs.size()) {
+                            slabIndex += 1;
+                            slab = slabs.get(slabIndex);
+                            if (slab.byteSize() >= minSize)
+                                return;
+                        }
+
+                        var size = Math.max(slabs.getLast().byteSize() * 2, minSize);
+                        slab = arena.allocate(size, SLAB_ALIGNMENT);
+                        slabs.add(slab);
+                        slabIndex = slabs.size() - 1;
+                    }
+                }
+                """, packageName);
+    }
+
+    private void writeSegmentPool() {
+        writer.printf("""
+                package %s;
+
+                import java.lang.foreign.*;
+                import java.util.ArrayDeque;
+                import java.util.ArrayList;
+                import java.util.List;
+
+                /**
+                 * Pool of native memory segments organized in size classes.
+                 * <p>
+                 * Segments are acquired with {@link #acquire(long, long)} and returned to the pool with
+                 * {@link #release(MemorySegment)}. They are grouped into size classes of powers of two
+                 * (16 bytes and larger). A released segment is reused for the next request of the same
+                 * size class, without calling {@code malloc()} and {@code free()}. Requests with an alignment of more
+                 * than 16 bytes reuse a segment of the size class with a suitable address. So a loop acquiring
+                 * and releasing segments does not grow the native memory, independent of size and alignment.
+                 * </p>
+                 * <p>
+                 * Released segments are only freed when the pool is closed. So the memory of the pool is the
+                 * maximum memory acquired at the same time, with sizes rounded up to the next power of two.
+                 * </p>
+                 * <p>
+                 * {@link #acquire(long, long)} does not zero the memory. The generated
+                 * {@code acquire(SegmentPool)} methods of structs use it and only set the struct size field, if any.
+                 * {@link #allocate(long, long)} zeroes the memory like an arena.
+                 * </p>
+                 * <p>
+                 * The segments are allocated from a confined arena. So the pool and the acquired memory
+                 * must only be used by the thread that has created the pool. All segments are freed when
+                 * the pool is closed.
+                 * </p>
+                 */
+                public final class SegmentPool implements SegmentAllocator, AutoCloseable {
+
+                    private static final int MIN_SIZE_SHIFT = 4;
+                    private static final int MAX_SIZE_SHIFT = 62;
+                    private static final long SEGMENT_ALIGNMENT = 16;
+
+                    private final Arena arena = Arena.ofConfined();
+                    private final List<ArrayDeque<MemorySegment>> freeSegments = new ArrayList<>(MAX_SIZE_SHIFT + 1);
+
+                    /**
+                     * Creates a new pool.
+                     */
+                    public SegmentPool() {
+                        for (int i = 0; i <= MAX_SIZE_SHIFT; i += 1)
+                            freeSegments.add(new ArrayDeque<>());
+                    }
+
+                    /**
+                     * Acquires a memory segment without zeroing it.
+                     * <p>
+                     * The memory contains the data of a previous use or garbage.
+                     * </p>
+                     *
+                     * @param byteSize      the size (in bytes)
+                     * @param byteAlignment the alignment (in bytes), a power of two
+                     * @return the memory segment
+                     */
+                    public MemorySegment acquire(long byteSize, long byteAlignment) {
+                        if (byteAlignment <= 0 || (byteAlignment & (byteAlignment - 1)) != 0)
+                            throw new IllegalArgumentException("Invalid alignment: " + byteAlignment);
+
+                        var sizeShift = sizeShift(byteSize);
+                        var segment = pollAligned(freeSegments.get(sizeShift), byteAlignment);
+                        if (segment == null)
+                            segment = arena.allocate(1L << sizeShift, Math.max(byteAlignment, SEGMENT_ALIGNMENT));
+                        return segment.asSlice(0, byteSize, byteAlignment);
+                    }
+
+                    @Override
+                    public MemorySegment allocate(long byteSize, long byteAlignment) {
+                        return acquire(byteSize, byteAlignment).fill((byte) 0);
+                    }
+
+                    /**
+                     * Returns a memory segment to the pool.
+                     * <p>
+                     * The segment must have been returned by {@link #acquire(long, long)} or {@link #allocate(long, long)}
+                     * of this pool (not a slice of it) and must no longer be used.
+                     * </p>
+                     *
+                     * @param segment the memory segment
+                     */
+                    public void release(MemorySegment segment) {
+                        if (!segment.scope().equals(arena.scope()))
+                            throw new IllegalArgumentException("Segment has not been acquired from this pool");
+
+                        var sizeShift = sizeShift(segment.byteSize());
+                        freeSegments.get(sizeShift).addLast(segment.reinterpret(1L << sizeShift));
+                    }
+
+                    /**
+                     * Frees all segments.
+                     * <p>
+                     * Memory segments acquired before must no longer be used.
+                     * </p>
+                     */
+                    @Override
+                    public void close() {
+                        arena.close();
+                    }
+
+                    /**
+                     * Removes a segment with an address aligned to the given alignment from the free segments.
+                     * <p>
+                     * The most recently released segment is checked first. It is usually suitable
+                     * as all segments are aligned to 16 bytes and the same alignment is usually requested
+                     * for the same size class.
+                     * </p>
+                     */
+                    private static MemorySegment pollAligned(ArrayDeque<MemorySegment> segments, long byteAlignment) {
+                        var last = segments.peekLast();
+                        if (last == null || isAligned(last, byteAlignment))
+                            return segments.pollLast();
+
+                        for (var iterator = segments.descendingIterator(); iterator.hasNext(); ) {
+                            var segment = iterator.next();
+                            if (isAligned(segment, byteAlignment)) {
+                                iterator.remove();
+                                return segment;
+                            }
+                        }
+                        return null;
+                    }
+
+                    private static boolean isAligned(MemorySegment segment, long byteAlignment) {
+                        return (segment.address() & (byteAlignment - 1)) == 0;
+                    }
+
+                    private static int sizeShift(long byteSize) {
+                        if (byteSize < 0 || byteSize > 1L << MAX_SIZE_SHIFT)
+                            throw new IllegalArgumentException("Invalid size: " + byteSize);
+                        if (byteSize <= 1L << MIN_SIZE_SHIFT)
+                            return MIN_SIZE_SHIFT;
+                        return 64 - Long.numberOfLeadingZeros(byteSize - 1);
+                    }
+                }
+                """, packageName);
+    }
+}
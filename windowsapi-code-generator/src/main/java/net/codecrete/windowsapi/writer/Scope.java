@@ -9,17 +9,29 @@ package net.codecrete.windowsapi.writer;
 import net.codecrete.windowsapi.events.Event;
 import net.codecrete.windowsapi.events.EventListener;
 import net.codecrete.windowsapi.metadata.Array;
+import net.codecrete.windowsapi.metadata.ComInterface;
 import net.codecrete.windowsapi.metadata.ConstantValue;
+import net.codecrete.windowsapi.metadata.Delegate;
+import net.codecrete.windowsapi.metadata.EnumType;
 import net.codecrete.windowsapi.metadata.Metadata;
 import net.codecrete.windowsapi.metadata.Method;
+import net.codecrete.windowsapi.metadata.NameKind;
 import net.codecrete.windowsapi.metadata.Namespace;
 import net.codecrete.windowsapi.metadata.Pointer;
 import net.codecrete.windowsapi.metadata.Primitive;
+import net.codecrete.windowsapi.metadata.Struct;
 import net.codecrete.windowsapi.metadata.Type;
 import net.codecrete.windowsapi.metadata.TypeAlias;
+import net.codecrete.windowsapi.usage.ClassFileScanner;
+import net.codecrete.windowsapi.usage.ClassReferences;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,18 +46,31 @@ import java.util.stream.Stream;
  * </p>
  */
 public class Scope {
+    static final String KIND_STRUCTS = "structs";
+    static final String KIND_ENUMERATIONS = "enumerations";
+    static final String KIND_CALLBACK_FUNCTIONS = "callbackFunctions";
+    static final String KIND_COM_INTERFACES = "comInterfaces";
+    static final String KIND_FUNCTIONS = "functions";
+    static final String KIND_CONSTANTS = "constants";
+
     private static final String NOT_FOUND_TEMPLATE = "%s \"%s\" does not exist.";
-    private static final String DID_YOU_MEAN_TEMPLATE = "%s Did you mean \"%s\"?.";
+    private static final String NO_MATCH_TEMPLATE = "%s pattern \"%s\" does not match any name.";
+    private static final String DID_YOU_MEAN_TEMPLATE = "%s Did you mean %s?";
     private static final String ENUMERATION_MEMBER_SINGLE = "%s Enumeration \"%s\" contains a member with that name. " +
             "Specify the enumeration instead of the constant.";
+    private static final int MAX_SUGGESTIONS = 3;
+    private static final List<String> FUNCTION_VARIANT_SUFFIXES =
+            List.of("", "OrThrow", "Async", "$descriptor", "$handle");
 
     private final Set<Type> typeSet = new HashSet<>();
     private final Set<Method> methodSet = new HashSet<>();
     private final Set<ConstantValue> constantSet = new HashSet<>();
-    private final Set<Type> transitiveScope = new HashSet<>();
+    private final Set<String> asyncFunctionSet = new HashSet<>();
+    private final Set<Type> transitiveScope = new LinkedHashSet<>();
     private final Metadata metadata;
     private final EventListener eventListener;
     private boolean hasInvalidArguments = false;
+    private boolean prunePointerOnlyStructs = false;
 
     /**
      * Creates a new scope.
@@ -70,6 +95,18 @@ public class Scope {
         return methodSet;
     }
 
+    /**
+     * Gets the names of the functions for which an async variant is generated.
+     * <p>
+     * Patterns have been replaced with the matching names.
+     * </p>
+     *
+     * @return the function names
+     */
+    public Set<String> asyncFunctions() {
+        return asyncFunctionSet;
+    }
+
     /**
      * Indicates if some of the arguments that were set are invalid.
      *
@@ -79,128 +116,174 @@ public class Scope {
         return hasInvalidArguments;
     }
 
+    /**
+     * Indicates if structs only referenced through pointers are excluded from the transitive scope.
+     *
+     * @return {@code true} if they are excluded, {@code false} otherwise
+     */
+    public boolean isPrunePointerOnlyStructs() {
+        return prunePointerOnlyStructs;
+    }
+
+    /**
+     * Sets if structs only referenced through pointers are excluded from the transitive scope.
+     * <p>
+     * If set, a struct is only part of the transitive scope if it has been added explicitly
+     * or if it is embedded by value in another type of the scope (as a member, a parameter
+     * or a return value).
+     * </p>
+     *
+     * @param prunePointerOnlyStructs {@code true} to exclude them
+     */
+    public void setPrunePointerOnlyStructs(boolean prunePointerOnlyStructs) {
+        this.prunePointerOnlyStructs = prunePointerOnlyStructs;
+    }
+
     /**
      * Adds structs and unions to this scope.
      * <p>
+     * Names can be patterns with the wildcard characters {@code *} and {@code ?} (see
+     * {@link Metadata#findMatchingNames(NameKind, String)}). They are expanded to all matching names.
+     * </p>
+     * <p>
      * For invalid struct names, error events are emitted.
      * But no exception is thrown.
      * </p>
      *
-     * @param structs names of structs and unions
+     * @param structs names of structs and unions (or patterns)
      */
     public void addStructs(Set<String> structs) {
-        var foundStructs = metadata.findStructs(structs);
+        var structNames = expandPatterns("structs", structs, "Struct/union", NameKind.STRUCT);
+        var foundStructs = metadata.findStructs(structNames);
         var foundStructNames = foundStructs.stream().map(Type::nativeName).collect(Collectors.toSet());
         var missingStructs =
-                structs.stream().filter(name -> !foundStructNames.contains(name)).collect(Collectors.toSet());
+                structNames.stream().filter(name -> !foundStructNames.contains(name)).collect(Collectors.toSet());
         if (missingStructs.isEmpty()) {
             addTypes(foundStructs);
         } else {
             hasInvalidArguments = true;
-            for (var struct : missingStructs) {
-                var wideStringType = metadata.findStructs(Set.of(struct + "W"))
-                        .stream().map(Type::name).findFirst();
-                emitNotFoundError("structs", struct, "Struct/union", wideStringType.orElse(null));
-            }
+            for (var struct : missingStructs)
+                emitNotFoundError("structs", struct, "Struct/union", NameKind.STRUCT);
         }
     }
 
     /**
      * Adds enumerations to this scope.
      * <p>
+     * Names can be patterns with the wildcard characters {@code *} and {@code ?} (see
+     * {@link Metadata#findMatchingNames(NameKind, String)}). They are expanded to all matching names.
+     * </p>
+     * <p>
      * For invalid enumeration names, error events are emitted.
      * But no exception is thrown.
      * </p>
      *
-     * @param enumerations names of enumerations
+     * @param enumerations names of enumerations (or patterns)
      */
     public void addEnums(Set<String> enumerations) {
-        var foundEnums = metadata.findEnums(enumerations);
+        var enumNames = expandPatterns("enumerations", enumerations, "Enumeration", NameKind.ENUMERATION);
+        var foundEnums = metadata.findEnums(enumNames);
         var foundEnumNames = foundEnums.stream().map(Type::name).collect(Collectors.toSet());
         var missingEnums =
-                enumerations.stream().filter(name -> !foundEnumNames.contains(name)).collect(Collectors.toSet());
+                enumNames.stream().filter(name -> !foundEnumNames.contains(name)).collect(Collectors.toSet());
         if (missingEnums.isEmpty()) {
             addTypes(foundEnums);
         } else {
             hasInvalidArguments = true;
             for (var enumName : missingEnums)
-                emitNotFoundError("enumerations", enumName, "Enumeration", null);
+                emitNotFoundError("enumerations", enumName, "Enumeration", NameKind.ENUMERATION);
         }
     }
 
     /**
      * Adds callback functions to this scope.
      * <p>
+     * Names can be patterns with the wildcard characters {@code *} and {@code ?} (see
+     * {@link Metadata#findMatchingNames(NameKind, String)}). They are expanded to all matching names.
+     * </p>
+     * <p>
      * For invalid callback function names, error events are emitted.
      * But no exception is thrown.
      * </p>
      *
-     * @param callbackFunctions names of callback functions
+     * @param callbackFunctions names of callback functions (or patterns)
      */
     public void addCallbackFunctions(Set<String> callbackFunctions) {
-        var foundCallbackFunctions = metadata.findDelegates(callbackFunctions);
+        var callbackFunctionNames = expandPatterns("callbackFunctions", callbackFunctions, "Callback function",
+                NameKind.CALLBACK_FUNCTION);
+        var foundCallbackFunctions = metadata.findDelegates(callbackFunctionNames);
         var foundCallbackFunctionNames = foundCallbackFunctions.stream().map(Type::name).collect(Collectors.toSet());
         var missingCallbackFunctions =
-                callbackFunctions.stream().filter(name -> !foundCallbackFunctionNames.contains(name)).collect(Collectors.toSet());
+                callbackFunctionNames.stream().filter(name -> !foundCallbackFunctionNames.contains(name)).collect(Collectors.toSet());
 
         if (missingCallbackFunctions.isEmpty()) {
             addTypes(foundCallbackFunctions);
         } else {
             hasInvalidArguments = true;
-            for (var callbackFunction : missingCallbackFunctions) {
-                var wideStringCallbackFunction = metadata.findDelegates(Set.of(callbackFunction + "W"))
-                        .stream().map(Type::name).findFirst().orElse(null);
+            for (var callbackFunction : missingCallbackFunctions)
                 emitNotFoundError("callbackFunctions", callbackFunction, "Callback function",
-                        wideStringCallbackFunction);
-            }
+                        NameKind.CALLBACK_FUNCTION);
         }
     }
 
     /**
      * Adds COM interfaces to this scope.
      * <p>
+     * Names can be patterns with the wildcard characters {@code *} and {@code ?} (see
+     * {@link Metadata#findMatchingNames(NameKind, String)}). They are expanded to all matching names.
+     * </p>
+     * <p>
      * For invalid COM interface names, error events are emitted.
      * But no exception is thrown.
      * </p>
      *
-     * @param comInterfaces names of COM interfaces
+     * @param comInterfaces names of COM interfaces (or patterns)
      */
     public void addComInterfaces(Set<String> comInterfaces) {
-        var foundComInterfaces = metadata.findComInterfaces(comInterfaces);
+        var comInterfaceNames = expandPatterns("comInterfaces", comInterfaces, "COM interface",
+                NameKind.COM_INTERFACE);
+        var foundComInterfaces = metadata.findComInterfaces(comInterfaceNames);
         var foundComInterfaceNames = foundComInterfaces.stream().map(Type::name).collect(Collectors.toSet());
         var missingComInterfaces =
-                comInterfaces.stream().filter(name -> !foundComInterfaceNames.contains(name)).collect(Collectors.toSet());
+                comInterfaceNames.stream().filter(name -> !foundComInterfaceNames.contains(name)).collect(Collectors.toSet());
         if (missingComInterfaces.isEmpty()) {
             addTypes(foundComInterfaces);
         } else {
             hasInvalidArguments = true;
             for (var comInterface : missingComInterfaces)
-                emitNotFoundError("comInterfaces", comInterface, "COM interface", null);
+                emitNotFoundError("comInterfaces", comInterface, "COM interface", NameKind.COM_INTERFACE);
         }
     }
 
     /**
      * Adds constants to this scope.
      * <p>
+     * Names can be patterns with the wildcard characters {@code *} and {@code ?} (see
+     * {@link Metadata#findMatchingNames(NameKind, String)}). They are expanded to all matching names.
+     * </p>
+     * <p>
      * For invalid constant names, error events are emitted.
      * But no exception is thrown.
      * </p>
      *
-     * @param constants names of constants
+     * @param constants names of constants (or patterns)
      */
     public void addConstants(Set<String> constants) {
-        var foundConstants = metadata.findConstants(constants);
+        var constantNames = expandPatterns("constants", constants, "Constant", NameKind.CONSTANT);
+        var foundConstants = metadata.findConstants(constantNames);
         var foundConstantNames = foundConstants.stream().map(ConstantValue::name).collect(Collectors.toSet());
         var missingConstants =
-                constants.stream().filter(name -> !foundConstantNames.contains(name)).collect(Collectors.toSet());
+                constantNames.stream().filter(name -> !foundConstantNames.contains(name)).collect(Collectors.toSet());
         if (missingConstants.isEmpty()) {
             constantSet.addAll(foundConstants);
         } else {
             hasInvalidArguments = true;
             for (var constant : missingConstants) {
-                var alternatives = metadata.findEnumWithMember(constant);
-                var alternative = !alternatives.isEmpty() ? alternatives.getFirst().name() : null;
-                emitNotFoundErrorForConstant(constant, alternative);
+                var enumerations = metadata.findEnumWithMember(constant);
+                if (!enumerations.isEmpty())
+                    emitNotFoundErrorForConstant(constant, enumerations.getFirst().name());
+                else
+                    emitNotFoundError("constants", constant, "Constant", NameKind.CONSTANT);
             }
         }
     }
@@ -208,79 +291,218 @@ public class Scope {
     /**
      * Adds functions to this scope.
      * <p>
+     * Names can be patterns with the wildcard characters {@code *} and {@code ?} (see
+     * {@link Metadata#findMatchingNames(NameKind, String)}). They are expanded to all matching names.
+     * </p>
+     * <p>
      * For invalid function names, error events are emitted.
      * But no exception is thrown.
      * </p>
      *
-     * @param functions the functions
+     * @param functions the functions (or patterns)
      */
     public void addFunctions(Set<String> functions) {
-        var foundFunctions = metadata.findFunctions(functions);
+        var functionNames = expandPatterns("functions", functions, "Function", NameKind.FUNCTION);
+        var foundFunctions = metadata.findFunctions(functionNames);
         var foundFunctionNames =
                 foundFunctions.stream().map(Method::nativeName).collect(Collectors.toSet());
         var missingFunctions =
-                functions.stream().filter(name -> !foundFunctionNames.contains(name)).collect(Collectors.toSet());
+                functionNames.stream().filter(name -> !foundFunctionNames.contains(name)).collect(Collectors.toSet());
 
         if (missingFunctions.isEmpty()) {
             methodSet.addAll(foundFunctions);
         } else {
             hasInvalidArguments = true;
-            for (var function : missingFunctions) {
-                var alternative = metadata.findFunctions(Set.of(function + "W"))
-                        .stream().map(Method::name).findFirst().orElse(null);
-                emitNotFoundError("functions", function, "Function", alternative);
-            }
+            for (var function : missingFunctions)
+                emitNotFoundError("functions", function, "Function", NameKind.FUNCTION);
         }
     }
 
+    /**
+     * Adds functions to this scope for which an async variant is generated.
+     * <p>
+     * The functions are added as if added with {@link #addFunctions(Set)}. Patterns are expanded
+     * and the resulting names are available from {@link #asyncFunctions()}.
+     * </p>
+     *
+     * @param functions the functions (or patterns)
+     */
+    public void addAsyncFunctions(Set<String> functions) {
+        var functionNames = expandPatterns("asyncFunctions", functions, "Function", NameKind.FUNCTION);
+        asyncFunctionSet.addAll(functionNames);
+        addFunctions(functionNames);
+    }
+
     void addTypes(Collection<Type> types) {
         var newTypes = types.stream().filter(t -> !typeSet.contains(t)).toList();
         typeSet.addAll(newTypes);
     }
 
-    private void emitNotFoundError(String argumentName, String argumentValue, String elementType, String alternative) {
+    /**
+     * Replaces the patterns in the given names with the matching names.
+     * <p>
+     * For each pattern, an event with the number of matching names is emitted.
+     * For patterns not matching any name, error events are emitted.
+     * </p>
+     */
+    private Set<String> expandPatterns(String argumentName, Set<String> names, String elementType, NameKind kind) {
+        if (names.stream().noneMatch(Metadata::isPattern))
+            return names;
+
+        var expandedNames = new HashSet<String>();
+        for (var name : names) {
+            if (!Metadata.isPattern(name)) {
+                expandedNames.add(name);
+                continue;
+            }
+
+            var matchingNames = metadata.findMatchingNames(kind, name);
+            if (matchingNames.isEmpty()) {
+                hasInvalidArguments = true;
+                var reason = String.format(NO_MATCH_TEMPLATE, elementType, name);
+                eventListener.onEvent(new Event.InvalidArgument(argumentName, name, reason));
+            } else {
+                eventListener.onEvent(new Event.PatternResolved(argumentName, name, matchingNames.size()));
+                expandedNames.addAll(matchingNames);
+            }
+        }
+        return expandedNames;
+    }
+
+    private void emitNotFoundError(String argumentName, String argumentValue, String elementType, NameKind kind) {
         var reason = String.format(NOT_FOUND_TEMPLATE, elementType, argumentValue);
-        if (alternative != null)
-            reason = String.format(DID_YOU_MEAN_TEMPLATE, reason, alternative);
+        var alternatives = findAlternatives(kind, argumentValue);
+        if (!alternatives.isEmpty())
+            reason = String.format(DID_YOU_MEAN_TEMPLATE, reason, formatAlternatives(alternatives));
         eventListener.onEvent(new Event.InvalidArgument(argumentName, argumentValue, reason));
     }
 
-    private void emitNotFoundErrorForConstant(String argumentValue, String alternative) {
+    private void emitNotFoundErrorForConstant(String argumentValue, String enumeration) {
         var reason = String.format(NOT_FOUND_TEMPLATE, "Constant", argumentValue);
-        if (alternative != null)
-            reason = String.format(ENUMERATION_MEMBER_SINGLE, reason, alternative);
+        reason = String.format(ENUMERATION_MEMBER_SINGLE, reason, enumeration);
         eventListener.onEvent(new Event.InvalidArgument("constants", argumentValue, reason));
     }
 
+    /**
+     * Finds the names similar to the given name.
+     * <p>
+     * The wide string variant (name with suffix "W") is the preferred alternative
+     * and is placed first if it exists.
+     * </p>
+     */
+    private List<String> findAlternatives(NameKind kind, String name) {
+        var alternatives = new ArrayList<>(metadata.findSimilarNames(kind, name, MAX_SUGGESTIONS + 1));
+        if (alternatives.remove(name + "W"))
+            alternatives.addFirst(name + "W");
+        return alternatives.subList(0, Math.min(alternatives.size(), MAX_SUGGESTIONS));
+    }
+
+    private static String formatAlternatives(List<String> alternatives) {
+        var quoted = alternatives.stream().map(alternative -> "\"" + alternative + "\"").toList();
+        if (quoted.size() == 1)
+            return quoted.getFirst();
+        return String.join(", ", quoted.subList(0, quoted.size() - 1)) + " or " + quoted.getLast();
+    }
+
     /**
      * Builds the transitive scope from the registered types and functions.
      * <p>
      * Primitive types, pointers, type aliases, and arrays are excluded
      * as they will not result in a Java file.
      * </p>
+     * <p>
+     * If structs only referenced through pointers are pruned, such structs are excluded as well.
+     * </p>
      */
     public void buildTransitiveScope() {
         if (hasInvalidArguments)
             throw new IllegalStateException("The transitive scope cannot be built as invalid arguments were set.");
 
-        transitiveScope.addAll(typeSet);
-        typeSet.forEach(type -> addDependencies(type.referencedTypes()));
-        methodSet.forEach(method -> addDependencies(method.referencedTypes()));
-        addDependencies(constantSet.stream().map(ConstantValue::type));
+        var graph = metadata.dependencyGraph();
+        var includeStructPointers = !prunePointerOnlyStructs;
+        var roots = new BitSet(graph.nodeCount());
+        for (var type : typeSet) {
+            graph.addNodes(type, roots);
+            if (type instanceof TypeAlias)
+                type.referencedTypes().forEach(referencedType -> graph.addNodes(referencedType, roots, includeStructPointers));
+        }
+        methodSet.forEach(method -> method.referencedTypes()
+                .forEach(type -> graph.addNodes(type, roots, includeStructPointers)));
+        constantSet.forEach(constant -> graph.addNodes(constant.type(), roots));
+
+        var closure = graph.closure(roots, includeStructPointers);
+        for (int node = closure.nextSetBit(0); node >= 0; node = closure.nextSetBit(node + 1))
+            transitiveScope.add(graph.type(node));
         if (methodSet.stream().anyMatch(Method::supportsLastError))
             transitiveScope.add(metadata.getType("Windows.Win32.Foundation", "WIN32_ERROR"));
         transitiveScope.removeIf(type -> !generatesJavaFile(type));
     }
 
-    private void addDependencies(Stream<Type> types) {
-        var iterator = types.iterator();
-        while (iterator.hasNext()) {
-            var type = iterator.next();
-            if (type instanceof Primitive || type instanceof TypeAlias)
-                continue; // optimization as they will not extend the scope
-            if (transitiveScope.add(type))
-                addDependencies(type.referencedTypes());
-        }
+    /**
+     * Reduces this scope to the elements referenced by the compiled classes in the specified directory.
+     * <p>
+     * The class files are scanned for references to the classes and methods generated for this scope,
+     * i.e., to the functions in the {@code Apis} classes and to the classes of structs, COM interfaces
+     * and callback functions. Class files of the generated code are skipped. Then the transitive scope
+     * is rebuilt from the referenced elements.
+     * </p>
+     * <p>
+     * Enumerations and constants are compiled into the referencing classes (as compile-time constants).
+     * Their use cannot be detected. So the specified enumerations and constants are retained.
+     * </p>
+     * <p>
+     * If the directory does not contain any class files (e.g., before the first compilation),
+     * the scope remains unchanged. The transitive scope must have been built before calling this method.
+     * </p>
+     *
+     * @param classesDirectory the directory containing the compiled classes
+     * @param basePackage      the base package of the generated code (or an empty string)
+     */
+    public void retainReferencedElements(Path classesDirectory, String basePackage) {
+        var generatedPackages = Stream.concat(metadata.namespaces().keySet().stream(),
+                        Stream.of(JavaCodeWriter.RUNTIME_NAMESPACE))
+                .map(namespace -> JavaCodeWriter.toJavaPackageName(basePackage, namespace))
+                .collect(Collectors.toSet());
+        var references = ClassFileScanner.scan(classesDirectory,
+                className -> generatedPackages.contains(packageName(className)));
+        eventListener.onEvent(new Event.ClassFilesScanned(classesDirectory, references.classFileCount()));
+
+        if (references.classFileCount() > 0)
+            retainReferencedElements(references, basePackage);
+    }
+
+    void retainReferencedElements(ClassReferences references, String basePackage) {
+        methodSet.removeIf(method -> !isReferenced(method, references, basePackage));
+
+        var referencedTypes = transitiveScope.stream()
+                .filter(type -> type instanceof EnumType
+                        ? typeSet.contains(type)
+                        : references.isClassReferenced(javaClassName(type, basePackage)))
+                .toList();
+        typeSet.clear();
+        typeSet.addAll(referencedTypes);
+
+        transitiveScope.clear();
+        buildTransitiveScope();
+    }
+
+    private static boolean isReferenced(Method method, ClassReferences references, String basePackage) {
+        var apisClass = JavaCodeWriter.toJavaPackageName(basePackage, method.namespace().name()) + ".Apis";
+        return FUNCTION_VARIANT_SUFFIXES.stream()
+                .anyMatch(suffix -> references.isMemberReferenced(apisClass, method.name() + suffix));
+    }
+
+    private static String javaClassName(Type type, String basePackage) {
+        var topLevelType = type;
+        while (topLevelType instanceof Struct struct && struct.enclosingType() != null)
+            topLevelType = struct.enclosingType();
+        return JavaCodeWriter.toJavaPackageName(basePackage, topLevelType.namespace().name()) + "."
+                + JavaCodeWriter.toJavaClassName(topLevelType.name());
+    }
+
+    private static String packageName(String className) {
+        var lastPeriod = className.lastIndexOf('.');
+        return lastPeriod >= 0 ? className.substring(0, lastPeriod) : "";
     }
 
     private boolean generatesJavaFile(Type type) {
@@ -296,6 +518,47 @@ public class Scope {
         return transitiveScope;
     }
 
+    /**
+     * Gets the size of the transitive scope per kind.
+     * <p>
+     * The sizes are indexed by the name of the configuration argument for the kind,
+     * e.g., {@code structs} or {@code comInterfaces}.
+     * </p>
+     *
+     * @return the number of structs, enumerations, callback functions, COM interfaces, functions and constants
+     */
+    public Map<String, Integer> getTransitiveScopeSizes() {
+        var sizes = new LinkedHashMap<String, Integer>();
+        sizes.put(KIND_STRUCTS, 0);
+        sizes.put(KIND_ENUMERATIONS, 0);
+        sizes.put(KIND_CALLBACK_FUNCTIONS, 0);
+        sizes.put(KIND_COM_INTERFACES, 0);
+        for (var type : transitiveScope) {
+            var kind = kindOf(type);
+            if (kind != null)
+                sizes.merge(kind, 1, Integer::sum);
+        }
+        sizes.put(KIND_FUNCTIONS, methodSet.size());
+        sizes.put(KIND_CONSTANTS, constantSet.size());
+        return sizes;
+    }
+
+    /**
+     * Gets the kind of the type, i.e., the name of the configuration argument for the type.
+     *
+     * @param type the type
+     * @return the kind, or {@code null} if no Java file is generated for the type
+     */
+    static String kindOf(Type type) {
+        return switch (type) {
+            case Struct struct when struct.namespace() != null -> KIND_STRUCTS;
+            case EnumType ignored -> KIND_ENUMERATIONS;
+            case Delegate ignored -> KIND_CALLBACK_FUNCTIONS;
+            case ComInterface ignored -> KIND_COM_INTERFACES;
+            default -> null;
+        };
+    }
+
     /**
      * Gets the functions grouped by namespace.
      *
@@ -16,6 +16,7 @@ import net.codecrete.windowsapi.metadata.Type;
 import net.codecrete.windowsapi.metadata.TypeAlias;
 import net.codecrete.windowsapi.winmd.LayoutRequirement;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
@@ -29,6 +30,11 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
 
     private static final String STRUCT = "struct";
     private static final String UNION = "union";
+    private static final String SNAPSHOT = "Snapshot";
+    private static final int MAX_RECORD_SLOTS = 254;
+    private static final Set<String> OBJECT_METHOD_NAMES = Set.of(
+            "clone", "finalize", "getClass", "hashCode", "notify", "notifyAll", "toString", "wait"
+    );
 
     private final CommentWriter commentWriter = new CommentWriter();
 
@@ -57,25 +63,24 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
                 
                 import java.lang.foreign.*;
                 import static java.lang.foreign.ValueLayout.*;
-                
                 """, packageName);
+        writeAddressLayoutsImport(AddressLayout.requiredLayouts(type, generationContext::isPrunedStruct));
+        writer.println();
 
         writeStructComment();
 
         writer.printf("""
                 public class %s {
+                
                 """, className);
 
-        // add required primitive address layouts
-        AddressLayout.requiredLayouts(type).forEach(layoutType ->
-                writeAddressLayoutInitialization(layoutType, "private static final "));
-        writer.println();
-
-        writeUnalignedStructLayouts();
         writeLayout();
+        writeUnalignedStructLayouts();
         writeFieldAccessors(type, 0, "", "");
         writeAllocationMethods();
         writeArrayAccessMethods();
+        if (generationContext.structRecords() && hasSnapshot(type))
+            writeSnapshot();
 
         // private constructor
         writer.printf("""
@@ -86,9 +91,17 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
     }
 
     private void writeLayout() {
-        writer.print("    private static final GroupLayout $LAYOUT = ");
-        writeStructLayout(type.packageSize());
+        // The layouts are built lazily (lazy holder idiom) as the accessors do not need them.
+        // Building them would also initialize the classes of all nested structs.
+        writer.println("    private static final class $LAYOUT {");
+        for (var struct : getSortedUnalignedMemberStructs()) {
+            writer.printf("        static final MemoryLayout %s$LAYOUT_UNALIGNED = align1(%s);%n",
+                    struct.name(), getLayoutName(struct, namespace));
+        }
+        writer.print("        static final GroupLayout LAYOUT = ");
+        writeStructLayout(8, type.packageSize());
         writer.println(";");
+        writer.println("    }");
         writer.println();
 
         var elementType = type.isUnion() ? UNION : STRUCT;
@@ -104,7 +117,7 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
         writeCommentWithNotes(comment, note);
         writer.print("""
                     public static GroupLayout layout() {
-                        return $LAYOUT;
+                        return $LAYOUT.LAYOUT;
                     }
                 
                 """);
@@ -159,6 +172,8 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
                                 """, type.structSize(), type.packageSize(), type.structSizeMember(),
                         getStructSizeExpression(type));
             }
+            if (generationContext.pooledAllocation())
+                writePooledAllocationMethods(elementType);
         } else {
             var flexibleMemberArray = (Array) type.flexibleArrayMember().type();
             var elementSize = LayoutRequirement.forType(flexibleMemberArray.itemType()).size();
@@ -190,6 +205,45 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
         }
     }
 
+    private void writePooledAllocationMethods(String elementType) {
+        var initializationNote = type.structSizeMember() != null
+                ? String.format("The memory is not zeroed. Only the field {@code %s} is set to the size of the %s. "
+                + "All other fields must be set before use.", type.structSizeMember(), elementType)
+                : "The memory is not zeroed. All fields must be set before use.";
+
+        writeCommentWithNotes(String.format("Allocates a memory segment for the %s {@code %s} from a slab allocator.",
+                        elementType, type.nativeName()), initializationNote,
+                "The memory is released when the allocator is reset or closed.");
+        writePooledAllocationMethod(runtimeClass(RuntimeCodeWriter.SLAB_ALLOCATOR), "allocator",
+                "allocateUninitialized");
+
+        writeCommentWithNotes(String.format("Acquires a memory segment for the %s {@code %s} from a segment pool.",
+                        elementType, type.nativeName()), initializationNote,
+                "The memory is returned to the pool with {@code release()}.");
+        writePooledAllocationMethod(runtimeClass(RuntimeCodeWriter.SEGMENT_POOL), "pool", "acquire");
+    }
+
+    private void writePooledAllocationMethod(String allocatorClass, String allocatorName, String allocateMethod) {
+        if (type.structSizeMember() == null) {
+            writer.printf("""
+                        public static MemorySegment %3$s(%1$s %2$s) {
+                            return %2$s.%3$s(%4$dL, %5$dL);
+                        }
+                    
+                    """, allocatorClass, allocatorName, allocateMethod, type.structSize(), type.packageSize());
+        } else {
+            writer.printf("""
+                        public static MemorySegment %3$s(%1$s %2$s) {
+                            var segment = %2$s.%3$s(%4$dL, %5$dL);
+                            %6$s(segment, %7$s);
+                            return segment;
+                        }
+
+                    """, allocatorClass, allocatorName, allocateMethod, type.structSize(), type.packageSize(),
+                    type.structSizeMember(), getStructSizeExpression(type));
+        }
+    }
+
     private void writeArrayAccessMethods() {
         if (type.hasFixedSize()) {
             var comment = String.format(
@@ -242,10 +296,10 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
         return getJavaIntegerConstant(getPrimitiveJavaType((Primitive) structSizeMember.type()), struct.structSize());
     }
 
-    private void writeStructLayout(int packageSize) {
+    private void writeStructLayout(int indenting, int packageSize) {
         writer.println(type.isUnion() ? "MemoryLayout.unionLayout(" : "MemoryLayout.structLayout(");
-        writeFieldsLayout(8, type.members(), packageSize);
-        writeIndent(4);
+        writeFieldsLayout(indenting + 4, type.members(), packageSize);
+        writeIndent(indenting);
         writer.print(")");
     }
 
@@ -356,7 +410,303 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
                         }
                     
                     """, prefix, fieldName, dataType, layoutName, offset);
+
+            if (type.hasFixedSize())
+                writeIndexedFieldAccessors(prefix, fieldName, nativePrefix + nativeFieldName, dataType, layoutName,
+                        offset);
+        }
+    }
+
+    private void writeIndexedFieldAccessors(String prefix, String fieldName, String nativeFieldName, String dataType,
+                                            String layoutName, long offset) {
+        var note = "The value is accessed directly in {@code array} without creating a slice for the element.";
+        var comment = String.format(
+                "Gets the value of field {@code %s} of the element with index {@code index} in {@code array}.",
+                nativeFieldName);
+        writeCommentWithNotes(comment, note);
+        writer.printf("""
+                    public static %s %s%s$at(MemorySegment array, long index) {
+                        return array.get(%s, %dL * index + %dL);
+                    }
+
+                """, dataType, prefix, fieldName, layoutName, type.structSize(), offset);
+
+        comment = String.format(
+                "Sets the field {@code %s} of the element with index {@code index} in {@code array} to {@code value}.",
+                nativeFieldName);
+        writeCommentWithNotes(comment, note);
+        writer.printf("""
+                    public static void %s%s$at(MemorySegment array, long index, %s value) {
+                        array.set(%s, %dL * index + %dL, value);
+                    }
+
+                """, prefix, fieldName, dataType, layoutName, type.structSize(), offset);
+    }
+
+    private void writeSnapshot() {
+        var components = getSnapshotComponents(type);
+
+        // record
+        writer.printf("""
+                    /**
+                     * Snapshot of the field values of the struct {@code %s}.
+                     * <p>
+                     * Nested structs are represented by their snapshot records, unions by their raw bytes,
+                     * and fixed arrays of primitive values by Java arrays.
+                     * </p>
+                     *
+                """, type.nativeName());
+        for (var component : components)
+            writer.printf("     * @param %s the value of the field {@code %s}%n", component.name(),
+                    component.nativeName());
+        writer.println("     */");
+        writer.printf("    public record %s(", SNAPSHOT);
+        for (int i = 0; i < components.size(); i += 1) {
+            var component = components.get(i);
+            writer.printf("%s%n            %s %s", i > 0 ? "," : "", getSnapshotJavaType(component),
+                    component.name());
+        }
+        writer.println(") {}");
+        writer.println();
+
+        writeSnapshotReadMethods(components);
+        writeSnapshotWriteMethods(components);
+    }
+
+    private void writeSnapshotReadMethods(List<SnapshotComponent> components) {
+        writeComment("Reads the struct {@code %s} from the start of {@code segment}.", type.nativeName());
+        writer.printf("""
+                    public static %1$s read(MemorySegment segment) {
+                        return read(segment, 0L);
+                    }
+
+                """, SNAPSHOT);
+
+        writeComment("Reads the struct {@code %s} at {@code offset} in {@code segment}.", type.nativeName());
+        writer.printf("""
+                    public static %s read(MemorySegment segment, long offset) {
+                """, SNAPSHOT);
+        for (var component : components) {
+            var length = getSnapshotArrayLength(component);
+            if (length >= 0) {
+                writer.printf("""
+                                var %1$s$ = new %2$s[%3$d];
+                                MemorySegment.copy(segment, %4$s, %5$s, %1$s$, 0, %3$d);
+                        """, component.name(), getSnapshotJavaType(component).replace("[]", ""), length,
+                        getSnapshotElementLayoutName(component), getOffsetExpression(component.offset()));
+            }
+        }
+        writer.printf("        return new %s(", SNAPSHOT);
+        for (int i = 0; i < components.size(); i += 1) {
+            var component = components.get(i);
+            var offsetExpression = getOffsetExpression(component.offset());
+            writer.printf("%s%n                ", i > 0 ? "," : "");
+            switch (component.kind()) {
+                case VALUE -> writer.printf("segment.get(%s, %s)", getLayoutName(component.type(),
+                        type.packageSize(), namespace), offsetExpression);
+                case SNAPSHOT -> writer.printf("%s.read(segment, %s)", getSnapshotStructClassName(component),
+                        offsetExpression);
+                case PRIMITIVE_ARRAY, BYTES -> writer.printf("%s$", component.name());
+            }
+        }
+        writer.println(");");
+        writer.println("    }");
+        writer.println();
+
+        writeComment("Reads {@code count} elements of the struct {@code %s} from the array {@code array}.",
+                type.nativeName());
+        writer.printf("""
+                    public static %1$s[] readArray(MemorySegment array, int count) {
+                        var result = new %1$s[count];
+                        for (int i = 0; i < count; i += 1)
+                            result[i] = read(array, %2$dL * i);
+                        return result;
+                    }
+
+                """, SNAPSHOT, type.structSize());
+    }
+
+    private void writeSnapshotWriteMethods(List<SnapshotComponent> components) {
+        writeComment("Writes {@code value} to the struct {@code %s} at the start of {@code segment}.",
+                type.nativeName());
+        writer.printf("""
+                    public static void write(MemorySegment segment, %s value) {
+                        write(segment, 0L, value);
+                    }
+
+                """, SNAPSHOT);
+
+        var note = "The lengths of the arrays in {@code value} must match the lengths of the array fields.";
+        writeCommentWithNotes(String.format(
+                "Writes {@code value} to the struct {@code %s} at {@code offset} in {@code segment}.",
+                type.nativeName()), note);
+        writer.printf("""
+                    public static void write(MemorySegment segment, long offset, %s value) {
+                """, SNAPSHOT);
+        for (var component : components) {
+            var offsetExpression = getOffsetExpression(component.offset());
+            switch (component.kind()) {
+                case VALUE -> writer.printf("        segment.set(%s, %s, value.%s());%n",
+                        getLayoutName(component.type(), type.packageSize(), namespace), offsetExpression,
+                        component.name());
+                case SNAPSHOT -> writer.printf("        %s.write(segment, %s, value.%s());%n",
+                        getSnapshotStructClassName(component), offsetExpression, component.name());
+                case PRIMITIVE_ARRAY, BYTES -> writer.printf(
+                        "        MemorySegment.copy(value.%s(), 0, segment, %s, %s, %d);%n",
+                        component.name(), getSnapshotElementLayoutName(component), offsetExpression,
+                        getSnapshotArrayLength(component));
+            }
+        }
+        writer.println("    }");
+        writer.println();
+    }
+
+    private static String getOffsetExpression(long offset) {
+        return offset == 0 ? "offset" : String.format("offset + %dL", offset);
+    }
+
+    private String getSnapshotJavaType(SnapshotComponent component) {
+        return switch (component.kind()) {
+            case VALUE -> getJavaType(component.type());
+            case SNAPSHOT -> getSnapshotStructClassName(component) + "." + SNAPSHOT;
+            case PRIMITIVE_ARRAY -> getJavaType(((Array) component.type()).itemType()) + "[]";
+            case BYTES -> "byte[]";
+        };
+    }
+
+    private String getSnapshotStructClassName(SnapshotComponent component) {
+        var struct = (Struct) component.type();
+        return struct.namespace() != namespace
+                ? toJavaPackageName(struct.namespace().name()) + "." + toJavaClassName(struct.name())
+                : toJavaClassName(struct.name());
+    }
+
+    private String getSnapshotElementLayoutName(SnapshotComponent component) {
+        return component.kind() == SnapshotKind.PRIMITIVE_ARRAY
+                ? getLayoutName(((Array) component.type()).itemType(), type.packageSize(), namespace)
+                : "JAVA_BYTE";
+    }
+
+    private static long getSnapshotArrayLength(SnapshotComponent component) {
+        return switch (component.kind()) {
+            case PRIMITIVE_ARRAY -> ((Array) component.type()).arrayLength();
+            case BYTES -> LayoutRequirement.forType(component.type()).size();
+            default -> -1;
+        };
+    }
+
+    /**
+     * Checks if a snapshot record is generated for the specified struct.
+     * <p>
+     * Snapshot records are generated for fixed size structs (but not unions) if the
+     * number of fields does not exceed the limit for Java records.
+     * </p>
+     *
+     * @param struct the struct
+     * @return {@code true} if a snapshot record is generated
+     */
+    private boolean hasSnapshot(Struct struct) {
+        if (struct.isUnion() || struct.isNested() || !struct.hasFixedSize())
+            return false;
+
+        var slots = 0;
+        for (var component : getSnapshotComponents(struct)) {
+            var javaType = component.kind() == SnapshotKind.VALUE ? getJavaType(component.type()) : "";
+            slots += javaType.equals("long") || javaType.equals("double") ? 2 : 1;
         }
+        return slots <= MAX_RECORD_SLOTS;
+    }
+
+    private List<SnapshotComponent> getSnapshotComponents(Struct struct) {
+        var components = new ArrayList<SnapshotComponent>();
+        collectSnapshotComponents(struct, struct, 0, "", "", components, new HashSet<>(), new int[1]);
+        return components;
+    }
+
+    /**
+     * Collects the snapshot components of the struct.
+     * <p>
+     * The fields of nested structs are flattened and named in the same way as the field accessors.
+     * Bit fields are numbered in the same way as well (including those in nested unions).
+     * </p>
+     */
+    @SuppressWarnings("java:S107")
+    private void collectSnapshotComponents(Struct rootStruct, Struct struct, long offset, String prefix,
+                                                  String nativePrefix, List<SnapshotComponent> components,
+                                                  Set<String> names, int[] bitFieldNumber) {
+        for (var field : struct.members()) {
+            var fieldType = field.type();
+            var fieldOffset = offset + field.offset();
+
+            if (fieldType instanceof Struct nestedStruct && nestedStruct.isNested()) {
+                if (nestedStruct.isUnion()) {
+                    var name = getUniqueName(prefix + field.name(), names);
+                    components.add(new SnapshotComponent(name, nativePrefix + field.name(), SnapshotKind.BYTES,
+                            nestedStruct, fieldOffset));
+                    countBitFields(nestedStruct, bitFieldNumber);
+                } else {
+                    var nestedPrefix = fieldType.isAnonymous() ? prefix : prefix + field.name() + "_";
+                    var nestedNativePrefix = fieldType.isAnonymous() ? nativePrefix : nativePrefix + field.name() + ".";
+                    collectSnapshotComponents(rootStruct, nestedStruct, fieldOffset, nestedPrefix, nestedNativePrefix,
+                            components, names, bitFieldNumber);
+                }
+                continue;
+            }
+
+            var fieldName = field.name();
+            if (field.isBitField()) {
+                bitFieldNumber[0] += 1;
+                fieldName = "_bitfield" + bitFieldNumber[0];
+            }
+            if (fieldName.equals("boolean"))
+                fieldName = "boolean_";
+
+            var kind = switch (fieldType) {
+                case Struct memberStruct -> hasSnapshot(memberStruct)
+                        && memberStruct.packageSize() <= rootStruct.packageSize()
+                        ? SnapshotKind.SNAPSHOT : SnapshotKind.BYTES;
+                case Array array -> isPrimitiveArrayItem(array.itemType())
+                        ? SnapshotKind.PRIMITIVE_ARRAY : SnapshotKind.BYTES;
+                default -> SnapshotKind.VALUE;
+            };
+            components.add(new SnapshotComponent(getUniqueName(prefix + fieldName, names),
+                    nativePrefix + field.name(), kind, fieldType, fieldOffset));
+        }
+    }
+
+    private static void countBitFields(Struct struct, int[] bitFieldNumber) {
+        for (var field : struct.members()) {
+            if (field.type() instanceof Struct nestedStruct && nestedStruct.isNested())
+                countBitFields(nestedStruct, bitFieldNumber);
+            else if (field.isBitField())
+                bitFieldNumber[0] += 1;
+        }
+    }
+
+    private boolean isPrimitiveArrayItem(Type itemType) {
+        var javaType = getJavaType(itemType);
+        return !javaType.equals("MemorySegment") && !javaType.equals("boolean");
+    }
+
+    private static String getUniqueName(String name, Set<String> names) {
+        var uniqueName = OBJECT_METHOD_NAMES.contains(name) ? name + "_" : name;
+        while (!names.add(uniqueName))
+            uniqueName += "_";
+        return uniqueName;
+    }
+
+    private enum SnapshotKind {
+        /** primitive, enumeration or pointer value */
+        VALUE,
+        /** named struct represented by its snapshot record */
+        SNAPSHOT,
+        /** array of primitive values represented by a Java array */
+        PRIMITIVE_ARRAY,
+        /** union, struct or array represented by its raw bytes */
+        BYTES
+    }
+
+    private record SnapshotComponent(String name, String nativeName, SnapshotKind kind, Type type, long offset) {
     }
 
     private void writeFieldsLayout(int indenting, List<Member> fields, int packageSize) {
@@ -390,6 +740,8 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
                 writer.print(")");
             }
             case EnumType enumType -> writeFfmTypeLayout(indenting, enumType.baseType(), packageSize);
+            case TypeAlias typeAlias when isLongHandle(typeAlias) ->
+                    writer.print(getPrimitiveLayoutName(getHandlePrimitive(), packageSize));
             case TypeAlias typeAlias -> writeFfmTypeLayout(indenting, typeAlias.aliasedType(), packageSize);
             case Pointer pointer -> writer.print(getLayoutName(pointer, packageSize, null));
             case Struct struct -> {
@@ -436,21 +788,13 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
     }
 
     private void writeUnalignedStructLayouts() {
-        var unalignedStructs = getUnalignedMemberStructs(type, type.packageSize());
-        if (!unalignedStructs.isEmpty()) {
-            var unalignedStructList = unalignedStructs.stream().sorted(Comparator.comparing(Struct::name)).toList();
+        var unalignedStructList = getSortedUnalignedMemberStructs();
+        if (!unalignedStructList.isEmpty()) {
             for (var struct : unalignedStructList) {
-                writer.printf("""
-                                    private static final MemoryLayout %s$LAYOUT_UNALIGNED = align1(%s);
-                                
-                                """,
-                        struct.name(),
-                        getLayoutName(struct, namespace));
-
                 writeComment("Gets a layout for {@code %s} with relaxed alignment constraints", struct.name());
                 writer.printf("""
                             public static MemoryLayout %1$s$unalignedLayout() {
-                                return %1$s$LAYOUT_UNALIGNED;
+                                return $LAYOUT.%1$s$LAYOUT_UNALIGNED;
                             }
                         
                         """, struct.name());
@@ -459,6 +803,12 @@ class StructCodeWriter extends JavaCodeWriter<Struct> {
         }
     }
 
+    private List<Struct> getSortedUnalignedMemberStructs() {
+        return getUnalignedMemberStructs(type, type.packageSize()).stream()
+                .sorted(Comparator.comparing(Struct::name))
+                .toList();
+    }
+
     private void writeUnalignFunction() {
         writer.printf("""
                     private static MemoryLayout align1(MemoryLayout layout) {
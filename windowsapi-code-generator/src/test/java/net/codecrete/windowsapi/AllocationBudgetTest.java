@@ -0,0 +1,141 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi;
+
+import net.codecrete.windowsapi.metadata.Metadata;
+import net.codecrete.windowsapi.metadata.Method;
+import net.codecrete.windowsapi.winmd.MetadataBuilder;
+import net.codecrete.windowsapi.writer.CodeWriter;
+import net.codecrete.windowsapi.writer.Scope;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks the allocated bytes and the retained heap of the generator against the budgets
+ * in {@code allocation-budgets.properties}.
+ * <p>
+ * If a change intentionally increases the memory usage, update the budget file.
+ * </p>
+ */
+class AllocationBudgetTest {
+    private static final Set<String> SCOPE_NAMESPACES = Set.of(
+            "Windows.Win32.UI.WindowsAndMessaging",
+            "Windows.Win32.Graphics.Gdi",
+            "Windows.Win32.Devices.DeviceAndDriverInstallation"
+    );
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Properties budgets;
+
+    @BeforeAll
+    static void loadBudgets() throws IOException {
+        assumeTrue(THREAD_BEAN.isThreadAllocatedMemorySupported() && THREAD_BEAN.isThreadAllocatedMemoryEnabled(),
+                "JVM does not support measuring allocated memory");
+        budgets = new Properties();
+        try (var stream = AllocationBudgetTest.class.getResourceAsStream("/allocation-budgets.properties")) {
+            budgets.load(stream);
+        }
+    }
+
+    @Test
+    void metadataLoad_isWithinBudget() {
+        MetadataBuilder.load(); // warm-up (class loading)
+
+        checkBudget("metadataLoad.allocated", measureAllocatedBytes(MetadataBuilder::load));
+        checkBudget("metadataLoad.retained", measureRetainedBytes(MetadataBuilder::load));
+    }
+
+    @Test
+    void transitiveScope_isWithinBudget() {
+        var metadata = MetadataBuilder.load();
+        createScope(metadata); // warm-up (class loading)
+
+        // the retained heap of the scope is too small to be measured reliably
+        checkBudget("transitiveScope.allocated", measureAllocatedBytes(() -> createScope(metadata)));
+    }
+
+    @Test
+    void codeWriting_isWithinBudget() {
+        var metadata = MetadataBuilder.load();
+        var scope = createScope(metadata);
+        writeCode(metadata, scope); // warm-up (class loading)
+
+        checkBudget("codeWriting.allocated", measureAllocatedBytes(() -> writeCode(metadata, scope)));
+    }
+
+    private static Scope createScope(Metadata metadata) {
+        var scope = new Scope(metadata, new SimpleEventListener());
+        scope.addFunctions(SCOPE_NAMESPACES.stream()
+                .flatMap(namespace -> metadata.namespaces().get(namespace).methods().values().stream())
+                .map(Method::name)
+                .collect(Collectors.toSet()));
+        scope.buildTransitiveScope();
+        return scope;
+    }
+
+    private static CodeWriter writeCode(Metadata metadata, Scope scope) {
+        // dry run: the code is written to a null writer
+        var codeWriter = new CodeWriter(metadata, Path.of("."), event -> { });
+        codeWriter.setDryRun(true);
+        codeWriter.write(scope);
+        return codeWriter;
+    }
+
+    private static long measureAllocatedBytes(Supplier<?> action) {
+        var startBytes = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+        var result = action.get();
+        var allocatedBytes = THREAD_BEAN.getCurrentThreadAllocatedBytes() - startBytes;
+        assertThat(result).isNotNull();
+        return allocatedBytes;
+    }
+
+    private static long measureRetainedBytes(Supplier<?> action) {
+        var startBytes = usedHeap();
+        var result = action.get();
+        var retainedBytes = usedHeap() - startBytes;
+        assertThat(result).isNotNull(); // keeps the result reachable until here
+        return retainedBytes;
+    }
+
+    private static long usedHeap() {
+        var memoryBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i += 1)
+            memoryBean.gc();
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void checkBudget(String name, long measuredBytes) {
+        var budgetValue = budgets.getProperty(name);
+        if (budgetValue == null)
+            fail(String.format("No budget for %s in allocation-budgets.properties (measured: %,d bytes)",
+                    name, measuredBytes));
+
+        var budget = Long.parseLong(budgetValue);
+        var tolerance = Double.parseDouble(budgets.getProperty(name + ".tolerance",
+                budgets.getProperty("tolerance")));
+        var limit = (long) (budget * (1 + tolerance));
+        if (measuredBytes > limit)
+            fail(String.format("%s exceeds budget: measured %,d bytes, budget %,d bytes (+%,d bytes, +%.1f%%, " +
+                            "tolerance %.0f%%). If the increase is intended, update allocation-budgets.properties.",
+                    name, measuredBytes, budget, measuredBytes - budget, 100.0 * (measuredBytes - budget) / budget,
+                    100 * tolerance));
+    }
+}
@@ -6,11 +6,15 @@
 //
 package net.codecrete.windowsapi;
 
+import net.codecrete.windowsapi.events.BatchedEventListener;
+import net.codecrete.windowsapi.events.Event;
+import net.codecrete.windowsapi.events.GenerationPhase;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,6 +42,46 @@ class WindowsApiRunTest {
         assertDoesNotThrow(generator::dryRun);
     }
 
+    @Test
+    void dryRun_notifiesPhasesAndSummary() {
+        var events = new ArrayList<Event>();
+        var generator = new WindowsApiRun();
+        generator.setFunctions(Set.of("MessageBoxExW"));
+        generator.setStructs(Set.of("SP_DEVINFO_DATA"));
+        generator.setOutputDirectory(Path.of("target/generated-sources"));
+        generator.setEventListener(events::add);
+
+        generator.dryRun();
+
+        assertThat(events).filteredOn(Event.PhaseCompleted.class::isInstance)
+                .extracting(event -> ((Event.PhaseCompleted) event).phase())
+                .containsExactly(GenerationPhase.METADATA_LOADING, GenerationPhase.SCOPE_RESOLUTION,
+                        GenerationPhase.CODE_WRITING);
+        assertThat(events.getLast()).isInstanceOf(Event.GenerationSummary.class);
+        var summary = (Event.GenerationSummary) events.getLast();
+        assertThat(summary.fileCount())
+                .isEqualTo(events.stream().filter(Event.JavaSourceGenerated.class::isInstance).count());
+        assertThat(summary.bytesWritten()).isPositive();
+        assertThat(summary.scopeSizes()).containsEntry("functions", 1);
+        assertThat(summary.writerDurations()).containsKeys("structs", "functions", "runtime");
+        assertThat(summary.toJson()).contains("\"fileCount\": " + summary.fileCount(), "\"functions\": 1");
+    }
+
+    @Test
+    void dryRunWithAsyncEvents_deliversAllEvents() {
+        var events = new ArrayList<Event>();
+        var generator = new WindowsApiRun();
+        generator.setStructs(Set.of("SP_DEVINFO_DATA"));
+        generator.setOutputDirectory(Path.of("target/generated-sources"));
+        generator.setAsyncEvents(true);
+        generator.setEventListener((BatchedEventListener) events::addAll);
+
+        generator.dryRun();
+
+        assertThat(events).hasAtLeastOneElementOfType(Event.JavaSourceGenerated.class);
+        assertThat(events.getLast()).isInstanceOf(Event.GenerationSummary.class);
+    }
+
     @Test
     void createDirectory_succeeds() throws IOException {
         var temporaryFolder = Files.createTempDirectory("temporary-folder");
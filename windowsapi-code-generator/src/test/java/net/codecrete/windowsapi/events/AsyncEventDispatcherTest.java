@@ -0,0 +1,59 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncEventDispatcherTest {
+
+    @Test
+    void close_deliversAllEventsInOrder() {
+        var events = new CopyOnWriteArrayList<Event>();
+        var dispatcher = new AsyncEventDispatcher(events::add);
+        var expected = new ArrayList<Event>();
+        for (int i = 0; i < 1000; i += 1) {
+            var event = new Event.JavaSourceGenerated(Path.of("File" + i + ".java"));
+            expected.add(event);
+            dispatcher.onEvent(event);
+        }
+        dispatcher.close();
+
+        assertThat(events).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void flush_deliversBatches() {
+        var batches = new CopyOnWriteArrayList<List<Event>>();
+        BatchedEventListener listener = batches::add;
+        try (var dispatcher = new AsyncEventDispatcher(listener)) {
+            for (int i = 0; i < 1000; i += 1)
+                dispatcher.onEvent(new Event.JavaSourceGenerated(Path.of("File" + i + ".java")));
+            dispatcher.flush();
+
+            assertThat(batches).flatMap(batch -> batch).hasSize(1000);
+        }
+    }
+
+    @Test
+    void listenerException_isRethrownOnClose() {
+        var dispatcher = new AsyncEventDispatcher(event -> {
+            throw new IllegalStateException("listener failed");
+        });
+        dispatcher.onEvent(new Event.DirectoryCreated(Path.of("output")));
+
+        assertThatThrownBy(dispatcher::close).isInstanceOf(IllegalStateException.class)
+                .hasMessage("listener failed");
+    }
+}
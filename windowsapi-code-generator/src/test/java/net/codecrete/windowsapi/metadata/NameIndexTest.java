@@ -0,0 +1,78 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.metadata;
+
+import net.codecrete.windowsapi.winmd.MetadataBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NameIndexTest {
+
+    private static final Metadata metadata = MetadataBuilder.load();
+
+    @Test
+    void findSimilar_returnsClosestNamesFirst() {
+        var index = new NameIndex(Stream.of("MessageBoxA", "MessageBoxW", "MessageBoxExW", "MessageBeep", "BitBlt"));
+
+        assertThat(index.findSimilar("MesageBoxW", 3)).containsExactly("MessageBoxW", "MessageBoxA", "MessageBoxExW");
+    }
+
+    @Test
+    void findSimilar_ignoresCase() {
+        var index = new NameIndex(Stream.of("GetModuleHandleW", "GetModuleHandleA"));
+
+        assertThat(index.findSimilar("getmodulehandlew", 1)).containsExactly("GetModuleHandleW");
+    }
+
+    @Test
+    void findSimilar_rejectsDistantNames() {
+        var index = new NameIndex(Stream.of("MessageBoxW", "BitBlt"));
+
+        assertThat(index.findSimilar("Invalid", 3)).isEmpty();
+    }
+
+    @Test
+    void findSimilar_ignoresDuplicates() {
+        var index = new NameIndex(Stream.of("RECT", "RECT", "RECTL"));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.findSimilar("RECT", 3)).containsExactly("RECT", "RECTL");
+    }
+
+    @Test
+    void findSimilar_countsSharedTrigramsOfManyNames() {
+        var index = new NameIndex(IntStream.range(0, 5000).mapToObj(i -> String.format("NAME_%04d", i)));
+
+        assertThat(index.findSimilar("NAME_123", 2)).containsExactly("NAME_0123", "NAME_1023");
+        assertThat(index.findSimilar("NAME_4999X", 1)).containsExactly("NAME_4999");
+    }
+
+    @Test
+    void distance_isLevenshteinDistance() {
+        assertThat(NameIndex.distance("KITTEN", "SITTING", 5)).isEqualTo(3);
+        assertThat(NameIndex.distance("RECT", "RECT", 1)).isZero();
+        assertThat(NameIndex.distance("RECT", "RECTL", 1)).isEqualTo(1);
+    }
+
+    @Test
+    void distance_stopsAtMaximum() {
+        assertThat(NameIndex.distance("MessageBoxW", "BitBlt", 2)).isGreaterThan(2);
+    }
+
+    @Test
+    void findSimilarNames_usesIndexOfKind() {
+        assertThat(metadata.findSimilarNames(NameKind.STRUCT, "WINDOWINF", 1)).containsExactly("WINDOWINFO");
+        assertThat(metadata.findSimilarNames(NameKind.CALLBACK_FUNCTION, "FONTENUMPROC", 2))
+                .containsExactlyInAnyOrder("FONTENUMPROCA", "FONTENUMPROCW");
+        assertThat(metadata.findSimilarNames(NameKind.FUNCTION, "WINDOWINF", 3)).doesNotContain("WINDOWINFO");
+        assertThat(metadata.findSimilarNames(NameKind.CONSTANT, "WM_LBUTONDOWN", 1)).containsExactly("WM_LBUTTONDOWN");
+    }
+}
@@ -0,0 +1,76 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.metadata;
+
+import net.codecrete.windowsapi.winmd.MetadataBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedNameIndexTest {
+
+    private static final Metadata metadata = MetadataBuilder.load();
+
+    private static final SortedNameIndex index = new SortedNameIndex(Stream.of(
+            "Windows.Win32.System.Registry.RegOpenKeyExA",
+            "Windows.Win32.System.Registry.RegOpenKeyExW",
+            "Windows.Win32.System.Registry.RegCloseKey",
+            "Windows.Win32.UI.WindowsAndMessaging.RegisterClassW",
+            "Windows.Win32.UI.WindowsAndMessaging.MessageBoxW",
+            "Windows.Win32.UI.Shell.MessageBoxW"
+    ));
+
+    @Test
+    void isPattern_detectsWildcards() {
+        assertThat(SortedNameIndex.isPattern("Reg*W")).isTrue();
+        assertThat(SortedNameIndex.isPattern("RECT?")).isTrue();
+        assertThat(SortedNameIndex.isPattern("RegOpenKeyExW")).isFalse();
+    }
+
+    @Test
+    void findMatching_usesPrefix() {
+        assertThat(index.findMatching("Reg*W")).containsExactly("RegOpenKeyExW", "RegisterClassW");
+        assertThat(index.findMatching("RegOpenKeyEx?")).containsExactly("RegOpenKeyExA", "RegOpenKeyExW");
+    }
+
+    @Test
+    void findMatching_usesSuffix() {
+        assertThat(index.findMatching("*Key")).containsExactly("RegCloseKey");
+        assertThat(index.findMatching("*Box?")).containsExactly("MessageBoxW");
+    }
+
+    @Test
+    void findMatching_matchesQualifiedNames() {
+        assertThat(index.findMatching("Windows.Win32.System.Registry.*"))
+                .containsExactly("RegCloseKey", "RegOpenKeyExA", "RegOpenKeyExW");
+        assertThat(index.findMatching("*.MessageBox*")).containsExactly("MessageBoxW");
+    }
+
+    @Test
+    void findMatching_isCaseSensitive() {
+        assertThat(index.findMatching("reg*")).isEmpty();
+    }
+
+    @Test
+    void matches_backtracksAfterMismatch() {
+        assertThat(SortedNameIndex.matches("*Ex*W", 0, "RegOpenKeyExW", 0)).isTrue();
+        assertThat(SortedNameIndex.matches("*Ex*W", 0, "RegOpenKeyExA", 0)).isFalse();
+        assertThat(SortedNameIndex.matches("A*B*", 0, "AxxBxxB", 0)).isTrue();
+        assertThat(SortedNameIndex.matches("*", 0, "", 0)).isTrue();
+    }
+
+    @Test
+    void findMatchingNames_usesIndexOfKind() {
+        assertThat(metadata.findMatchingNames(NameKind.FUNCTION, "RegOpenKeyEx?"))
+                .containsExactly("RegOpenKeyExA", "RegOpenKeyExW");
+        assertThat(metadata.findMatchingNames(NameKind.STRUCT, "RECT?")).containsExactly("RECTL");
+        assertThat(metadata.findMatchingNames(NameKind.COM_INTERFACE, "Windows.Win32.System.Com.IUnknown"))
+                .containsExactly("IUnknown");
+    }
+}
@@ -0,0 +1,79 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.metadata;
+
+import net.codecrete.windowsapi.winmd.MetadataBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypeDependencyGraphTest {
+
+    private static final Metadata metadata = MetadataBuilder.load();
+
+    @Test
+    void graph_containsAllTypes() {
+        var graph = metadata.dependencyGraph();
+
+        metadata.types()
+                .filter(type -> !(type instanceof TypeAlias))
+                .forEach(type -> assertThat(graph.node(type)).as("node of %s", type.name()).isNotNegative());
+    }
+
+    @Test
+    void graph_isCached() {
+        assertThat(metadata.dependencyGraph()).isSameAs(metadata.dependencyGraph());
+    }
+
+    @Test
+    void nodes_areOrderedByTypeDefIndex() {
+        var graph = metadata.dependencyGraph();
+
+        for (int node = 1; node < graph.nodeCount(); node += 1)
+            assertThat(graph.type(node).typeDefIndex()).isGreaterThanOrEqualTo(graph.type(node - 1).typeDefIndex());
+    }
+
+    @Test
+    void closure_followsPointersAndArrays() {
+        var graph = metadata.dependencyGraph();
+        var roots = new BitSet();
+        graph.addNodes(metadata.getType("Windows.Win32.UI.WindowsAndMessaging", "WNDCLASSW"), roots);
+
+        var closure = graph.closure(roots);
+
+        assertThat(closure.stream().mapToObj(graph::type).map(Type::name))
+                .contains("WNDCLASSW", "WNDPROC", "WNDCLASS_STYLES")
+                .doesNotContain("HWND", "HINSTANCE");
+    }
+
+    @Test
+    void parallelClosure_isSameAsSequentialClosure() {
+        var graph = metadata.dependencyGraph();
+        var roots = new BitSet();
+        for (int node = 0; node < graph.nodeCount(); node += 17)
+            roots.set(node);
+
+        assertThat(graph.parallelClosure(roots, true)).isEqualTo(graph.sequentialClosure(roots, true));
+        assertThat(graph.parallelClosure(roots, false)).isEqualTo(graph.sequentialClosure(roots, false));
+    }
+
+    @Test
+    void closureWithoutStructPointers_includesEmbeddedStructsOnly() {
+        var graph = metadata.dependencyGraph();
+        var roots = new BitSet();
+        graph.addNodes(metadata.getType("Windows.Win32.UI.WindowsAndMessaging", "MSG"), roots);
+        graph.addNodes(metadata.getType("Windows.Win32.UI.WindowsAndMessaging", "CREATESTRUCTW"), roots);
+
+        var closure = graph.closure(roots, false);
+
+        assertThat(closure.stream().mapToObj(graph::type).map(Type::name))
+                .contains("MSG", "POINT", "CREATESTRUCTW", "WINDOW_EX_STYLE")
+                .doesNotContain("RECT");
+    }
+}
@@ -0,0 +1,78 @@
+//
+// Windows API Generator for Java
+// Copyright (c) 2025 Manuel Bleichenbacher
+// Licensed under MIT License
+// https://opensource.org/licenses/MIT
+//
+package net.codecrete.windowsapi.usage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClassFileScannerTest {
+
+    @SuppressWarnings("unused")
+    static class Fixture {
+        private Duration timeout;
+
+        int count(List<String> names, Map.Entry<String, Integer> entry) {
+            return Math.max(names.size(), Integer.MAX_VALUE - entry.getValue());
+        }
+    }
+
+    @Test
+    void scan_findsReferencedClassesAndMembers() throws IOException {
+        var references = new ClassReferences();
+        try (var inputStream = Fixture.class.getResourceAsStream("ClassFileScannerTest$Fixture.class")) {
+            ClassFileScanner.scan(inputStream, className -> false, references);
+        }
+
+        assertThat(references.classFileCount()).isEqualTo(1);
+        assertThat(references.isMemberReferenced("java.util.List", "size")).isTrue();
+        assertThat(references.isMemberReferenced("java.lang.Math", "max")).isTrue();
+        assertThat(references.isClassReferenced("java.time.Duration")).isTrue();
+        assertThat(references.isClassReferenced("java.util.Map")).isTrue();
+        assertThat(references.isClassReferenced("java.util.Map$Entry")).isFalse();
+    }
+
+    @Test
+    void scan_cannotDetectCompileTimeConstants() throws IOException {
+        var references = new ClassReferences();
+        try (var inputStream = Fixture.class.getResourceAsStream("ClassFileScannerTest$Fixture.class")) {
+            ClassFileScanner.scan(inputStream, className -> false, references);
+        }
+
+        assertThat(references.isMemberReferenced("java.lang.Integer", "MAX_VALUE")).isFalse();
+    }
+
+    @Test
+    void scan_skipsExcludedClasses() throws URISyntaxException {
+        var resource = Fixture.class.getResource("ClassFileScannerTest$Fixture.class");
+        assertThat(resource).isNotNull();
+        var directory = Path.of(resource.toURI()).getParent();
+
+        var references = ClassFileScanner.scan(directory,
+                className -> !className.endsWith("ClassFileScannerTest$Fixture"));
+
+        assertThat(references.classFileCount()).isEqualTo(1);
+        assertThat(references.isClassReferenced("java.time.Duration")).isTrue();
+    }
+
+    @Test
+    void scan_rejectsInvalidClassFile() {
+        var inputStream = new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+
+        assertThatThrownBy(() -> ClassFileScanner.scan(inputStream, className -> false, new ClassReferences()))
+                .isInstanceOf(ClassFileException.class);
+    }
+}
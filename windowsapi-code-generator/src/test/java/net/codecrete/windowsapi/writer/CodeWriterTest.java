@@ -18,9 +18,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -42,29 +44,19 @@ class CodeWriterTest {
                 .filter(e -> e.getValue() > 1)
                 .map(Map.Entry::getKey).toList();
         assertThat(duplicateFiles).isEmpty();
-        // The following number must not change unless the metadata has been updated
-        assertThat(eventListener.filePaths).hasSize(31367);
+        // The following number must not change unless the metadata or the runtime support classes have been updated
+        assertThat(eventListener.filePaths).hasSize(31372);
     }
 
     @Test
     void writeSingle_succeeds() throws IOException {
-        var temporaryDirectory = Files.createTempDirectory("winapi");
-        try {
-            var eventListener = new FileCountEventListener();
-            var scope = new Scope(metadata, new SimpleEventListener());
-            scope.addStructs(Set.of("USB_NODE_CONNECTION_INFORMATION_EX"));
-            scope.buildTransitiveScope();
-            var codeWriter = new CodeWriter(metadata, temporaryDirectory, eventListener);
-            codeWriter.setBasePackage("basepackage");
-            codeWriter.setDryRun(false);
-            codeWriter.write(scope);
-            assertThat(temporaryDirectory.resolve("basepackage/windows/win32/devices/usb" +
-                    "/USB_NODE_CONNECTION_INFORMATION_EX.java")).exists();
-            assertThat(eventListener.fileCount).isEqualTo(5);
+        var scope = newScope();
+        scope.addStructs(Set.of("USB_NODE_CONNECTION_INFORMATION_EX"));
+        var files = generate(scope, codeWriter -> codeWriter.setBasePackage("basepackage"));
 
-        } finally {
-            Testing.deleteDirectory(temporaryDirectory);
-        }
+        assertThat(files)
+                .containsKey("basepackage/windows/win32/devices/usb/USB_NODE_CONNECTION_INFORMATION_EX.java")
+                .hasSize(5);
     }
 
     @Test
@@ -144,7 +136,353 @@ class CodeWriterTest {
         var codeWriter = new CodeWriter(metadata, Path.of("."), eventListener);
         codeWriter.setDryRun(true);
         assertDoesNotThrow(() -> codeWriter.write(scope));
-        assertThat(eventListener.fileCount).isEqualTo(16);
+        assertThat(eventListener.fileCount).isEqualTo(20);
+    }
+
+    @Test
+    void writeFunctionWithLastError_addsThreadLocalOverload() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("ReadFile"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/storage/filesystem/Apis.java"))
+                .contains("public static int ReadFile(MemorySegment lastErrorState, MemorySegment hFile, ")
+                .contains("public static int ReadFile(MemorySegment hFile, ")
+                .contains("return ReadFile(windows.win32.runtime.CallState.lastErrorState(), hFile, ")
+                .contains("public static int lastError() {");
+        assertThat(files).containsKey("windows/win32/runtime/CallState.java");
+    }
+
+    @Test
+    void writeFunctionWithOutParameters_addsResultOverload() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("RegQueryValueExW"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/system/registry/Apis.java"))
+                .contains("public static RegQueryValueExW$Result RegQueryValueExW(MemorySegment hKey, " +
+                        "MemorySegment lpValueName, MemorySegment lpReserved, MemorySegment lpData, int lpcbData)")
+                .contains("public record RegQueryValueExW$Result(int result, int lpType, int lpcbData) {}");
+        assertThat(files).containsKey("windows/win32/runtime/ScratchAllocator.java");
+    }
+
+    @Test
+    void writeStruct_addsIndexedFieldAccessors() throws IOException {
+        var scope = newScope();
+        scope.addStructs(Set.of("MIB_TCPROW_LH"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/networkmanagement/iphelper/MIB_TCPROW_LH.java"))
+                .contains("public static int dwLocalPort$at(MemorySegment array, long index) {")
+                .contains("return array.get(JAVA_INT, 20L * index + 8L);")
+                .contains("public static void dwLocalPort$at(MemorySegment array, long index, int value) {");
+    }
+
+    @Test
+    void writeStructWithRecords_addsSnapshotAndCodecs() throws IOException {
+        var scope = newScope();
+        scope.addStructs(Set.of("ENUM_SERVICE_STATUS_PROCESSW", "PROCESSENTRY32W"));
+        var files = generate(scope, codeWriter -> codeWriter.setStructRecords(true));
+
+        assertThat(files.get("windows/win32/system/services/ENUM_SERVICE_STATUS_PROCESSW.java"))
+                .contains("SERVICE_STATUS_PROCESS.Snapshot ServiceStatusProcess) {}")
+                .contains("SERVICE_STATUS_PROCESS.read(segment, offset + 16L));")
+                .contains("public static Snapshot[] readArray(MemorySegment array, int count) {")
+                .contains("public static void write(MemorySegment segment, long offset, Snapshot value) {");
+        assertThat(files.get("windows/win32/system/diagnostics/toolhelp/PROCESSENTRY32W.java"))
+                .contains("short[] szExeFile) {}")
+                .contains("MemorySegment.copy(segment, JAVA_SHORT, offset + 44L, szExeFile$, 0, 260);");
+    }
+
+    @Test
+    void writeConstants_usesLazyHolders() throws IOException {
+        var scope = newScope();
+        scope.addConstants(Set.of("GUID_DEVINTERFACE_USB_DEVICE", "USB_REQUEST_GET_DESCRIPTOR"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/devices/usb/Constants.java"))
+                .contains("private static final class GUID_DEVINTERFACE_USB_DEVICE$SEG {")
+                .contains("return GUID_DEVINTERFACE_USB_DEVICE$SEG.SEG;")
+                .contains("public static final int USB_REQUEST_GET_DESCRIPTOR = 6;");
+    }
+
+    @Test
+    void writeStruct_buildsLayoutsLazily() throws IOException {
+        var scope = newScope();
+        scope.addStructs(Set.of("DL_TEREDO_ADDRESS"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/networking/winsock/DL_TEREDO_ADDRESS.java"))
+                .contains("private static final class $LAYOUT {")
+                .contains("static final MemoryLayout IN_ADDR$LAYOUT_UNALIGNED = align1(IN_ADDR.layout());")
+                .contains("return $LAYOUT.LAYOUT;")
+                .contains("return $LAYOUT.IN_ADDR$LAYOUT_UNALIGNED;");
+    }
+
+    @Test
+    void writeWithPooledAllocation_addsAllocationMethods() throws IOException {
+        var scope = newScope();
+        scope.addStructs(Set.of("WINDOWINFO"));
+        var files = generate(scope, codeWriter -> codeWriter.setPooledAllocation(true));
+
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/WINDOWINFO.java"))
+                .contains("public static MemorySegment allocateUninitialized(windows.win32.runtime.SlabAllocator allocator) {")
+                .contains("var segment = allocator.allocateUninitialized(60L, 4L);")
+                .contains("public static MemorySegment acquire(windows.win32.runtime.SegmentPool pool) {")
+                .contains("var segment = pool.acquire(60L, 4L);")
+                .contains("cbSize(segment, 60);")
+                .doesNotContain("allocate(windows.win32.runtime.");
+        assertThat(files)
+                .containsKey("windows/win32/runtime/SlabAllocator.java")
+                .containsKey("windows/win32/runtime/SegmentPool.java");
+    }
+
+    @Test
+    void writeWithoutPooledAllocation_omitsAllocationMethods() throws IOException {
+        var scope = newScope();
+        scope.addStructs(Set.of("WINDOWINFO"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/WINDOWINFO.java"))
+                .doesNotContain("SlabAllocator")
+                .doesNotContain("SegmentPool");
+        assertThat(files)
+                .doesNotContainKey("windows/win32/runtime/SlabAllocator.java")
+                .doesNotContainKey("windows/win32/runtime/SegmentPool.java");
+    }
+
+    @Test
+    void writeStructWithPointers_usesSharedAddressLayouts() throws IOException {
+        var scope = newScope();
+        scope.addStructs(Set.of("IP_ADAPTER_ADDRESSES_LH"));
+        var files = generate(scope, codeWriter -> codeWriter.setBasePackage("basepackage"));
+
+        assertThat(files.get("basepackage/windows/win32/networkmanagement/iphelper/IP_ADAPTER_ADDRESSES_LH.java"))
+                .contains("import static basepackage.windows.win32.runtime.AddressLayouts.*;")
+                .doesNotContain("private static final AddressLayout");
+        assertThat(files.get("basepackage/windows/win32/runtime/AddressLayouts.java"))
+                .contains("public static final AddressLayout ADDRESS$UNKNOWN_SIZE = ");
+    }
+
+    @Test
+    void writeCallbackWithContext_addsSharedUpcallStub() throws IOException {
+        var scope = newScope();
+        scope.addCallbackFunctions(Set.of("WNDENUMPROC", "PTP_WORK_CALLBACK", "WNDPROC"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/WNDENUMPROC.java"))
+                .contains("public static MemorySegment sharedUpcallStub() {")
+                .contains("public static long register(Function function) {")
+                .contains("var function = REGISTRY.get(param1);")
+                .contains("return 0;")
+                .contains("return function.invoke(param0, param1);");
+        assertThat(files.get("windows/win32/system/threading/PTP_WORK_CALLBACK.java"))
+                .contains("public static MemorySegment register(Function function) {")
+                .contains("var function = REGISTRY.get(Context.address());")
+                .contains("function.invoke(Instance, Context, Work);");
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/WNDPROC.java")).doesNotContain("sharedUpcallStub");
+        assertThat(files).containsKey("windows/win32/runtime/CallbackRegistry.java");
+    }
+
+    @Test
+    void writeCallbackWithMessageData_omitsSharedUpcallStub() throws IOException {
+        var scope = newScope();
+        scope.addCallbackFunctions(Set.of("DRIVERPROC", "PFNPROPSHEETCALLBACK", "WS_CREATE_LISTENER_CALLBACK"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/media/multimedia/DRIVERPROC.java")).doesNotContain("sharedUpcallStub");
+        assertThat(files.get("windows/win32/ui/controls/PFNPROPSHEETCALLBACK.java")).doesNotContain("sharedUpcallStub");
+        assertThat(files.get("windows/win32/networking/windowswebservices/WS_CREATE_LISTENER_CALLBACK.java"))
+                .doesNotContain("sharedUpcallStub");
+        assertThat(files).doesNotContainKey("windows/win32/runtime/CallbackRegistry.java");
+    }
+
+    @Test
+    void writeWithOrThrowVariants_addsCheckingVariants() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("RegOpenKeyExW", "CloseHandle", "CoCreateInstance"));
+        scope.addComInterfaces(Set.of("IUnknown"));
+        var files = generate(scope, codeWriter -> codeWriter.setOrThrowVariants(true));
+
+        assertThat(files.get("windows/win32/system/registry/Apis.java"))
+                .contains("public static void RegOpenKeyExWOrThrow(MemorySegment hKey, ")
+                .contains("if ($result != 0)")
+                .contains("throw windows.win32.runtime.WindowsException.win32Error(\"RegOpenKeyExW\", $result);");
+        assertThat(files.get("windows/win32/foundation/Apis.java"))
+                .contains("public static void CloseHandleOrThrow(MemorySegment hObject) {")
+                .contains("throw windows.win32.runtime.WindowsException.lastError(\"CloseHandle\");");
+        assertThat(files.get("windows/win32/system/com/IUnknown.java"))
+                .contains("default int QueryInterfaceOrThrow(MemorySegment riid, MemorySegment ppvObject) {")
+                .contains("throw windows.win32.runtime.WindowsException.hresult(\"IUnknown.QueryInterface\", $result);");
+        assertThat(files.get("windows/win32/runtime/WindowsException.java"))
+                .contains("private static final long serialVersionUID = 1L;");
+        assertThat(files).containsKey("windows/win32/runtime/CallState.java");
+    }
+
+    @Test
+    void writeWithOrThrowVariants_throwsOnlyOnMinusOneForTriStateBool() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("GetMessageW"));
+        var files = generate(scope, codeWriter -> codeWriter.setOrThrowVariants(true));
+
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/Apis.java"))
+                .contains("public static int GetMessageWOrThrow(MemorySegment lpMsg, MemorySegment hWnd, "
+                        + "int wMsgFilterMin, int wMsgFilterMax) {")
+                .containsIgnoringWhitespaces("if ($result == -1) "
+                        + "throw windows.win32.runtime.WindowsException.lastError(\"GetMessageW\"); "
+                        + "return $result;")
+                .doesNotContain("if ($result == 0)")
+                .doesNotContain("void GetMessageWOrThrow");
+    }
+
+    @Test
+    void writeWithLongHandles_mapsHandlesToLong() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("SendMessageW", "ConvertSidToStringSidW"));
+        scope.addStructs(Set.of("MSG"));
+        scope.addConstants(Set.of("HKEY_LOCAL_MACHINE"));
+        var files = generate(scope, codeWriter -> codeWriter.setLongHandles(true));
+
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/Apis.java"))
+                .contains("public static long SendMessageW(long hWnd, int Msg, long wParam, long lParam) {")
+                .contains("FunctionDescriptor.of(JAVA_LONG, JAVA_LONG, JAVA_INT, JAVA_LONG, JAVA_LONG)");
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/MSG.java"))
+                .contains("JAVA_LONG.withName(\"hwnd\")")
+                .contains("public static long hwnd(MemorySegment segment) {");
+        assertThat(files.get("windows/win32/system/registry/Constants.java"))
+                .contains("public static final long HKEY_LOCAL_MACHINE = -2147483646L;");
+        assertThat(files.get("windows/win32/security/authorization/Apis.java"))
+                .contains("ConvertSidToStringSidW(MemorySegment Sid, ");
+    }
+
+    @Test
+    void writeWithAsyncFunctions_addsAsyncVariants() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("Sleep", "WaitForSingleObject", "SetEvent"));
+        var files = generate(scope, codeWriter -> codeWriter.setAsyncFunctions(Set.of("Sleep", "WaitForSingleObject")));
+
+        assertThat(files.get("windows/win32/system/threading/Apis.java"))
+                .contains("import java.util.concurrent.CompletableFuture;")
+                .contains("public static CompletableFuture<Void> SleepAsync(int dwMilliseconds) {")
+                .contains("return windows.win32.runtime.BlockingCalls.runAsync(() -> Sleep(dwMilliseconds));")
+                .contains("public static CompletableFuture<Integer> WaitForSingleObjectAsync(MemorySegment lastErrorState, ")
+                .contains("supplyAsync(() -> WaitForSingleObject(lastErrorState, hHandle, dwMilliseconds));")
+                .doesNotContain("SetEventAsync");
+        assertThat(files).containsKey("windows/win32/runtime/BlockingCalls.java");
+    }
+
+    @Test
+    void writeWithCallInstrumentation_addsEventsAndCounters() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("CloseHandle", "Sleep"));
+        scope.addComInterfaces(Set.of("IUnknown"));
+        var files = generate(scope, codeWriter -> {
+            codeWriter.setCallEvents(true);
+            codeWriter.setCallCounters(true);
+        });
+
+        assertThat(files.get("windows/win32/foundation/Apis.java"))
+                .contains("CALLS = windows.win32.runtime.CallCounters.register(\"CloseHandle\");")
+                .contains("CloseHandle$IMPL.CALLS.increment();")
+                .contains("var $event = new windows.win32.runtime.NativeCallEvent();")
+                .contains("$event.complete(\"CloseHandle\", \"KERNEL32.dll\", lastErrorState);");
+        assertThat(files.get("windows/win32/system/threading/Apis.java"))
+                .contains("$event.complete(\"Sleep\", \"KERNEL32.dll\");");
+        assertThat(files.get("windows/win32/system/com/IUnknown.java"))
+                .contains("CALLS = windows.win32.runtime.CallCounters.register(\"IUnknown.QueryInterface\");")
+                .contains("$event.complete(\"IUnknown.QueryInterface\", null, $result);");
+        assertThat(files)
+                .containsKey("windows/win32/runtime/NativeCallEvent.java")
+                .containsKey("windows/win32/runtime/CallCounters.java");
+    }
+
+    @Test
+    void write_addsWarmUpMethods() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("CloseHandle"));
+        scope.addCallbackFunctions(Set.of("WNDENUMPROC"));
+        scope.addComInterfaces(Set.of("IUnknown"));
+        var files = generate(scope);
+
+        assertThat(files.get("windows/win32/foundation/Apis.java"))
+                .contains("public static void warmUp() {")
+                .contains("lookup.ensureInitialized(CloseHandle$IMPL.class);");
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/WNDENUMPROC.java"))
+                .contains("lookup.ensureInitialized($SHARED.class);");
+        assertThat(files.get("windows/win32/system/com/IUnknown.java"))
+                .contains("static void warmUp() {")
+                .contains("lookup.ensureInitialized(VFUNC2$IMPL.class);");
+        assertThat(files.get("windows/win32/runtime/Bindings.java"))
+                .contains("tasks.add(windows.win32.foundation.Apis::warmUp);")
+                .contains("tasks.add(windows.win32.system.com.IUnknown::warmUp);")
+                .contains("tasks.add(windows.win32.ui.windowsandmessaging.WNDENUMPROC::warmUp);");
+    }
+
+    @Test
+    void writeWithAotTraining_addsTrainingEntryPoint() throws IOException {
+        var scope = newScope();
+        scope.addFunctions(Set.of("CloseHandle"));
+        scope.addStructs(Set.of("RECT"));
+        var files = generate(scope, codeWriter -> codeWriter.setAotTraining(true));
+
+        assertThat(files.get("windows/win32/foundation/Apis.java"))
+                .contains("if (!windows.win32.runtime.AotTraining.isStubbed()) {")
+                .contains("SYMBOL_LOOKUP = windows.win32.runtime.AotTraining.symbolLookup(SymbolLookup.loaderLookup());")
+                .contains("LAST_ERROR_STATE = windows.win32.runtime.AotTraining.lastErrorState();");
+        assertThat(files.get("windows/win32/runtime/AotTraining.java"))
+                .contains("public static void main(String[] args)")
+                .contains("count += initialize(loader, \"windows.win32.foundation\", \"Apis,RECT,WIN32_ERROR\");");
+    }
+
+    @Test
+    void writeWithPruning_usesAddressLayoutOfUnknownSize() throws IOException {
+        var scope = newScope();
+        scope.setPrunePointerOnlyStructs(true);
+        scope.addFunctions(Set.of("GetWindowInfo", "WindowFromPoint"));
+        var files = generate(scope);
+
+        assertThat(files)
+                .doesNotContainKey("windows/win32/ui/windowsandmessaging/WINDOWINFO.java")
+                .containsKey("windows/win32/foundation/POINT.java");
+        assertThat(files.get("windows/win32/ui/windowsandmessaging/Apis.java"))
+                .contains("FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS$UNKNOWN_SIZE)")
+                .doesNotContain("ADDRESS$STRUCT_");
+    }
+
+    private Scope newScope() {
+        return new Scope(metadata, new SimpleEventListener());
+    }
+
+    private Map<String, String> generate(Scope scope) throws IOException {
+        return generate(scope, codeWriter -> {});
+    }
+
+    /**
+     * Generates the code for the scope in a temporary directory and returns the generated files.
+     *
+     * @param scope         the scope (without the transitive scope built)
+     * @param configuration function to configure the code writer
+     * @return map of relative file paths (with forward slashes) to file contents
+     * @throws IOException if the files cannot be read
+     */
+    private Map<String, String> generate(Scope scope, Consumer<CodeWriter> configuration) throws IOException {
+        scope.buildTransitiveScope();
+        var temporaryDirectory = Files.createTempDirectory("winapi");
+        try {
+            var codeWriter = new CodeWriter(metadata, temporaryDirectory, new SimpleEventListener());
+            configuration.accept(codeWriter);
+            codeWriter.write(scope);
+
+            var files = new HashMap<String, String>();
+            try (var paths = Files.walk(temporaryDirectory)) {
+                for (var path : paths.filter(Files::isRegularFile).toList())
+                    files.put(temporaryDirectory.relativize(path).toString().replace('\\', '/'), Files.readString(path));
+            }
+            return files;
+
+        } finally {
+            Testing.deleteDirectory(temporaryDirectory);
+        }
     }
 
     static class FileCountEventListener implements EventListener {
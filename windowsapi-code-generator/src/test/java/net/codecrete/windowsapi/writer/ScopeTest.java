@@ -12,9 +12,12 @@ import net.codecrete.windowsapi.metadata.ConstantValue;
 import net.codecrete.windowsapi.metadata.Metadata;
 import net.codecrete.windowsapi.metadata.Method;
 import net.codecrete.windowsapi.metadata.Type;
+import net.codecrete.windowsapi.usage.ClassReferences;
 import net.codecrete.windowsapi.winmd.MetadataBuilder;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -38,6 +41,32 @@ class ScopeTest {
                 .containsExactlyInAnyOrder("WNDCLASSW", "WNDPROC", "PROCESS_MEMORY_COUNTERS", "WNDCLASS_STYLES", "WIN32_ERROR");
     }
 
+    @Test
+    void buildScopeWithPruning_excludesPointerOnlyStructs() {
+        var scope = new Scope(metadata, eventListener);
+        scope.setPrunePointerOnlyStructs(true);
+        scope.addFunctions(Set.of("GetWindowInfo", "WindowFromPoint"));
+        scope.buildTransitiveScope();
+
+        assertThat(scope.getTransitiveTypeScope())
+                .extracting(Type::name)
+                .containsExactlyInAnyOrder("POINT", "WIN32_ERROR");
+    }
+
+    @Test
+    void buildScopeWithPruning_includesExplicitAndEmbeddedStructs() {
+        var scope = new Scope(metadata, eventListener);
+        scope.setPrunePointerOnlyStructs(true);
+        scope.addFunctions(Set.of("GetWindowInfo"));
+        scope.addStructs(Set.of("WINDOWINFO"));
+        scope.buildTransitiveScope();
+
+        assertThat(scope.getTransitiveTypeScope())
+                .extracting(Type::name)
+                .contains("WINDOWINFO", "RECT")
+                .doesNotContain("POINT");
+    }
+
     @Test
     void addStructs_acceptsValidName() {
         var scope = new Scope(metadata, eventListener);
@@ -105,6 +134,18 @@ class ScopeTest {
         assertThat(scope.hasInvalidArguments()).isTrue();
     }
 
+    @Test
+    void addEnums_proposesSimilarName() {
+        var scope = new Scope(metadata, eventListener);
+        scope.addEnums(Set.of("WINDOW_STYLES"));
+
+        assertThat(recordedEvents).singleElement().satisfies(event -> {
+            assertThat(event).isInstanceOf(Event.InvalidArgument.class);
+            assertThat(((Event.InvalidArgument) event).reason()).contains("Did you mean \"WINDOW_STYLE\"");
+        });
+        assertThat(scope.hasInvalidArguments()).isTrue();
+    }
+
     @Test
     void addCallbackFunctions_acceptsValidName() {
         var scope = new Scope(metadata, eventListener);
@@ -162,6 +203,18 @@ class ScopeTest {
         assertThat(scope.hasInvalidArguments()).isTrue();
     }
 
+    @Test
+    void addComInterfaces_proposesSimilarName() {
+        var scope = new Scope(metadata, eventListener);
+        scope.addComInterfaces(Set.of("IShelItem"));
+
+        assertThat(recordedEvents).singleElement().satisfies(event -> {
+            assertThat(event).isInstanceOf(Event.InvalidArgument.class);
+            assertThat(((Event.InvalidArgument) event).reason()).contains("Did you mean \"IShellItem\"");
+        });
+        assertThat(scope.hasInvalidArguments()).isTrue();
+    }
+
     @Test
     void addConstants_acceptsValidName() {
         var scope = new Scope(metadata, eventListener);
@@ -241,4 +294,92 @@ class ScopeTest {
         });
         assertThat(scope.hasInvalidArguments()).isTrue();
     }
+
+    @Test
+    void addFunctions_proposesSimilarName() {
+        var scope = new Scope(metadata, eventListener);
+        scope.addFunctions(Set.of("getmodulehandlew"));
+
+        assertThat(recordedEvents).singleElement().satisfies(event -> {
+            assertThat(event).isInstanceOf(Event.InvalidArgument.class);
+            assertThat(((Event.InvalidArgument) event).reason()).contains("Did you mean \"GetModuleHandleW\"");
+        });
+        assertThat(scope.hasInvalidArguments()).isTrue();
+    }
+
+    @Test
+    void addFunctions_expandsPatterns() {
+        var scope = new Scope(metadata, eventListener);
+        scope.addFunctions(Set.of("RegOpenKeyEx?", "BitBlt"));
+
+        assertThat(recordedEvents).singleElement().isEqualTo(new Event.PatternResolved("functions", "RegOpenKeyEx?", 2));
+        assertThat(scope.methods()).extracting(Method::name)
+                .containsExactlyInAnyOrder("RegOpenKeyExA", "RegOpenKeyExW", "BitBlt");
+        assertThat(scope.hasInvalidArguments()).isFalse();
+    }
+
+    @Test
+    void addStructs_expandsQualifiedPatterns() {
+        var scope = new Scope(metadata, eventListener);
+        scope.addStructs(Set.of("Windows.Win32.Foundation.RECT*"));
+
+        assertThat(scope.types()).extracting(Type::name).contains("RECT", "RECTL");
+        assertThat(scope.hasInvalidArguments()).isFalse();
+    }
+
+    @Test
+    void addFunctions_rejectsPatternWithoutMatch() {
+        var scope = new Scope(metadata, eventListener);
+        scope.addFunctions(Set.of("Xyzzy*"));
+
+        assertThat(recordedEvents).singleElement().satisfies(event -> {
+            assertThat(event).isInstanceOf(Event.InvalidArgument.class);
+            assertThat(((Event.InvalidArgument) event).reason())
+                    .contains("Function pattern \"Xyzzy*\" does not match any name");
+        });
+        assertThat(scope.hasInvalidArguments()).isTrue();
+    }
+
+    @Test
+    void addAsyncFunctions_expandsPatterns() {
+        var scope = new Scope(metadata, eventListener);
+        scope.addAsyncFunctions(Set.of("WaitForSingleObject*"));
+
+        assertThat(scope.asyncFunctions()).containsExactlyInAnyOrder("WaitForSingleObject", "WaitForSingleObjectEx");
+        assertThat(scope.methods()).extracting(Method::name)
+                .containsExactlyInAnyOrder("WaitForSingleObject", "WaitForSingleObjectEx");
+        assertThat(scope.hasInvalidArguments()).isFalse();
+    }
+
+    @Test
+    void retainReferencedElements_removesUnreferencedFunctionsAndStructs() {
+        var scope = new Scope(metadata, eventListener);
+        scope.addFunctions(Set.of("MessageBoxW", "GetWindowInfo", "BitBlt"));
+        scope.addStructs(Set.of("LOGFONTW"));
+        scope.buildTransitiveScope();
+
+        var references = new ClassReferences();
+        references.addMember("windows/win32/ui/windowsandmessaging/Apis", "MessageBoxWOrThrow");
+        references.addClass("windows/win32/foundation/RECT");
+        scope.retainReferencedElements(references, "");
+
+        assertThat(scope.methods()).extracting(Method::name).containsExactly("MessageBoxW");
+        assertThat(scope.getTransitiveTypeScope()).extracting(Type::name)
+                .contains("RECT", "MESSAGEBOX_STYLE", "MESSAGEBOX_RESULT")
+                .doesNotContain("WINDOWINFO", "LOGFONTW");
+    }
+
+    @Test
+    void retainReferencedElements_keepsScopeWithoutClassFiles(@TempDir Path classesDirectory) {
+        var scope = new Scope(metadata, eventListener);
+        scope.addFunctions(Set.of("MessageBoxW", "GetWindowInfo"));
+        scope.buildTransitiveScope();
+
+        scope.retainReferencedElements(classesDirectory, "");
+
+        assertThat(recordedEvents).singleElement().isEqualTo(new Event.ClassFilesScanned(classesDirectory, 0));
+        assertThat(scope.methods()).extracting(Method::name)
+                .containsExactlyInAnyOrder("MessageBoxW", "GetWindowInfo");
+        assertThat(scope.getTransitiveTypeScope()).extracting(Type::name).contains("WINDOWINFO");
+    }
 }
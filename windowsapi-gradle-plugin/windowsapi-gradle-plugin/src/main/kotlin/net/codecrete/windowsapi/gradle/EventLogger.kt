@@ -6,20 +6,53 @@
 //
 package net.codecrete.windowsapi.gradle
 
+import net.codecrete.windowsapi.events.BatchedEventListener
 import net.codecrete.windowsapi.events.Event
-import net.codecrete.windowsapi.events.EventListener
 import org.gradle.api.logging.Logger
+import java.io.File
 
 /**
  * Event listener writing to messages to the Gradle logger.
+ *
+ * Instead of a message per generated file, a progress message is logged every 1000 files.
+ * If a report file is specified, the generation summary is also written to it as JSON.
  */
-class EventLogger(private val logger: Logger) : EventListener {
-    override fun onEvent(event: Event) {
+class EventLogger(private val logger: Logger, private val reportFile: File? = null) : BatchedEventListener {
+    private var generatedFileCount = 0
+    private var reportedFileCount = 0
+
+    override fun onEvents(events: List<Event>) {
+        events.forEach(::logEvent)
+
+        if (generatedFileCount - reportedFileCount >= PROGRESS_INTERVAL) {
+            logger.info("Generated {} java files", generatedFileCount)
+            reportedFileCount = generatedFileCount
+        }
+    }
+
+    private fun logEvent(event: Event) {
         when (event) {
-            is Event.JavaSourceGenerated -> logger.info("Generated java file {}", event.path)
+            is Event.JavaSourceGenerated -> generatedFileCount += 1
             is Event.DirectoryCleaned -> logger.info("Deleted all files and directories in output directory {}", event.path)
             is Event.DirectoryCreated -> logger.info("Created source directory {}", event.path)
             is Event.InvalidArgument -> logger.error("'{}' is invalid for argument {}: {}", event.value, event.argument, event.reason)
+            is Event.ClassFilesScanned -> logger.info("Scanned {} class files in {} for references to the generated code",
+                event.classFileCount, event.directory)
+            is Event.PatternResolved -> logger.info("Pattern '{}' for argument {} resolved to {} names", event.pattern, event.argument, event.count)
+            is Event.PhaseStarted -> logger.debug("Started phase {}", event.phase)
+            is Event.PhaseCompleted -> logger.debug("Completed phase {} in {} ms, {} KB allocated",
+                event.phase, event.duration.toMillis(), event.allocatedBytes / 1024)
+            is Event.GenerationSummary -> {
+                logger.lifecycle(event.toSummaryLine())
+                reportFile?.let {
+                    it.parentFile?.mkdirs()
+                    it.writeText(event.toJson())
+                }
+            }
         }
     }
-}
\ No newline at end of file
+
+    private companion object {
+        const val PROGRESS_INTERVAL = 1000
+    }
+}
@@ -33,6 +33,14 @@ class WindowsApiPlugin : Plugin<Project> {
                 task.description = "Generates Windows API bindings"
                 task.outputDirectory.set(outputDirectory)
                 task.basePackage.convention("")
+                task.structRecords.convention(false)
+                task.orThrowVariants.convention(false)
+                task.longHandles.convention(false)
+                task.callEvents.convention(false)
+                task.callCounters.convention(false)
+                task.aotTraining.convention(false)
+                task.pooledAllocation.convention(false)
+                task.prunePointerOnlyStructs.convention(false)
             }
 
             // create a dependency of the Java compile task on the Windows API generation
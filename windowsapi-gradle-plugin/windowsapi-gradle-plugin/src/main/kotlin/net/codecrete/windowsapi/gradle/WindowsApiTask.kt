@@ -11,12 +11,15 @@ import net.codecrete.windowsapi.WindowsApiRun
 import org.gradle.api.DefaultTask
 import org.gradle.api.InvalidUserDataException
 import org.gradle.api.file.DirectoryProperty
+import org.gradle.api.file.RegularFileProperty
 import org.gradle.api.provider.ListProperty
 import org.gradle.api.provider.Property
 import org.gradle.api.tasks.CacheableTask
 import org.gradle.api.tasks.Input
+import org.gradle.api.tasks.Internal
 import org.gradle.api.tasks.Optional
 import org.gradle.api.tasks.OutputDirectory
+import org.gradle.api.tasks.OutputFile
 import org.gradle.api.tasks.TaskAction
 
 /**
@@ -32,6 +35,13 @@ abstract class WindowsApiTask : DefaultTask() {
     @get:Optional
     abstract val functions: ListProperty<String>
 
+    /**
+     * A list of Windows API functions names to generate additional async variants for.
+     */
+    @get:Input
+    @get:Optional
+    abstract val asyncFunctions: ListProperty<String>
+
     /**
      * A list of Windows API struct and union names to generate bindings for.
      */
@@ -85,12 +95,101 @@ abstract class WindowsApiTask : DefaultTask() {
     @get:Optional
     abstract val basePackage: Property<String>
 
+    /**
+     * If set to `true`, a Java record is generated for each struct, together with
+     * codecs for reading and writing a struct (and an array of structs) in a single call.
+     */
+    @get:Input
+    @get:Optional
+    abstract val structRecords: Property<Boolean>
+
+    /**
+     * If set to `true`, a variant with the suffix `OrThrow` is generated for each function
+     * returning an error code. The variant throws an exception if the function fails.
+     */
+    @get:Input
+    @get:Optional
+    abstract val orThrowVariants: Property<Boolean>
+
+    /**
+     * If set to `true`, handle types such as `HANDLE`, `HWND` or `HKEY`
+     * are represented as `long` instead of `MemorySegment`.
+     */
+    @get:Input
+    @get:Optional
+    abstract val longHandles: Property<Boolean>
+
+    /**
+     * If set to `true`, a JFR event is recorded for each call of a function or COM interface method.
+     * The event is disabled by default and must be enabled in the JFR recording.
+     */
+    @get:Input
+    @get:Optional
+    abstract val callEvents: Property<Boolean>
+
+    /**
+     * If set to `true`, the calls of each function and COM interface method are counted.
+     */
+    @get:Input
+    @get:Optional
+    abstract val callCounters: Property<Boolean>
+
+    /**
+     * If set to `true`, the runtime class `AotTraining` is generated.
+     * It is a training entry point for creating an AOT cache.
+     */
+    @get:Input
+    @get:Optional
+    abstract val aotTraining: Property<Boolean>
+
+    /**
+     * If set to `true`, the methods `allocateUninitialized(SlabAllocator)` and `acquire(SegmentPool)`
+     * are generated for structs. They return memory that is not zeroed.
+     */
+    @get:Input
+    @get:Optional
+    abstract val pooledAllocation: Property<Boolean>
+
+    /**
+     * If set to `true`, code for structs is only generated if they are explicitly specified
+     * or embedded by value. Structs only referenced through pointers are excluded.
+     */
+    @get:Input
+    @get:Optional
+    abstract val prunePointerOnlyStructs: Property<Boolean>
+
+    /**
+     * Directory with compiled classes of a previous build. If set, the generated code is reduced to the
+     * functions, structs, COM interfaces and callback functions referenced by these classes (plus their dependencies).
+     *
+     * The directory cannot be a task input as it is usually the output of the compilation depending on this task.
+     * Instead, the task is never up-to-date (and not cached) if the directory is set, so it reruns on every build
+     * and scans the classes of the previous build.
+     */
+    @get:Internal
+    abstract val usageClassesDirectory: DirectoryProperty
+
+    init {
+        outputs.upToDateWhen { !usageClassesDirectory.isPresent }
+        outputs.cacheIf("usage classes directory is not set") { !usageClassesDirectory.isPresent }
+    }
+
+    /**
+     * JSON file to write the generation summary to (file counts, bytes written,
+     * scope sizes and time per code writer). If not set, no report is written.
+     */
+    @get:OutputFile
+    @get:Optional
+    abstract val reportFile: RegularFileProperty
+
     @TaskAction
     fun generateCode() {
         val run = WindowsApiRun()
-        run.eventListener = EventLogger(logger)
+        run.eventListener = EventLogger(logger, reportFile.orNull?.asFile)
+        run.isAsyncEvents = true
 
         run.functions.addAll(functions.get())
+        run.asyncFunctions.addAll(asyncFunctions.get())
         run.structs.addAll(structs.get())
         run.enumerations.addAll(enumerations.get())
         run.callbackFunctions.addAll(callbackFunctions.get())
@@ -98,6 +197,15 @@ abstract class WindowsApiTask : DefaultTask() {
         run.constants.addAll(constants.get())
         run.outputDirectory = outputDirectory.get().asFile.toPath()
         run.basePackage = basePackage.get()
+        run.isStructRecords = structRecords.get()
+        run.isOrThrowVariants = orThrowVariants.get()
+        run.isLongHandles = longHandles.get()
+        run.isCallEvents = callEvents.get()
+        run.isCallCounters = callCounters.get()
+        run.isAotTraining = aotTraining.get()
+        run.isPooledAllocation = pooledAllocation.get()
+        run.isPrunePointerOnlyStructs = prunePointerOnlyStructs.get()
+        run.usageClassesDirectory = usageClassesDirectory.orNull?.asFile?.toPath()
 
         try {
             run.generateCode()
@@ -7,17 +7,37 @@
 package net.codecrete.windowsapi.maven;
 
 import net.codecrete.windowsapi.events.Event;
+import net.codecrete.windowsapi.events.Event.ClassFilesScanned;
 import net.codecrete.windowsapi.events.Event.DirectoryCleaned;
 import net.codecrete.windowsapi.events.Event.DirectoryCreated;
+import net.codecrete.windowsapi.events.Event.GenerationSummary;
 import net.codecrete.windowsapi.events.Event.JavaSourceGenerated;
-import net.codecrete.windowsapi.events.EventListener;
+import net.codecrete.windowsapi.events.Event.PatternResolved;
+import net.codecrete.windowsapi.events.Event.PhaseCompleted;
+import net.codecrete.windowsapi.events.Event.PhaseStarted;
+import net.codecrete.windowsapi.events.BatchedEventListener;
 import org.apache.maven.plugin.logging.Log;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 /**
  * Event listener writing to messages to the Maven logger.
+ * <p>
+ * Instead of a message per generated file, a progress message is logged every
+ * {@value #PROGRESS_INTERVAL} files.
+ * </p>
  */
-public class EventLogger implements EventListener {
+public class EventLogger implements BatchedEventListener {
+    private static final int PROGRESS_INTERVAL = 1000;
+
     private final Log logger;
+    private final Path reportFile;
+    private int generatedFileCount;
+    private int reportedFileCount;
 
     /**
      * Creates a new instance
@@ -25,16 +45,34 @@ public class EventLogger implements EventListener {
      * @param logger Maven plugin logger instance
      */
     public EventLogger(Log logger) {
+        this(logger, null);
+    }
+
+    /**
+     * Creates a new instance writing the generation summary to a JSON report file.
+     *
+     * @param logger     Maven plugin logger instance
+     * @param reportFile path to the JSON report file, or {@code null} for no report
+     */
+    public EventLogger(Log logger, Path reportFile) {
         this.logger = logger;
+        this.reportFile = reportFile;
     }
 
     @Override
-    public void onEvent(Event event) {
+    public void onEvents(List<Event> events) {
+        for (var event : events)
+            logEvent(event);
+
+        if (generatedFileCount - reportedFileCount >= PROGRESS_INTERVAL) {
+            logger.info(String.format("Generated %d Java files", generatedFileCount));
+            reportedFileCount = generatedFileCount;
+        }
+    }
+
+    private void logEvent(Event event) {
         switch (event) {
-            case JavaSourceGenerated(var path) -> {
-                if (logger.isDebugEnabled())
-                    logger.debug("Generated Java file " + path);
-            }
+            case JavaSourceGenerated ignored -> generatedFileCount += 1;
             case DirectoryCreated(var path) -> {
                 if (logger.isDebugEnabled())
                     logger.debug("Created source directory " + path);
@@ -45,6 +83,36 @@ public class EventLogger implements EventListener {
             }
             case Event.InvalidArgument(var argument, var value, var reason)
                     -> logger.error(String.format("Invalid value '%s' for argument %s: %s", value, argument, reason));
+            case ClassFilesScanned(var directory, var classFileCount)
+                    -> logger.info(String.format("Scanned %d class files in %s for references to the generated code",
+                    classFileCount, directory));
+            case PatternResolved(var argument, var pattern, var count)
+                    -> logger.info(String.format("Pattern '%s' for argument %s resolved to %d names",
+                    pattern, argument, count));
+            case PhaseStarted(var phase) -> {
+                if (logger.isDebugEnabled())
+                    logger.debug("Started phase " + phase);
+            }
+            case PhaseCompleted(var phase, var duration, var allocatedBytes) -> {
+                if (logger.isDebugEnabled())
+                    logger.debug(String.format("Completed phase %s in %d ms, %d KB allocated",
+                            phase, duration.toMillis(), allocatedBytes / 1024));
+            }
+            case GenerationSummary summary -> {
+                logger.info(summary.toSummaryLine());
+                if (reportFile != null)
+                    writeReport(summary);
+            }
+        }
+    }
+
+    private void writeReport(GenerationSummary summary) {
+        try {
+            if (reportFile.getParent() != null)
+                Files.createDirectories(reportFile.getParent());
+            Files.writeString(reportFile, summary.toJson());
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to write report file " + reportFile, exception);
         }
     }
 }
@@ -28,6 +28,10 @@ import java.util.List;
  * The generated code uses the Java Foreign Functions and Memory (FFM) API
  * for native access.
  * </p>
+ * <p>
+ * The names of functions, structs etc. can be patterns with the wildcard characters
+ * {@code *} and {@code ?}, e.g., {@code Reg*W} or {@code Windows.Win32.System.Registry.*}.
+ * </p>
  */
 @Mojo(name = "windows-api", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
 public class WindowsApiGenerator extends AbstractMojo {
@@ -51,6 +55,12 @@ public class WindowsApiGenerator extends AbstractMojo {
     @Parameter(name = "functions")
     List<String> functions;
 
+    /**
+     * A list of Windows API functions names to generate additional async variants for.
+     */
+    @Parameter(name = "asyncFunctions")
+    List<String> asyncFunctions;
+
     /**
      * A list of Windows API struct and union names to generate bindings for.
      */
@@ -107,6 +117,69 @@ public class WindowsApiGenerator extends AbstractMojo {
     @Parameter(name = "basePackage")
     String basePackage;
 
+    /**
+     * If set to {@code true}, a Java record is generated for each struct, together with
+     * codecs for reading and writing a struct (and an array of structs) in a single call.
+     */
+    @Parameter(name = "structRecords", defaultValue = "false")
+    boolean structRecords;
+
+    /**
+     * If set to {@code true}, a variant with the suffix {@code OrThrow} is generated for each function
+     * returning an error code. The variant throws an exception if the function fails.
+     */
+    @Parameter(name = "orThrowVariants", defaultValue = "false")
+    boolean orThrowVariants;
+
+    /**
+     * If set to {@code true}, handle types such as {@code HANDLE}, {@code HWND} or {@code HKEY}
+     * are represented as {@code long} instead of {@code MemorySegment}.
+     */
+    @Parameter(name = "longHandles", defaultValue = "false")
+    boolean longHandles;
+
+    /**
+     * If set to {@code true}, a JFR event is recorded for each call of a function or COM interface method.
+     * The event is disabled by default and must be enabled in the JFR recording.
+     */
+    @Parameter(name = "callEvents", defaultValue = "false")
+    boolean callEvents;
+
+    /**
+     * If set to {@code true}, the calls of each function and COM interface method are counted.
+     */
+    @Parameter(name = "callCounters", defaultValue = "false")
+    boolean callCounters;
+
+    /**
+     * If set to {@code true}, the runtime class {@code AotTraining} is generated.
+     * It is a training entry point for creating an AOT cache.
+     */
+    @Parameter(name = "aotTraining", defaultValue = "false")
+    boolean aotTraining;
+
+    /**
+     * If set to {@code true}, the methods {@code allocateUninitialized(SlabAllocator)} and
+     * {@code acquire(SegmentPool)} are generated for structs. They return memory that is not zeroed.
+     */
+    @Parameter(name = "pooledAllocation", defaultValue = "false")
+    boolean pooledAllocation;
+
+    /**
+     * If set to {@code true}, code for structs is only generated if they are explicitly specified
+     * or embedded by value. Structs only referenced through pointers are excluded.
+     */
+    @Parameter(name = "prunePointerOnlyStructs", defaultValue = "false")
+    boolean prunePointerOnlyStructs;
+
+    /**
+     * Directory with compiled classes of a previous build. If set, the generated code is reduced to the
+     * functions, structs, COM interfaces and callback functions referenced by these classes (plus their dependencies).
+     * If the directory does not exist or contains no class files, the generated code is not reduced.
+     */
+    @Parameter(name = "usageClassesDirectory")
+    Path usageClassesDirectory;
+
     /**
      * If set to {@code true}, adds the source directory as a source root
      * so the generated code will be compiled and included in the resulting artifact.
@@ -128,6 +201,13 @@ public class WindowsApiGenerator extends AbstractMojo {
     @Parameter(name = "cleanOutputDirectory", defaultValue = "true")
     boolean cleanOutputDirectory;
 
+    /**
+     * Path of a JSON file to write the generation summary to (file counts, bytes written,
+     * scope sizes and time per code writer). If not set, no report is written.
+     */
+    @Parameter(name = "reportFile")
+    Path reportFile;
+
     public void execute() throws MojoExecutionException {
         try {
             var sourceFolder = outputDirectory;
@@ -157,10 +237,13 @@ public class WindowsApiGenerator extends AbstractMojo {
 
     private WindowsApiRun createRun(Path sourceFolder) {
         var run = new WindowsApiRun();
-        run.setEventListener(new EventLogger(getLog()));
+        run.setEventListener(new EventLogger(getLog(), reportFile));
+        run.setAsyncEvents(true);
 
         if (functions != null)
             run.setFunctions(new HashSet<>(functions));
+        if (asyncFunctions != null)
+            run.setAsyncFunctions(new HashSet<>(asyncFunctions));
         if (structs != null)
             run.setStructs(new HashSet<>(structs));
         if (enumerations != null)
@@ -174,6 +257,15 @@ public class WindowsApiGenerator extends AbstractMojo {
 
         run.setOutputDirectory(sourceFolder);
         run.setBasePackage(basePackage != null ? basePackage : "");
+        run.setStructRecords(structRecords);
+        run.setOrThrowVariants(orThrowVariants);
+        run.setLongHandles(longHandles);
+        run.setCallEvents(callEvents);
+        run.setCallCounters(callCounters);
+        run.setAotTraining(aotTraining);
+        run.setPooledAllocation(pooledAllocation);
+        run.setPrunePointerOnlyStructs(prunePointerOnlyStructs);
+        run.setUsageClassesDirectory(usageClassesDirectory);
         return run;
     }
 }